@@ -0,0 +1,73 @@
+package org.wikimedia.commons.donvip.spacemedia.apps;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded Caffeine caches, replacing the unbounded {@code ConcurrentMapCache} regions Spring creates by default.
+ * Each region is built from its {@code cache.spec.<region>} Caffeine specification if defined, from
+ * {@code cache.spec.default} otherwise, and reports its hits, misses, evictions and size to Micrometer.
+ */
+@Configuration
+public class SpacemediaCacheConfiguration {
+
+    static final String DEFAULT_SPEC = "maximumSize=10000,expireAfterWrite=12h";
+
+    @Bean
+    public CacheManager cacheManager(Environment env) {
+        return new BoundedCacheManager(env);
+    }
+
+    /**
+     * Approximate weight of a cached value, for regions bounded by {@code maximumWeight}: number of elements of
+     * collections and maps, kilobytes of strings, 1 otherwise.
+     */
+    static int weigh(Object key, Object value) {
+        if (value instanceof Collection<?> c) {
+            return Math.max(1, c.size());
+        } else if (value instanceof Map<?, ?> m) {
+            return Math.max(1, m.size());
+        } else if (value instanceof CharSequence s) {
+            return Math.max(1, s.length() / 1024);
+        }
+        return 1;
+    }
+
+    static class BoundedCacheManager extends CaffeineCacheManager {
+
+        private final PropertyResolver env;
+
+        BoundedCacheManager(PropertyResolver env) {
+            this.env = env;
+        }
+
+        @Override
+        protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+            String spec = env.getProperty("cache.spec." + name, env.getProperty("cache.spec.default", DEFAULT_SPEC));
+            Caffeine<Object, Object> builder = Caffeine.from(spec).recordStats();
+            if (spec.contains("maximumWeight")) {
+                builder = builder.weigher(SpacemediaCacheConfiguration::weigh);
+            }
+            return builder.build();
+        }
+
+        @Override
+        protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, name, "cache.manager", "cacheManager");
+            return super.adaptCaffeineCache(name, cache);
+        }
+    }
+}
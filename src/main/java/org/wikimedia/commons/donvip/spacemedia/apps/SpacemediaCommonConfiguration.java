@@ -8,11 +8,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
+@Import({ SpacemediaCacheConfiguration.class, SpacemediaHttpConfiguration.class })
 public class SpacemediaCommonConfiguration {
 
     @Bean(destroyMethod = "shutdown")
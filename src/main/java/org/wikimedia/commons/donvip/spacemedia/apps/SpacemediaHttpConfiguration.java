@@ -0,0 +1,59 @@
+package org.wikimedia.commons.donvip.spacemedia.apps;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.wikimedia.commons.donvip.spacemedia.utils.SpacemediaHttpRequestRetryStrategy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
+/**
+ * Shared HTTP client, backed by a connection pool with per-host limits, so that connections to a same host are kept
+ * alive and reused across media instead of paying a new TCP/TLS handshake for each asset. The pool reports its
+ * leased, pending and available connections to Micrometer.
+ */
+@Configuration
+public class SpacemediaHttpConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(
+            @Value("${http.pool.max.total:200}") int maxTotal,
+            @Value("${http.pool.max.per.route:8}") int maxPerRoute,
+            @Value("${http.pool.connection.ttl.minutes:5}") long ttlMinutes,
+            @Value("${http.connect.timeout.seconds:30}") long connectTimeoutSeconds) {
+        return newHttpConnectionManager(Metrics.globalRegistry, maxTotal, maxPerRoute, ttlMinutes,
+                connectTimeoutSeconds);
+    }
+
+    static PoolingHttpClientConnectionManager newHttpConnectionManager(MeterRegistry registry, int maxTotal,
+            int maxPerRoute, long ttlMinutes, long connectTimeoutSeconds) {
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal).setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(connectTimeoutSeconds))
+                        .setTimeToLive(TimeValue.ofMinutes(ttlMinutes))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10)).build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(manager, "spacemedia").bindTo(registry);
+        return manager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+            @Value("${http.pool.idle.eviction.seconds:60}") long idleEvictionSeconds) {
+        return HttpClients.custom().setConnectionManager(httpConnectionManager)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .setRetryStrategy(new SpacemediaHttpRequestRetryStrategy())
+                .evictExpiredConnections().evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds)).build();
+    }
+}
@@ -12,8 +12,10 @@ import org.wikimedia.commons.donvip.spacemedia.service.GeometryService;
 import org.wikimedia.commons.donvip.spacemedia.service.GoogleTranslateService;
 import org.wikimedia.commons.donvip.spacemedia.service.InternetArchiveService;
 import org.wikimedia.commons.donvip.spacemedia.service.MediaService;
+import org.wikimedia.commons.donvip.spacemedia.service.PerceptualHashIndexService;
 import org.wikimedia.commons.donvip.spacemedia.service.RemoteService;
 import org.wikimedia.commons.donvip.spacemedia.service.SearchService;
+import org.wikimedia.commons.donvip.spacemedia.service.StatsService;
 import org.wikimedia.commons.donvip.spacemedia.service.mastodon.MastodonService;
 
 @Configuration
@@ -41,12 +43,24 @@ public class SpacemediaUpdateJobConfiguration {
         return new RemoteService();
     }
 
+    @Lazy
+    @Bean
+    public PerceptualHashIndexService perceptualHashIndexService() {
+        return new PerceptualHashIndexService();
+    }
+
     @Lazy
     @Bean
     public SearchService searchService() {
         return new SearchService();
     }
 
+    @Lazy
+    @Bean
+    public StatsService statsService() {
+        return new StatsService();
+    }
+
     @Lazy
     @Bean
     public GeometryService geometryService() {
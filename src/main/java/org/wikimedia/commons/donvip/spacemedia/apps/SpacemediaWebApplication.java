@@ -16,6 +16,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
@@ -34,6 +35,7 @@ import com.twelvemonkeys.servlet.image.IIOProviderContextListener;
 
 @EnableAsync
 @EnableCaching
+@EnableScheduling
 @SpringBootConfiguration
 @EnableAutoConfiguration
 @Import(SpacemediaCommonConfiguration.class)
@@ -0,0 +1,89 @@
+package org.wikimedia.commons.donvip.spacemedia.controller;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.wikimedia.commons.donvip.spacemedia.controller.PagingSortingDefaults.MAX_SIZE;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.ScrollPosition.Direction;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaKeyset;
+
+/**
+ * Page of media fetched by keyset pagination. Cursors have the form {@code <publicationDate>,<repoId>:<mediaId>},
+ * with an empty publication date for undated media, and are passed back as {@code after} (next page) or
+ * {@code before} (previous page) request parameter.
+ *
+ * @param <T>      the media type
+ * @param content  media of the page, newest first
+ * @param size     requested page size
+ * @param previous cursor of the previous page, or {@code null} for the first page
+ * @param next     cursor of the next page, or {@code null} for the last page
+ */
+public record CursorPage<T extends Media>(List<T> content, int size, String previous, String next)
+        implements Iterable<T> {
+
+    public static <T extends Media> CursorPage<T> of(BiFunction<KeysetScrollPosition, Integer, Window<T>> lister,
+            String after, String before, int size) {
+        KeysetScrollPosition position = position(after, before);
+        int n = Math.max(1, Math.min(size, MAX_SIZE));
+        return of(lister.apply(position, n), position, n);
+    }
+
+    static <T extends Media> CursorPage<T> of(Window<T> window, KeysetScrollPosition position, int size) {
+        List<T> content = window.getContent();
+        if (content.isEmpty()) {
+            return new CursorPage<>(content, size, null, null);
+        }
+        boolean backward = position.scrollsBackward() && !position.isInitial();
+        boolean hasPrevious = backward ? window.hasNext() : !position.isInitial();
+        boolean hasNext = backward || window.hasNext();
+        return new CursorPage<>(content, size, hasPrevious ? cursor(window.positionAt(0)) : null,
+                hasNext ? cursor(window.positionAt(content.size() - 1)) : null);
+    }
+
+    static KeysetScrollPosition position(String after, String before) {
+        if (!isBlank(before)) {
+            return parse(before, Direction.BACKWARD);
+        } else if (!isBlank(after)) {
+            return parse(after, Direction.FORWARD);
+        }
+        return ScrollPosition.keyset();
+    }
+
+    static String cursor(ScrollPosition position) {
+        Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+        Object date = keys.get(MediaKeyset.PUBLICATION_DATE);
+        return (date != null ? date.toString() : "") + ',' + keys.get(MediaKeyset.REPO_ID) + ':'
+                + keys.get(MediaKeyset.MEDIA_ID);
+    }
+
+    private static KeysetScrollPosition parse(String cursor, Direction direction) {
+        int comma = cursor.indexOf(',');
+        int colon = cursor.indexOf(':', comma + 1);
+        if (comma < 0 || colon < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+        try {
+            return MediaKeyset.position(comma > 0 ? LocalDate.parse(cursor.substring(0, comma)) : null,
+                    cursor.substring(comma + 1, colon), cursor.substring(colon + 1), direction);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor, e);
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return content.iterator();
+    }
+}
@@ -0,0 +1,31 @@
+package org.wikimedia.commons.donvip.spacemedia.controller;
+
+import static org.wikimedia.commons.donvip.spacemedia.controller.PagingSortingDefaults.SIZE;
+
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing;
+import org.wikimedia.commons.donvip.spacemedia.service.orgs.Org;
+
+/**
+ * Keyset pagination request parameters, see {@link CursorPage}.
+ *
+ * @param after  cursor of the last media of the previous page, to fetch the next page
+ * @param before cursor of the first media of the next page, to fetch the previous page
+ * @param size   page size, {@link PagingSortingDefaults#SIZE} if not set
+ */
+public record CursorRequest(String after, String before, Integer size) {
+
+    /**
+     * Fetches the requested page of a media listing.
+     *
+     * @param <T>     the media type
+     * @param org     org listing the media
+     * @param listing media listing
+     * @param repo    repository identifier, or {@code null} for all repositories
+     * @return the requested page of media
+     */
+    public <T extends Media> CursorPage<T> page(Org<T> org, MediaListing listing, String repo) {
+        return CursorPage.of((position, n) -> org.listMedia(listing, repo, position, n), after, before,
+                size != null ? size : SIZE);
+    }
+}
@@ -1,14 +1,20 @@
 package org.wikimedia.commons.donvip.spacemedia.controller;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeDataRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.hashes.HashAssociation;
 import org.wikimedia.commons.donvip.spacemedia.data.hashes.HashAssociationRepository;
+import org.wikimedia.commons.donvip.spacemedia.service.PerceptualHashIndexService;
 
 @RestController
 public class HashController {
@@ -21,6 +27,10 @@ public class HashController {
     @Autowired
     private HashAssociationRepository hashRepo;
 
+    @Lazy
+    @Autowired
+    private PerceptualHashIndexService hashIndex;
+
     @GetMapping("/hashLastTimestamp")
     public String hashLastTimestamp() {
         return runtimeRepo.findById("commons").orElseThrow().getLastTimestamp();
@@ -28,6 +38,19 @@ public class HashController {
 
     @PutMapping("/hashAssociation")
     public HashAssociation putHashAssociation(@RequestBody HashAssociation association) {
-        return hashRepo.save(association);
+        HashAssociation result = hashRepo.save(association);
+        hashIndex.index(result);
+        return result;
+    }
+
+    @GetMapping("/hashAssociation/nearDuplicates")
+    public List<String> nearDuplicates(@RequestParam String phash, @RequestParam String mime,
+            @RequestParam(required = false) Double threshold) {
+        if (!hashIndex.isReady()) {
+            // Disabled or still loading: an empty list would wrongly mean there is no near-duplicate
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Perceptual hash index is not ready");
+        }
+        return threshold != null ? hashIndex.findSha1ByNearPhashAndMime(phash, mime, threshold)
+                : hashIndex.findSha1ByNearPhashAndMime(phash, mime);
     }
 }
@@ -3,6 +3,12 @@ package org.wikimedia.commons.donvip.spacemedia.controller;
 import static org.springframework.data.domain.Sort.Direction.DESC;
 import static org.wikimedia.commons.donvip.spacemedia.controller.PagingSortingDefaults.SIZE;
 import static org.wikimedia.commons.donvip.spacemedia.controller.PagingSortingDefaults.SORT;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.ALL;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.IGNORED;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.MISSING;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.MISSING_IMAGES;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.MISSING_VIDEOS;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.UPLOADED;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -27,6 +33,7 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -67,36 +74,66 @@ public abstract class OrgRestController<T extends Media> {
         return service.getStatistics(true);
     }
 
-    @GetMapping("/all")
+    @GetMapping(path = "/all", params = { "!after", "!before" })
     public final Page<T> listAll(@PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
         return service.listAllMedia(page);
     }
 
-    @GetMapping("/missing")
+    @GetMapping("/all")
+    public final CursorPage<T> listAllByCursor(@ModelAttribute CursorRequest cursor) {
+        return cursor.page(service, ALL, null);
+    }
+
+    @GetMapping(path = "/missing", params = { "!after", "!before" })
     public final Page<T> listMissing(@PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
         return service.listMissingMedia(page);
     }
 
-    @GetMapping("/missing/images")
+    @GetMapping("/missing")
+    public final CursorPage<T> listMissingByCursor(@ModelAttribute CursorRequest cursor) {
+        return cursor.page(service, MISSING, null);
+    }
+
+    @GetMapping(path = "/missing/images", params = { "!after", "!before" })
     public final Page<T> listMissingImages(@PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
         return service.listMissingImages(page);
     }
 
-    @GetMapping("/missing/videos")
+    @GetMapping("/missing/images")
+    public final CursorPage<T> listMissingImagesByCursor(@ModelAttribute CursorRequest cursor) {
+        return cursor.page(service, MISSING_IMAGES, null);
+    }
+
+    @GetMapping(path = "/missing/videos", params = { "!after", "!before" })
     public final Page<T> listMissingVideos(@PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
         return service.listMissingVideos(page);
     }
 
-    @GetMapping("/uploaded")
+    @GetMapping("/missing/videos")
+    public final CursorPage<T> listMissingVideosByCursor(@ModelAttribute CursorRequest cursor) {
+        return cursor.page(service, MISSING_VIDEOS, null);
+    }
+
+    @GetMapping(path = "/uploaded", params = { "!after", "!before" })
     public final Page<T> listUploaded(@PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
         return service.listUploadedMedia(page);
     }
 
-    @GetMapping("/ignored")
+    @GetMapping("/uploaded")
+    public final CursorPage<T> listUploadedByCursor(@ModelAttribute CursorRequest cursor) {
+        return cursor.page(service, UPLOADED, null);
+    }
+
+    @GetMapping(path = "/ignored", params = { "!after", "!before" })
     public final Page<T> listIgnored(@PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
         return service.listIgnoredMedia(page);
     }
 
+    @GetMapping("/ignored")
+    public final CursorPage<T> listIgnoredByCursor(@ModelAttribute CursorRequest cursor) {
+        return cursor.page(service, IGNORED, null);
+    }
+
     @GetMapping("/duplicates")
     public final List<T> listDuplicate() {
         return service.listDuplicateMedia();
@@ -418,6 +455,11 @@ public abstract class OrgRestController<T extends Media> {
         service.evictCaches();
     }
 
+    @GetMapping("/reindex")
+    public final void reindex() {
+        service.reindexMedia();
+    }
+
     @GetMapping("/checkcategories")
     public final void checkCommonsCategories() {
         service.checkCommonsCategories();
@@ -1,8 +1,14 @@
 package org.wikimedia.commons.donvip.spacemedia.controller;
 
-import static org.springframework.data.domain.Sort.Direction.DESC;
 import static org.wikimedia.commons.donvip.spacemedia.controller.PagingSortingDefaults.SIZE;
-import static org.wikimedia.commons.donvip.spacemedia.controller.PagingSortingDefaults.SORT;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.ALL;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.HASHED;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.IGNORED;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.MISSING;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.MISSING_DOCUMENTS;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.MISSING_IMAGES;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.MISSING_VIDEOS;
+import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing.UPLOADED;
 
 import java.util.List;
 import java.util.Objects;
@@ -18,6 +24,7 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.Search;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing;
 import org.wikimedia.commons.donvip.spacemedia.service.SearchService;
 import org.wikimedia.commons.donvip.spacemedia.service.orgs.AbstractOrgService;
 import org.wikimedia.commons.donvip.spacemedia.service.orgs.Org;
@@ -50,50 +57,50 @@ public class OrgWebController<T extends Media> {
 
     @GetMapping("/all")
     public String all(Model model, @RequestParam(name = "repo", required = false) String repo,
-            @PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
-        return media(model, "all", repo, service.listAllMedia(repo, page));
+            @ModelAttribute CursorRequest cursor) {
+        return media(model, ALL, repo, cursor);
     }
 
     @GetMapping("/missing")
     public String missing(Model model, @RequestParam(name = "repo", required = false) String repo,
-            @PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
-        return media(model, "missing", repo, service.listMissingMedia(repo, page));
+            @ModelAttribute CursorRequest cursor) {
+        return media(model, MISSING, repo, cursor);
     }
 
     @GetMapping("/missing/images")
     public String missingImages(Model model, @RequestParam(name = "repo", required = false) String repo,
-            @PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
-        return media(model, "missing/images", repo, service.listMissingImages(repo, page));
+            @ModelAttribute CursorRequest cursor) {
+        return media(model, MISSING_IMAGES, repo, cursor);
     }
 
     @GetMapping("/missing/videos")
     public String missingVideos(Model model, @RequestParam(name = "repo", required = false) String repo,
-            @PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
-        return media(model, "missing/videos", repo, service.listMissingVideos(repo, page));
+            @ModelAttribute CursorRequest cursor) {
+        return media(model, MISSING_VIDEOS, repo, cursor);
     }
 
     @GetMapping("/missing/documents")
     public String missingDocuments(Model model, @RequestParam(name = "repo", required = false) String repo,
-            @PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
-        return media(model, "missing/documents", repo, service.listMissingDocuments(repo, page));
+            @ModelAttribute CursorRequest cursor) {
+        return media(model, MISSING_DOCUMENTS, repo, cursor);
     }
 
     @GetMapping("/hashes")
     public String hashes(Model model, @RequestParam(name = "repo", required = false) String repo,
-            @PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
-        return media(model, "hashes", repo, service.listHashedMedia(repo, page));
+            @ModelAttribute CursorRequest cursor) {
+        return media(model, HASHED, repo, cursor);
     }
 
     @GetMapping("/uploaded")
     public String uploaded(Model model, @RequestParam(name = "repo", required = false) String repo,
-            @PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
-        return media(model, "uploaded", repo, service.listUploadedMedia(repo, page));
+            @ModelAttribute CursorRequest cursor) {
+        return media(model, UPLOADED, repo, cursor);
     }
 
     @GetMapping("/ignored")
     public String ignored(Model model, @RequestParam(name = "repo", required = false) String repo,
-            @PageableDefault(size = SIZE, sort = SORT, direction = DESC) Pageable page) {
-        return media(model, "ignored", repo, service.listIgnoredMedia(repo, page));
+            @ModelAttribute CursorRequest cursor) {
+        return media(model, IGNORED, repo, cursor);
     }
 
     @GetMapping("/stats")
@@ -123,14 +130,14 @@ public class OrgWebController<T extends Media> {
         return template;
     }
 
-    private String media(Model model, String tab, String repo, Page<T> medias) {
-        return media(model, tab, repo, medias, newSearch());
-    }
-
     private String media(Model model, String tab, String repo, Page<T> medias, Search search) {
         return pageIndex(model, tab, repo, medias, "medias", search);
     }
 
+    private String media(Model model, MediaListing listing, String repo, CursorRequest cursor) {
+        return index(model, listing.getPath(), repo, cursor.page(service, listing, repo), "medias", newSearch());
+    }
+
     private String index(Model model, String tab, String repo, Iterable<?> items, String itemsName, Search search) {
         model.addAttribute(itemsName, items);
         model.addAttribute("tab", tab);
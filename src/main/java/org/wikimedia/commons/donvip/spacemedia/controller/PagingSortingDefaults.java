@@ -4,6 +4,9 @@ public final class PagingSortingDefaults {
 
     public static final int SIZE = 50;
 
+    /** Same limit as Spring Data pageable resolver */
+    public static final int MAX_SIZE = 2000;
+
     public static final String SORT = "publicationDate";
 
     private PagingSortingDefaults() {
@@ -1,10 +1,16 @@
 package org.wikimedia.commons.donvip.spacemedia.data.commons;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 public interface CommonsCategoryRepository extends CrudRepository<CommonsCategory, Integer> {
 
     Optional<CommonsCategory> findByTitle(String title);
+
+    @Query("select c.title from CommonsCategory c where c.title in ?1")
+    Set<String> findTitleByTitleIn(Collection<String> titles);
 }
@@ -6,7 +6,9 @@ import java.util.Map;
 import javax.sql.DataSource;
 
 import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
@@ -15,6 +17,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.env.Environment;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -43,11 +46,14 @@ public class DomainDbConfiguration {
     @Primary
     @Bean(name = "domainEntityManagerFactory")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(EntityManagerFactoryBuilder builder,
-            Environment env, @Qualifier("domainDataSource") DataSource dataSource) {
+            Environment env, @Qualifier("domainDataSource") DataSource dataSource,
+            ConfigurableListableBeanFactory beanFactory) {
         Map<String, Object> hibernateProperties = new HashMap<>();
         hibernateProperties.put("hibernate.physical_naming_strategy", new CamelCaseToUnderscoresNamingStrategy());
         hibernateProperties.put("hibernate.implicit_naming_strategy", new SpringImplicitNamingStrategy());
         hibernateProperties.put("hibernate.hbm2ddl.auto", env.getProperty("spring.jpa.hibernate.ddl-auto"));
+        // Allows injection of Spring beans into entity listeners (search index sync)
+        hibernateProperties.put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory));
         return builder.dataSource(dataSource)
                 .packages(getClass().getPackage().getName())
                 .properties(hibernateProperties)
@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
 
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaCounts;
+
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 public class Statistics implements Comparable<Statistics> {
@@ -25,6 +27,11 @@ public class Statistics implements Comparable<Statistics> {
                 hashedMedia, lastUpdate, null);
     }
 
+    public Statistics(String org, String id, MediaCounts counts, LocalDateTime lastUpdate) {
+        this(org, id, counts.totalMedia(), counts.uploadedMedia(), counts.ignoredMedia(), counts.missingImages(),
+                counts.missingVideos(), counts.missingDocuments(), counts.hashedMedia(), lastUpdate);
+    }
+
     public Statistics(String org, String id, long totalMedia, long uploadedMedia, long ignoredMedia,
             long missingImages, long missingVideos, long missingDocuments, long hashedMedia, LocalDateTime lastUpdate,
             List<Statistics> details) {
@@ -0,0 +1,82 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Cached result of a Commons category existence probe, shared by all update jobs.
+ */
+@Entity
+@Table(indexes = { @Index(columnList = "checked") })
+public class CommonsCategoryExistence {
+
+    @Id
+    @Column(nullable = false, length = 255)
+    private String title;
+
+    @Column(nullable = false)
+    private boolean pageExists;
+
+    @Column(nullable = false)
+    private LocalDateTime checked;
+
+    public CommonsCategoryExistence() {
+        // No-arg constructor required by JPA
+    }
+
+    public CommonsCategoryExistence(String title, boolean pageExists, LocalDateTime checked) {
+        this.title = title;
+        this.pageExists = pageExists;
+        this.checked = checked;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public boolean isPageExists() {
+        return pageExists;
+    }
+
+    public void setPageExists(boolean pageExists) {
+        this.pageExists = pageExists;
+    }
+
+    public LocalDateTime getChecked() {
+        return checked;
+    }
+
+    public void setChecked(LocalDateTime checked) {
+        this.checked = checked;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(title);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        return Objects.equals(title, ((CommonsCategoryExistence) obj).title);
+    }
+
+    @Override
+    public String toString() {
+        return "CommonsCategoryExistence [title=" + title + ", pageExists=" + pageExists + ", checked=" + checked
+                + "]";
+    }
+}
@@ -0,0 +1,20 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CommonsCategoryExistenceRepository extends CrudRepository<CommonsCategoryExistence, String> {
+
+    List<CommonsCategoryExistence> findByOrderByCheckedDesc(Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("delete from #{#entityName} c where c.checked < ?1")
+    int deleteByCheckedBefore(LocalDateTime date);
+}
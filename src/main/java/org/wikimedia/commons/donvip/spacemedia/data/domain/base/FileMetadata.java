@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.GlitchTip;
 import org.wikimedia.commons.donvip.spacemedia.utils.HashHelper;
+import org.wikimedia.commons.donvip.spacemedia.utils.PerceptualHash;
 import org.wikimedia.commons.donvip.spacemedia.utils.Utils;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -71,6 +72,12 @@ public class FileMetadata implements FileMetadataProjection, MediaDescription {
     @Column(nullable = true, columnDefinition = "VARCHAR(52)", length = 52)
     private String phash;
 
+    /**
+     * Perceptual hash decoded once, for allocation-free comparisons.
+     */
+    @Transient
+    private PerceptualHash packedPhash;
+
     /**
      * Determines if the file is readable:
      * <ul>
@@ -202,6 +209,7 @@ public class FileMetadata implements FileMetadataProjection, MediaDescription {
 
     public void setPhash(String phash) {
         this.phash = phash;
+        this.packedPhash = null;
     }
 
     @Transient
@@ -220,6 +228,15 @@ public class FileMetadata implements FileMetadataProjection, MediaDescription {
         setPhash(HashHelper.encode(phash));
     }
 
+    @Transient
+    @JsonIgnore
+    public PerceptualHash getPackedPhash() {
+        if (packedPhash == null && phash != null) {
+            packedPhash = PerceptualHash.decode(phash);
+        }
+        return packedPhash;
+    }
+
     @Transient
     public boolean shouldUpload() {
         return Boolean.TRUE != ignored && isNotBlank(sha1) && isEmpty(getCommonsFileNames());
@@ -49,6 +49,8 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
@@ -67,7 +69,10 @@ import jakarta.persistence.Transient;
         @Index(name = "media_id", columnList = "media_id"),
         @Index(name = "publication_date", columnList = "publication_date"),
         @Index(name = "publication_month", columnList = "publication_month"),
-        @Index(name = "publication_year", columnList = "publication_year") })
+        @Index(name = "publication_year", columnList = "publication_year"),
+        @Index(name = "upload_state_publication_date", columnList = "upload_state, publication_date"),
+        @Index(name = "repo_id_upload_state", columnList = "repo_id, upload_state"),
+        @Index(name = "last_update", columnList = "last_update, repo_id, media_id") })
 @EntityListeners(MediaListener.class)
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = As.PROPERTY, property = "class")
 public class Media implements MediaProjection, MediaDescription {
@@ -127,6 +132,21 @@ public class Media implements MediaProjection, MediaDescription {
     @JsonProperty("last_update")
     protected LocalDateTime lastUpdate;
 
+    /**
+     * Upload state derived from files, recomputed when the media is saved
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = true, length = 16)
+    @JsonProperty("upload_state")
+    private MediaUploadState uploadState;
+
+    /**
+     * Statistics counters of this media as stored in database, captured when it was loaded or last saved
+     */
+    @Transient
+    @JsonIgnore
+    private MediaCounts savedCounts;
+
     @Override
     public Set<FileMetadata> getMetadata() {
         return metadata;
@@ -498,6 +518,31 @@ public class Media implements MediaProjection, MediaDescription {
         this.lastUpdate = lastUpdate;
     }
 
+    public MediaUploadState getUploadState() {
+        return uploadState;
+    }
+
+    public void setUploadState(MediaUploadState uploadState) {
+        this.uploadState = uploadState;
+    }
+
+    /**
+     * Recomputes the upload state from files, which may have been uploaded or ignored since the last save.
+     */
+    public void updateUploadState() {
+        uploadState = MediaUploadState.of(getMetadata());
+    }
+
+    @Transient
+    @JsonIgnore
+    public MediaCounts getSavedCounts() {
+        return savedCounts;
+    }
+
+    public void setSavedCounts(MediaCounts savedCounts) {
+        this.savedCounts = savedCounts;
+    }
+
     /**
      * Determines if this media is an audio.
      *
@@ -692,7 +737,7 @@ public class Media implements MediaProjection, MediaDescription {
         return Optional.empty();
     }
 
-    private static String normalize(String s) {
+    public static String normalize(String s) {
         return ofNullable(s).orElse("").toLowerCase(ENGLISH).replace(" ", "").replace("-", "");
     }
 }
@@ -0,0 +1,49 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+
+/**
+ * Contribution of media to the statistics counters of their repository. Same definitions as the count queries of
+ * {@link MediaRepository}: a media counts once in each counter matched by at least one of its files, and in the
+ * missing counter of its {@link MediaUploadState}.
+ */
+public record MediaCounts(long totalMedia, long uploadedMedia, long ignoredMedia, long missingImages,
+        long missingVideos, long missingDocuments, long hashedMedia) {
+
+    public static final MediaCounts ZERO = new MediaCounts(0, 0, 0, 0, 0, 0, 0);
+
+    public static MediaCounts of(Media media) {
+        boolean uploaded = false;
+        boolean ignored = false;
+        boolean hashed = false;
+        for (FileMetadata fm : media.getMetadata()) {
+            uploaded |= !isEmpty(fm.getCommonsFileNames());
+            ignored |= Boolean.TRUE == fm.isIgnored();
+            hashed |= fm.getPhash() != null;
+        }
+        MediaUploadState state = MediaUploadState.of(media.getMetadata());
+        return new MediaCounts(1, one(uploaded), one(ignored), one(state == MediaUploadState.MISSING_IMAGE),
+                one(state == MediaUploadState.MISSING_VIDEO), one(state == MediaUploadState.MISSING_DOCUMENT),
+                one(hashed));
+    }
+
+    private static long one(boolean b) {
+        return b ? 1 : 0;
+    }
+
+    public MediaCounts plus(MediaCounts o) {
+        return new MediaCounts(totalMedia + o.totalMedia, uploadedMedia + o.uploadedMedia,
+                ignoredMedia + o.ignoredMedia, missingImages + o.missingImages, missingVideos + o.missingVideos,
+                missingDocuments + o.missingDocuments, hashedMedia + o.hashedMedia);
+    }
+
+    public MediaCounts minus(MediaCounts o) {
+        return new MediaCounts(totalMedia - o.totalMedia, uploadedMedia - o.uploadedMedia,
+                ignoredMedia - o.ignoredMedia, missingImages - o.missingImages, missingVideos - o.missingVideos,
+                missingDocuments - o.missingDocuments, hashedMedia - o.hashedMedia);
+    }
+
+    public boolean isZero() {
+        return ZERO.equals(this);
+    }
+}
@@ -0,0 +1,51 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Adds the indexes declared on {@link Media} to the table of every media entity. Hibernate ignores the
+ * {@link Table} annotation of mapped superclasses, so these indexes would otherwise never be created by schema
+ * update. Registered through {@code META-INF/services}, so that it runs before schema management.
+ */
+public class MediaIndexIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+            SessionFactoryImplementor sessionFactory) {
+        Index[] indexes = Media.class.getAnnotation(Table.class).indexes();
+        for (PersistentClass entity : metadata.getEntityBindings()) {
+            // Single table inheritance: only the root entity owns a table
+            if (entity.getSuperclass() == null && Media.class.isAssignableFrom(entity.getMappedClass())) {
+                org.hibernate.mapping.Table table = entity.getTable();
+                for (Index index : indexes) {
+                    if (table.getIndex(index.name()) == null) {
+                        org.hibernate.mapping.Index tableIndex = table.getOrCreateIndex(index.name());
+                        for (String name : index.columnList().split(",")) {
+                            Column column = table.getColumn(Identifier.toIdentifier(name.trim()));
+                            if (column == null) {
+                                throw new IllegalStateException(
+                                        "Column " + name + " not found in table " + table.getName());
+                            }
+                            tableIndex.addColumn(column);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        // Nothing to release
+    }
+}
@@ -0,0 +1,101 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+/**
+ * Keyset (cursor) pagination of media, from newest to oldest, on (publication date, media id, repo id). Unlike
+ * offset pagination, the cost of a page does not depend on its depth and no count query is needed.
+ */
+public final class MediaKeyset {
+
+    public static final String PUBLICATION_DATE = "publicationDate";
+    public static final String REPO_ID = "repoId";
+    public static final String MEDIA_ID = "mediaId";
+
+    /**
+     * Keyset query method of {@link MediaRepository}, such as {@link MediaRepository#findAllOlderThan}.
+     *
+     * @param <T> the media type
+     */
+    @FunctionalInterface
+    public interface Finder<T> {
+        List<T> find(Set<String> set, LocalDate date, String repoId, String mediaId, Pageable page);
+    }
+
+    /**
+     * Keyset query of a {@link MediaListing}.
+     *
+     * @param <T>   the media type
+     * @param older returns media following a position, newest first
+     * @param newer returns media preceding a position, oldest first
+     */
+    public record Query<T>(Finder<T> older, Finder<T> newer) {
+    }
+
+    private MediaKeyset() {
+        // Hide default constructor
+    }
+
+    /**
+     * Returns the keyset position of the given media.
+     *
+     * @param media     media
+     * @param direction scroll direction
+     * @return the keyset position of the given media
+     */
+    public static KeysetScrollPosition position(Media media, ScrollPosition.Direction direction) {
+        // Persisted column, as the getter falls back to publication date time
+        return position(media.publicationDate, media.getId().getRepoId(), media.getId().getMediaId(), direction);
+    }
+
+    public static KeysetScrollPosition position(LocalDate date, String repoId, String mediaId,
+            ScrollPosition.Direction direction) {
+        // Publication date can be null, which rules out Map.of
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(PUBLICATION_DATE, date);
+        keys.put(REPO_ID, repoId);
+        keys.put(MEDIA_ID, mediaId);
+        return ScrollPosition.of(keys, direction);
+    }
+
+    /**
+     * Scrolls a window of media from the given position.
+     *
+     * @param <T>      the media type
+     * @param query    keyset query of the listing
+     * @param set      repo ids or any other set the query filters on
+     * @param position scroll position. If it scrolls backward, the window holds the media preceding the position
+     * @param size     window size
+     * @return a window of media, always sorted newest first. {@link Window#hasNext()} tells whether more media
+     *         follow in the scroll direction
+     */
+    public static <T extends Media> Window<T> scroll(Query<T> query, Set<String> set, KeysetScrollPosition position,
+            int size) {
+        Map<String, Object> keys = position.getKeys();
+        boolean backward = position.scrollsBackward() && !position.isInitial();
+        Finder<T> finder = backward ? query.newer() : query.older();
+        List<T> result = new ArrayList<>(finder.find(set, (LocalDate) keys.get(PUBLICATION_DATE),
+                (String) keys.get(REPO_ID), (String) keys.get(MEDIA_ID), PageRequest.of(0, size + 1)));
+        // One more media is fetched to know if there is a next window
+        boolean hasNext = result.size() > size;
+        if (hasNext) {
+            result.remove(size);
+        }
+        if (backward) {
+            Collections.reverse(result);
+        }
+        return Window.from(result, i -> position(result.get(i), position.getDirection()), hasNext);
+    }
+}
@@ -2,14 +2,59 @@ package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
 
 import java.time.LocalDateTime;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.wikimedia.commons.donvip.spacemedia.service.SearchService;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 
 public class MediaListener {
 
+    // Injected by Hibernate Spring bean container, when search is available
+    @Autowired
+    private ObjectProvider<SearchService> searchService;
+
     @PrePersist
     @PreUpdate
     public void methodExecuteBeforeSave(Media media) {
         media.setLastUpdate(LocalDateTime.now());
+        media.updateUploadState();
+    }
+
+    @PostLoad
+    public void methodExecuteAfterLoad(Media media) {
+        media.setSavedCounts(MediaCounts.of(media));
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void methodExecuteAfterSave(Media media) {
+        SearchService search = getSearchService();
+        if (search != null) {
+            search.indexAfterCommit(media);
+        }
+    }
+
+    @PostRemove
+    public void methodExecuteAfterRemove(Media media) {
+        SearchService search = getSearchService();
+        if (search != null) {
+            search.deleteAfterCommit(media);
+        }
+    }
+
+    private SearchService getSearchService() {
+        if (searchService != null) {
+            SearchService search = searchService.getIfAvailable();
+            if (search != null && search.isSearchEnabled()) {
+                return search;
+            }
+        }
+        return null;
     }
 }
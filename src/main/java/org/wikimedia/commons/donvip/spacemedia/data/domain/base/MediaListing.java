@@ -0,0 +1,30 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+/**
+ * Media listings paged by keyset, see {@link MediaKeyset}.
+ */
+public enum MediaListing {
+    ALL("all"),
+    MISSING("missing"),
+    MISSING_IMAGES("missing/images"),
+    MISSING_VIDEOS("missing/videos"),
+    MISSING_DOCUMENTS("missing/documents"),
+    HASHED("hashes"),
+    UPLOADED("uploaded"),
+    IGNORED("ignored");
+
+    private final String path;
+
+    private MediaListing(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the path of the listing, relative to the org web and REST controllers.
+     *
+     * @return the path of the listing
+     */
+    public String getPath() {
+        return path;
+    }
+}
@@ -2,8 +2,10 @@ package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
 
 import java.net.URL;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.Year;
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -11,8 +13,10 @@ import java.util.Set;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Superclass of Media CRUD repositories, handling pagination and sorting.
@@ -22,6 +26,72 @@ import org.springframework.data.repository.NoRepositoryBean;
 @NoRepositoryBean
 public interface MediaRepository<T extends Media> extends JpaRepository<T, CompositeMediaId> {
 
+    String UPLOAD_STATE = "org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaUploadState.";
+
+    /** JPQL condition of media with at least one file neither ignored nor uploaded */
+    String MISSING = "m.uploadState in (" + UPLOAD_STATE + "MISSING_IMAGE, " + UPLOAD_STATE + "MISSING_VIDEO, "
+            + UPLOAD_STATE + "MISSING_DOCUMENT, " + UPLOAD_STATE + "MISSING_OTHER)";
+    /** JPQL condition of media with at least one image neither ignored nor uploaded */
+    String MISSING_IMAGES = "m.uploadState = " + UPLOAD_STATE + "MISSING_IMAGE";
+    /** JPQL condition of media with at least one video, and no image, neither ignored nor uploaded */
+    String MISSING_VIDEOS = "m.uploadState = " + UPLOAD_STATE + "MISSING_VIDEO";
+    /** JPQL condition of media with at least one document, and no image or video, neither ignored nor uploaded */
+    String MISSING_DOCUMENTS = "m.uploadState = " + UPLOAD_STATE + "MISSING_DOCUMENT";
+
+    /** JPQL subquery of files of media m neither ignored nor uploaded */
+    String MISSING_FILES = "select md from FileMetadata md where md member of m.metadata"
+            + " and (md.ignored is null or md.ignored = false) and md.commonsFileNames is empty";
+    /** JPQL expression of the upload state of media m, computed from its files as {@link MediaUploadState} does */
+    String UPLOAD_STATE_OF_FILES = "case"
+            + " when not exists (select md from FileMetadata md where md member of m.metadata) then "
+            + UPLOAD_STATE + "NEW"
+            + " when exists (" + MISSING_FILES + " and md.extension in (" + MediaUploadState.IMAGE_EXTENSIONS_JPQL + ")) then "
+            + UPLOAD_STATE + "MISSING_IMAGE"
+            + " when exists (" + MISSING_FILES + " and md.extension in (" + MediaUploadState.VIDEO_EXTENSIONS_JPQL + ")) then "
+            + UPLOAD_STATE + "MISSING_VIDEO"
+            + " when exists (" + MISSING_FILES + " and md.extension in (" + MediaUploadState.DOCUMENT_EXTENSIONS_JPQL + ")) then "
+            + UPLOAD_STATE + "MISSING_DOCUMENT"
+            + " when exists (" + MISSING_FILES + ") then " + UPLOAD_STATE + "MISSING_OTHER"
+            + " when exists (select md from FileMetadata md where md member of m.metadata and md.commonsFileNames is not empty) then "
+            + UPLOAD_STATE + "UPLOADED"
+            + " else " + UPLOAD_STATE + "IGNORED end";
+
+    /**
+     * JPQL condition of media following the keyset ?2 (publication date), ?3 (repo id), ?4 (media id) in
+     * {@link #KEYSET_DESC} order. Matches all media when the keyset is null (first page).
+     */
+    String OLDER_THAN = "(?3 is null or (?2 is not null and (m.publicationDate < ?2 or m.publicationDate is null)) or ((m.publicationDate = ?2 or (?2 is null and m.publicationDate is null)) and (m.id.mediaId < ?4 or (m.id.mediaId = ?4 and m.id.repoId < ?3))))";
+    /** JPQL condition of media preceding the keyset ?2 (publication date), ?3 (repo id), ?4 (media id) in {@link #KEYSET_DESC} order */
+    String NEWER_THAN = "(m.publicationDate > ?2 or (?2 is null and m.publicationDate is not null) or ((m.publicationDate = ?2 or (?2 is null and m.publicationDate is null)) and (m.id.mediaId > ?4 or (m.id.mediaId = ?4 and m.id.repoId > ?3))))";
+    /**
+     * JPQL ordering of keyset pagination, from newest to oldest media. Undated media come last, as MariaDB sorts
+     * nulls first in ascending order: an explicit null ordering is not needed, and would be emulated by dialects
+     * lacking it. Ties are broken by media id then repo id, the primary key order, so that the
+     * {@code publication_date} and {@code upload_state_publication_date} indexes, which end with the primary key,
+     * serve the whole ordering.
+     */
+    String KEYSET_DESC = " order by m.publicationDate desc, m.id.mediaId desc, m.id.repoId desc";
+    /** Reverse of {@link #KEYSET_DESC}, to fetch the previous page */
+    String KEYSET_ASC = " order by m.publicationDate asc, m.id.mediaId asc, m.id.repoId asc";
+
+    /** JPQL selection of media, followed by conditions */
+    String SELECT = "select m from #{#entityName} m where ";
+    /** JPQL selection of media joined to their files md, followed by conditions */
+    String SELECT_BY_FILES = "select distinct(m) from #{#entityName} m join m.metadata md where ";
+    /** JPQL condition of files uploaded to Wikimedia Commons */
+    String UPLOADED_FILES = "exists elements (md.commonsFileNames)";
+    /** JPQL condition of ignored files */
+    String IGNORED_FILES = "md.ignored = true";
+    /** JPQL condition of files having a perceptual hash */
+    String HASHED_FILES = "md.phash is not null";
+    /** JPQL condition of media of the repositories ?1 */
+    String IN_REPOS = "m.id.repoId in ?1";
+    String AND = " and ";
+    /** End of keyset queries returning media following the keyset, see {@link MediaKeyset.Query#older()} */
+    String OLDER = AND + OLDER_THAN + KEYSET_DESC;
+    /** End of keyset queries returning media preceding the keyset, see {@link MediaKeyset.Query#newer()} */
+    String NEWER = AND + NEWER_THAN + KEYSET_ASC;
+
     void evictCaches();
 
     // COUNT simple
@@ -54,7 +124,7 @@ public interface MediaRepository<T extends Media> extends JpaRepository<T, Compo
      *
      * @return number of files not yet uploaded to Wikimedia Commons
      */
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames)")
+    @Query("select count(*) from #{#entityName} m where " + MISSING)
     long countMissingInCommons();
 
     /**
@@ -73,16 +143,16 @@ public interface MediaRepository<T extends Media> extends JpaRepository<T, Compo
     @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where md.ignored = true and m.id.repoId in ?1")
     long countByMetadata_IgnoredTrue(Set<String> repos);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.id.repoId in ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING + " and m.id.repoId in ?1")
     long countMissingInCommons(Set<String> repos);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('bmp','jpg','jpeg','tif','tiff','png','webp','xcf','gif','svg','exr') and m.id.repoId in ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING_IMAGES + " and m.id.repoId in ?1")
     long countMissingImagesInCommons(Set<String> repos);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('mp4','webm','ogv','mpeg','wmv','avi','mov') and m.id.repoId in ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING_VIDEOS + " and m.id.repoId in ?1")
     long countMissingVideosInCommons(Set<String> repos);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('pdf','stl','epub','ppt','pptm','pptx') and m.id.repoId in ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING_DOCUMENTS + " and m.id.repoId in ?1")
     long countMissingDocumentsInCommons(Set<String> repos);
 
     @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where exists elements (md.commonsFileNames) and m.id.repoId in ?1")
@@ -98,7 +168,7 @@ public interface MediaRepository<T extends Media> extends JpaRepository<T, Compo
      *
      * @return files not yet uploaded to Wikimedia Commons
      */
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommons();
 
     /**
@@ -108,7 +178,7 @@ public interface MediaRepository<T extends Media> extends JpaRepository<T, Compo
      *
      * @return files not yet uploaded to Wikimedia Commons
      */
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingInCommons(Pageable page);
 
     /**
@@ -144,10 +214,10 @@ public interface MediaRepository<T extends Media> extends JpaRepository<T, Compo
 
     Optional<T> findByPublicationDate(LocalDate date);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and (m.creationDate = ?1 or m.publicationDate = ?1) and not exists elements (md.commonsFileNames)")
+    @Query("select m from #{#entityName} m where " + MISSING + " and (m.creationDate = ?1 or m.publicationDate = ?1)")
     List<T> findMissingByDate(LocalDate date);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and m.title = ?1 and not exists elements (md.commonsFileNames)")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.title = ?1")
     List<T> findMissingByTitle(String title);
 
     List<T> findByMetadata_IgnoredTrue();
@@ -162,12 +232,50 @@ public interface MediaRepository<T extends Media> extends JpaRepository<T, Compo
     @Query("select m from #{#entityName} m where m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findAll(Set<String> repos, Pageable page);
 
+    /**
+     * Finds media updated since the keyset ?2 (last update), ?3 (repo id), ?4 (media id), ordered as the
+     * {@code last_update} index. On the first page, the repo id is null and all media updated at or after ?2 match.
+     */
+    @Query(SELECT + IN_REPOS + " and (m.lastUpdate > ?2 or (m.lastUpdate = ?2 and (?3 is null or m.id.repoId > ?3 or (m.id.repoId = ?3 and m.id.mediaId > ?4))))"
+            + " order by m.lastUpdate, m.id.repoId, m.id.mediaId")
+    List<T> findUpdatedSince(Set<String> repos, LocalDateTime since, String repoId, String mediaId, Pageable page);
+
+    @Query("select m.id.mediaId from #{#entityName} m where m.id.repoId = ?1 and m.id.mediaId in ?2")
+    Set<String> findExistingMediaIds(String repoId, Collection<String> mediaIds);
+
     @Query("select m from #{#entityName} m where m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc limit 1")
     Optional<T> findFirst(Set<String> repos);
 
     @Query("select m from #{#entityName} m where m.id.repoId in ?1 and m.id.mediaId not in ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Set<T> findNotIn(Set<String> repos, Set<String> mediaIds);
 
+    @Query("select m.id.mediaId from #{#entityName} m where m.id.repoId in ?1")
+    List<String> findMediaIds(Set<String> repos);
+
+    /**
+     * Computes the upload state of media saved before it was persisted. Being a bulk update, it leaves their last
+     * update date untouched.
+     *
+     * @param repos repository identifiers
+     * @return number of media updated
+     */
+    @Modifying
+    @Transactional
+    @Query("update #{#entityName} m set m.uploadState = " + UPLOAD_STATE_OF_FILES + " where m.uploadState is null and m.id.repoId in ?1")
+    int updateMissingUploadStates(Set<String> repos);
+
+    /**
+     * Recomputes the upload state of media from their files. A file shared by several media can be uploaded or
+     * ignored through one of them, leaving the stored state of the others outdated.
+     *
+     * @param repos repository identifiers
+     * @return number of media matched
+     */
+    @Modifying
+    @Transactional
+    @Query("update #{#entityName} m set m.uploadState = " + UPLOAD_STATE_OF_FILES + " where m.id.repoId in ?1")
+    int updateUploadStates(Set<String> repos);
+
     @Query("select distinct(m) from #{#entityName} m join m.metadata md where md.ignored = true and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findByMetadata_IgnoredTrue(Set<String> repos);
 
@@ -177,34 +285,34 @@ public interface MediaRepository<T extends Media> extends JpaRepository<T, Compo
     @Query("select distinct(m) from #{#entityName} m join m.metadata md where size (md.commonsFileNames) >= 2 and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findDuplicateInCommons(Set<String> repos);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('bmp','jpg','jpeg','tif','tiff','png','webp','xcf','gif','svg','exr') and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING_IMAGES + " and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingImagesInCommons(Set<String> repos, Pageable page);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('mp4','webm','ogv','mpeg','wmv','avi','mov') and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING_VIDEOS + " and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingVideosInCommons(Set<String> repos, Pageable page);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('pdf','stl','epub','ppt','pptm','pptx') and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING_DOCUMENTS + " and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingDocumentsInCommons(Set<String> repos, Pageable page);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommons(Set<String> repos);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.id.repoId in ?1 and m.id.mediaId not in ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.id.repoId in ?1 and m.id.mediaId not in ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsNotIn(Set<String> repos, Set<String> mediaIds);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingInCommons(Set<String> repos, Pageable page);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.id.repoId in ?1 and m.publicationDate = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.id.repoId in ?1 and m.publicationDate = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByPublicationDate(Set<String> repos, LocalDate date);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.id.repoId in ?1 and m.publicationMonth = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.id.repoId in ?1 and m.publicationMonth = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByPublicationMonth(Set<String> repos, YearMonth month);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.id.repoId in ?1 and m.publicationYear = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.id.repoId in ?1 and m.publicationYear = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByPublicationYear(Set<String> repos, Year year);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.id.repoId in ?1 and m.title = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.id.repoId in ?1 and m.title = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByTitle(Set<String> repos, String title);
 
     @Query("select distinct(m) from #{#entityName} m join m.metadata md where exists elements (md.commonsFileNames) and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
@@ -218,4 +326,54 @@ public interface MediaRepository<T extends Media> extends JpaRepository<T, Compo
 
     @Query("select distinct(m) from #{#entityName} m join m.metadata md where md.phash is not null and m.id.repoId in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findByMetadata_PhashNotNull(Set<String> repos, Pageable page);
+
+    // FIND keyset (cursor pagination, without count query)
+
+    @Query(SELECT + IN_REPOS + OLDER)
+    List<T> findAllOlderThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + IN_REPOS + NEWER)
+    List<T> findAllNewerThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING + AND + IN_REPOS + OLDER)
+    List<T> findMissingInCommonsOlderThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING + AND + IN_REPOS + NEWER)
+    List<T> findMissingInCommonsNewerThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_IMAGES + AND + IN_REPOS + OLDER)
+    List<T> findMissingImagesInCommonsOlderThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_IMAGES + AND + IN_REPOS + NEWER)
+    List<T> findMissingImagesInCommonsNewerThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_VIDEOS + AND + IN_REPOS + OLDER)
+    List<T> findMissingVideosInCommonsOlderThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_VIDEOS + AND + IN_REPOS + NEWER)
+    List<T> findMissingVideosInCommonsNewerThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_DOCUMENTS + AND + IN_REPOS + OLDER)
+    List<T> findMissingDocumentsInCommonsOlderThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_DOCUMENTS + AND + IN_REPOS + NEWER)
+    List<T> findMissingDocumentsInCommonsNewerThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + UPLOADED_FILES + AND + IN_REPOS + OLDER)
+    List<T> findUploadedToCommonsOlderThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + UPLOADED_FILES + AND + IN_REPOS + NEWER)
+    List<T> findUploadedToCommonsNewerThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + IGNORED_FILES + AND + IN_REPOS + OLDER)
+    List<T> findByMetadata_IgnoredTrueOlderThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + IGNORED_FILES + AND + IN_REPOS + NEWER)
+    List<T> findByMetadata_IgnoredTrueNewerThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + HASHED_FILES + AND + IN_REPOS + OLDER)
+    List<T> findByMetadata_PhashNotNullOlderThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + HASHED_FILES + AND + IN_REPOS + NEWER)
+    List<T> findByMetadata_PhashNotNullNewerThan(Set<String> repos, LocalDate date, String repoId, String mediaId, Pageable page);
 }
@@ -0,0 +1,76 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import static java.util.stream.Collectors.toUnmodifiableSet;
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Upload state of a media, derived from its files and persisted to find missing media without joining files and
+ * their Commons file names. Constants are declared by decreasing priority: the state of a media is the first one
+ * matched by its files.
+ */
+public enum MediaUploadState {
+    /** Media without any file */
+    NEW,
+    /** At least one image file is neither ignored nor uploaded */
+    MISSING_IMAGE,
+    /** No missing image, but at least one video file is neither ignored nor uploaded */
+    MISSING_VIDEO,
+    /** No missing image or video, but at least one document file is neither ignored nor uploaded */
+    MISSING_DOCUMENT,
+    /** At least one file of another type is neither ignored nor uploaded */
+    MISSING_OTHER,
+    /** All files are either ignored or uploaded, at least one of them is uploaded */
+    UPLOADED,
+    /** All files are ignored */
+    IGNORED;
+
+    // JPQL lists, so that queries computing the state in database can use them as compile-time constants
+    /** Image extensions, as a JPQL list */
+    public static final String IMAGE_EXTENSIONS_JPQL = "'bmp','jpg','jpeg','tif','tiff','png','webp','xcf','gif','svg',"
+            + "'exr'";
+    /** Video extensions, as a JPQL list */
+    public static final String VIDEO_EXTENSIONS_JPQL = "'mp4','webm','ogv','mpeg','wmv','avi','mov'";
+    /** Document extensions, as a JPQL list */
+    public static final String DOCUMENT_EXTENSIONS_JPQL = "'pdf','stl','epub','ppt','pptm','pptx'";
+
+    private static final Set<String> IMAGES = extensions(IMAGE_EXTENSIONS_JPQL);
+    private static final Set<String> VIDEOS = extensions(VIDEO_EXTENSIONS_JPQL);
+    private static final Set<String> DOCUMENTS = extensions(DOCUMENT_EXTENSIONS_JPQL);
+
+    public static MediaUploadState of(Collection<FileMetadata> files) {
+        if (isEmpty(files)) {
+            return NEW;
+        }
+        MediaUploadState result = IGNORED;
+        for (FileMetadata fm : files) {
+            MediaUploadState state = of(fm);
+            if (state.ordinal() < result.ordinal()) {
+                result = state;
+            }
+        }
+        return result;
+    }
+
+    static Set<String> extensions(String jpqlList) {
+        return Arrays.stream(jpqlList.split(",")).map(x -> x.substring(1, x.length() - 1)).collect(toUnmodifiableSet());
+    }
+
+    private static MediaUploadState of(FileMetadata fm) {
+        if (!isEmpty(fm.getCommonsFileNames())) {
+            return UPLOADED;
+        } else if (Boolean.TRUE == fm.isIgnored()) {
+            return IGNORED;
+        } else if (IMAGES.contains(fm.getExtension())) {
+            return MISSING_IMAGE;
+        } else if (VIDEOS.contains(fm.getExtension())) {
+            return MISSING_VIDEO;
+        } else if (DOCUMENTS.contains(fm.getExtension())) {
+            return MISSING_DOCUMENT;
+        }
+        return MISSING_OTHER;
+    }
+}
@@ -0,0 +1,95 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+/**
+ * Materialized statistics counters of a media repository, maintained incrementally when media are saved or deleted,
+ * and periodically recomputed from the media tables to correct any drift.
+ */
+@Entity
+public class RepoStatistics {
+
+    @Id
+    @Column(nullable = false, length = 64)
+    private String repoId;
+
+    @Column(nullable = false)
+    private long totalMedia;
+
+    @Column(nullable = false)
+    private long uploadedMedia;
+
+    @Column(nullable = false)
+    private long ignoredMedia;
+
+    @Column(nullable = false)
+    private long missingImages;
+
+    @Column(nullable = false)
+    private long missingVideos;
+
+    @Column(nullable = false)
+    private long missingDocuments;
+
+    @Column(nullable = false)
+    private long hashedMedia;
+
+    /**
+     * Date at which counters were last recomputed from the media tables
+     */
+    @Column(nullable = false)
+    private LocalDateTime reconciled;
+
+    public RepoStatistics() {
+        // No-arg constructor required by JPA
+    }
+
+    public RepoStatistics(String repoId, MediaCounts counts, LocalDateTime reconciled) {
+        this.repoId = repoId;
+        this.totalMedia = counts.totalMedia();
+        this.uploadedMedia = counts.uploadedMedia();
+        this.ignoredMedia = counts.ignoredMedia();
+        this.missingImages = counts.missingImages();
+        this.missingVideos = counts.missingVideos();
+        this.missingDocuments = counts.missingDocuments();
+        this.hashedMedia = counts.hashedMedia();
+        this.reconciled = reconciled;
+    }
+
+    public String getRepoId() {
+        return repoId;
+    }
+
+    public MediaCounts getCounts() {
+        return new MediaCounts(totalMedia, uploadedMedia, ignoredMedia, missingImages, missingVideos,
+                missingDocuments, hashedMedia);
+    }
+
+    public LocalDateTime getReconciled() {
+        return reconciled;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(repoId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        return Objects.equals(repoId, ((RepoStatistics) obj).repoId);
+    }
+
+    @Override
+    public String toString() {
+        return "RepoStatistics [repoId=" + repoId + ", " + getCounts() + ", reconciled=" + reconciled + "]";
+    }
+}
@@ -0,0 +1,24 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import java.util.Set;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RepoStatisticsRepository extends CrudRepository<RepoStatistics, String> {
+
+    Iterable<RepoStatistics> findByRepoIdIn(Set<String> repoIds);
+
+    /**
+     * Adds the given differences to the counters of a repository, atomically.
+     *
+     * @return number of updated rows, 0 if the repository counters have never been computed
+     */
+    @Modifying
+    @Transactional
+    @Query("update #{#entityName} s set s.totalMedia = s.totalMedia + ?2, s.uploadedMedia = s.uploadedMedia + ?3, s.ignoredMedia = s.ignoredMedia + ?4, s.missingImages = s.missingImages + ?5, s.missingVideos = s.missingVideos + ?6, s.missingDocuments = s.missingDocuments + ?7, s.hashedMedia = s.hashedMedia + ?8 where s.repoId = ?1")
+    int increment(String repoId, long totalMedia, long uploadedMedia, long ignoredMedia, long missingImages,
+            long missingVideos, long missingDocuments, long hashedMedia);
+}
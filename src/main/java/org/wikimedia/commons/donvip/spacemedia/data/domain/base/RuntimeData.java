@@ -3,11 +3,16 @@ package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
 
 @Entity
 public class RuntimeData {
@@ -43,6 +48,20 @@ public class RuntimeData {
     @Column(nullable = true)
     private LocalDate doNotFetchEarlierThan;
 
+    /**
+     * Keys of the work partitions completed by an interrupted update, one per line, to resume it
+     */
+    @Lob
+    @Column(nullable = true, columnDefinition = "MEDIUMTEXT")
+    private String checkpoint;
+
+    /**
+     * Position reached by incremental updates in each repository, in an org-specific format
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @Column(length = 512)
+    private Map<String, String> cursors = new HashMap<>();
+
     public RuntimeData() {
         // No-arg constructor required by JPA
     }
@@ -123,10 +142,26 @@ public class RuntimeData {
         this.doNotFetchEarlierThan = doNotFetchEarlierThan;
     }
 
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public Map<String, String> getCursors() {
+        return cursors;
+    }
+
+    public void setCursors(Map<String, String> cursors) {
+        this.cursors = cursors;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(orgId, lastUpdateDuration, lastUpdateDurationMin, lastUpdateEnd, lastUpdateStart,
-                lastTimestamp, doNotFetchEarlierThan);
+                lastTimestamp, doNotFetchEarlierThan, checkpoint, cursors);
     }
 
     @Override
@@ -141,7 +176,8 @@ public class RuntimeData {
                 && Objects.equals(lastUpdateEnd, other.lastUpdateEnd)
                 && Objects.equals(lastUpdateStart, other.lastUpdateStart)
                 && Objects.equals(lastTimestamp, other.lastTimestamp)
-                && Objects.equals(doNotFetchEarlierThan, other.doNotFetchEarlierThan);
+                && Objects.equals(doNotFetchEarlierThan, other.doNotFetchEarlierThan)
+                && Objects.equals(checkpoint, other.checkpoint) && Objects.equals(cursors, other.cursors);
     }
 
     @Override
@@ -152,6 +188,8 @@ public class RuntimeData {
                 + (lastUpdateDuration != null ? "lastUpdateDuration=" + lastUpdateDuration + ", " : "")
                 + (lastUpdateDurationMin != null ? "lastUpdateDurationMin=" + lastUpdateDurationMin + ", " : "")
                 + (lastTimestamp != null ? "lastTimestamp=" + lastTimestamp + ", " : "")
-                + (doNotFetchEarlierThan != null ? "doNotFetchEarlierThan=" + doNotFetchEarlierThan : "") + "]";
+                + (doNotFetchEarlierThan != null ? "doNotFetchEarlierThan=" + doNotFetchEarlierThan + ", " : "")
+                + (checkpoint != null ? "checkpoint=" + checkpoint.lines().count() + " partitions, " : "")
+                + (cursors != null && !cursors.isEmpty() ? "cursors=" + cursors : "") + "]";
     }
 }
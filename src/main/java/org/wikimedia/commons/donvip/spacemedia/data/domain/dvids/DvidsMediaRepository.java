@@ -71,7 +71,7 @@ public interface DvidsMediaRepository<T extends DvidsMedia> extends MediaReposit
     @Cacheable("dvidsCountMissingByUnit")
     long countMissingInCommons(Set<String> units);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.location.country in ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING + " and m.location.country in ?1")
     @Cacheable("dvidsCountMissingByCountry")
     long countMissingInCommonsByCountry(Set<String> countries);
 
@@ -79,7 +79,7 @@ public interface DvidsMediaRepository<T extends DvidsMedia> extends MediaReposit
     @Cacheable("dvidsCountMissingImagesByUnit")
     long countMissingImagesInCommons(Set<String> units);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('bmp','jpg','jpeg','tif','tiff','png','webp','xcf','gif','svg','exr') and m.location.country in ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING_IMAGES + " and m.location.country in ?1")
     @Cacheable("dvidsCountMissingImagesByCountry")
     long countMissingImagesInCommonsByCountry(Set<String> countries);
 
@@ -87,7 +87,7 @@ public interface DvidsMediaRepository<T extends DvidsMedia> extends MediaReposit
     @Cacheable("dvidsCountMissingVideosByUnit")
     long countMissingVideosInCommons(Set<String> units);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('mp4','webm','ogv','mpeg','wmv','avi','mov') and m.location.country in ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING_VIDEOS + " and m.location.country in ?1")
     @Cacheable("dvidsCountMissingVideosByCountry")
     long countMissingVideosInCommonsByCountry(Set<String> countries);
 
@@ -95,7 +95,7 @@ public interface DvidsMediaRepository<T extends DvidsMedia> extends MediaReposit
     @Cacheable("dvidsCountMissingDocumentsByUnit")
     long countMissingDocumentsInCommons(Set<String> units);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('pdf','stl','epub','ppt','pptm','pptx') and m.location.country in ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING_DOCUMENTS + " and m.location.country in ?1")
     @Cacheable("dvidsCountMissingDocumentsByCountry")
     long countMissingDocumentsInCommonsByCountry(Set<String> countries);
 
@@ -146,34 +146,34 @@ public interface DvidsMediaRepository<T extends DvidsMedia> extends MediaReposit
     @Query("select distinct(m) from #{#entityName} m join m.metadata md where size (md.commonsFileNames) >= 2 and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findDuplicateInCommonsByCountry(Set<String> countries);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('bmp','jpg','jpeg','tif','tiff','png','webp','xcf','gif','svg','exr') and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING_IMAGES + " and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingImagesInCommonsByCountry(Set<String> countries, Pageable page);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('mp4','webm','ogv','mpeg','wmv','avi','mov') and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING_VIDEOS + " and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingVideosInCommonsByCountry(Set<String> countries, Pageable page);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and md.extension in ('pdf','stl','epub','ppt','pptm','pptx') and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING_DOCUMENTS + " and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingDocumentsInCommonsByCountry(Set<String> countries, Pageable page);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByCountry(Set<String> countries);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.location.country in ?1 and m.id.mediaId not in ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.location.country in ?1 and m.id.mediaId not in ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsNotInByCountry(Set<String> countries, Set<String> mediaIds);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findMissingInCommonsByCountry(Set<String> countries, Pageable page);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.location.country in ?1 and m.publicationDate = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.location.country in ?1 and m.publicationDate = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByPublicationDateByCountry(Set<String> countries, LocalDate date);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.location.country in ?1 and m.publicationMonth = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.location.country in ?1 and m.publicationMonth = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByPublicationMonthByCountry(Set<String> countries, YearMonth month);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.location.country in ?1 and m.publicationYear = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.location.country in ?1 and m.publicationYear = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByPublicationYearByCountry(Set<String> countries, Year year);
 
-    @Query("select distinct(m) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.location.country in ?1 and m.title = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
+    @Query("select m from #{#entityName} m where " + MISSING + " and m.location.country in ?1 and m.title = ?2 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     List<T> findMissingInCommonsByTitleByCountry(Set<String> countries, String title);
 
     @Query("select distinct(m) from #{#entityName} m join m.metadata md where exists elements (md.commonsFileNames) and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
@@ -188,6 +188,57 @@ public interface DvidsMediaRepository<T extends DvidsMedia> extends MediaReposit
     @Query("select distinct(m) from #{#entityName} m join m.metadata md where md.phash is not null and m.location.country in ?1 order by m.publicationYear desc, m.publicationMonth desc, m.publicationDate desc")
     Page<T> findByMetadata_PhashNotNullByCountry(Set<String> countries, Pageable page);
 
+    /** JPQL condition of media located in the countries ?1 */
+    String IN_COUNTRIES = "m.location.country in ?1";
+
+    @Query(SELECT + IN_COUNTRIES + OLDER)
+    List<T> findAllByCountryOlderThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + IN_COUNTRIES + NEWER)
+    List<T> findAllByCountryNewerThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING + AND + IN_COUNTRIES + OLDER)
+    List<T> findMissingInCommonsByCountryOlderThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING + AND + IN_COUNTRIES + NEWER)
+    List<T> findMissingInCommonsByCountryNewerThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_IMAGES + AND + IN_COUNTRIES + OLDER)
+    List<T> findMissingImagesInCommonsByCountryOlderThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_IMAGES + AND + IN_COUNTRIES + NEWER)
+    List<T> findMissingImagesInCommonsByCountryNewerThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_VIDEOS + AND + IN_COUNTRIES + OLDER)
+    List<T> findMissingVideosInCommonsByCountryOlderThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_VIDEOS + AND + IN_COUNTRIES + NEWER)
+    List<T> findMissingVideosInCommonsByCountryNewerThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_DOCUMENTS + AND + IN_COUNTRIES + OLDER)
+    List<T> findMissingDocumentsInCommonsByCountryOlderThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT + MISSING_DOCUMENTS + AND + IN_COUNTRIES + NEWER)
+    List<T> findMissingDocumentsInCommonsByCountryNewerThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + UPLOADED_FILES + AND + IN_COUNTRIES + OLDER)
+    List<T> findUploadedToCommonsByCountryOlderThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + UPLOADED_FILES + AND + IN_COUNTRIES + NEWER)
+    List<T> findUploadedToCommonsByCountryNewerThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + IGNORED_FILES + AND + IN_COUNTRIES + OLDER)
+    List<T> findByMetadata_IgnoredTrueByCountryOlderThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + IGNORED_FILES + AND + IN_COUNTRIES + NEWER)
+    List<T> findByMetadata_IgnoredTrueByCountryNewerThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + HASHED_FILES + AND + IN_COUNTRIES + OLDER)
+    List<T> findByMetadata_PhashNotNullByCountryOlderThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
+    @Query(SELECT_BY_FILES + HASHED_FILES + AND + IN_COUNTRIES + NEWER)
+    List<T> findByMetadata_PhashNotNullByCountryNewerThan(Set<String> countries, LocalDate date, String repoId, String mediaId, Pageable page);
+
     // SAVE
 
     @Override
@@ -57,11 +57,11 @@ public interface FlickrMediaRepository extends MediaRepository<FlickrMedia> {
     long countMissingInCommons(Set<String> flickrAccounts);
 
     @Cacheable("flickrCountMissingByType")
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.media = ?1")
+    @Query("select count(*) from #{#entityName} m where " + MISSING + " and m.media = ?1")
     long countMissingInCommons(FlickrMediaType type);
 
     @Cacheable("flickrCountMissingByTypeAndAccount")
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.media = ?1 and m.id.repoId in ?2")
+    @Query("select count(*) from #{#entityName} m where " + MISSING + " and m.media = ?1 and m.id.repoId in ?2")
     long countMissingInCommons(FlickrMediaType type, Set<String> flickrAccounts);
 
     @Override
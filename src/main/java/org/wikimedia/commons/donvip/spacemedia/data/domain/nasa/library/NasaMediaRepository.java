@@ -63,10 +63,10 @@ public interface NasaMediaRepository<T extends NasaMedia> extends MediaRepositor
     @Cacheable("nasaCountMissingByCenter")
     long countMissingInCommons(Set<String> centers);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and not exists elements (md.commonsFileNames) and m.mediaType = ?1 and m.id.repoId in ?2")
+    @Query("select count(*) from #{#entityName} m where " + MISSING + " and m.mediaType = ?1 and m.id.repoId in ?2")
     long countMissingInCommonsByTypeAndCenters(NasaMediaType type, Set<String> centers);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and m.mediaType = ?1 and not exists elements (md.commonsFileNames)")
+    @Query("select count(*) from #{#entityName} m where " + MISSING + " and m.mediaType = ?1")
     long countMissingInCommons(NasaMediaType type);
 
     @Override
@@ -59,7 +59,7 @@ public interface NasaSdoMediaRepository extends MediaRepository<NasaSdoMedia> {
     @Cacheable("nasaSdoCountMissingRepo")
     long countMissingInCommons(Set<String> repos);
 
-    @Query("select count(distinct (m.id)) from #{#entityName} m join m.metadata md where (md.ignored is null or md.ignored = false) and m.mediaType = ?1 and not exists elements (md.commonsFileNames)")
+    @Query("select count(*) from #{#entityName} m where " + MISSING + " and m.mediaType = ?1")
     long countMissingInCommons(NasaMediaType type);
 
     @Override
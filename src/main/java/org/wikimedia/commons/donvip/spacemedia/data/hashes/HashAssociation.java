@@ -2,11 +2,16 @@ package org.wikimedia.commons.donvip.spacemedia.data.hashes;
 
 import java.util.Objects;
 
+import org.wikimedia.commons.donvip.spacemedia.utils.PerceptualHash;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 @Entity
 @Table(indexes = { @Index(columnList = "phash"), @Index(columnList = "phash,mime"), @Index(columnList = "sha1,mime") })
@@ -25,6 +30,12 @@ public class HashAssociation {
     @Column(nullable = true, columnDefinition = "VARCHAR(52)", length = 52)
     private String phash;
 
+    /**
+     * Perceptual hash decoded once, for allocation-free comparisons.
+     */
+    @Transient
+    private PerceptualHash packedPhash;
+
     /**
      * MIME type.
      */
@@ -72,6 +83,15 @@ public class HashAssociation {
 
     public void setPhash(String phash) {
         this.phash = phash;
+        this.packedPhash = null;
+    }
+
+    @JsonIgnore
+    public PerceptualHash getPackedPhash() {
+        if (packedPhash == null && phash != null) {
+            packedPhash = PerceptualHash.decode(phash);
+        }
+        return packedPhash;
     }
 
     public String getMime() {
@@ -3,6 +3,7 @@ package org.wikimedia.commons.donvip.spacemedia.data.hashes;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
@@ -14,5 +15,8 @@ public interface HashAssociationRepository extends CrudRepository<HashAssociatio
     @Query("select distinct sha1 from HashAssociation where length(sha1) = 40")
     List<String> findObsoleteSha1();
 
+    @Query("select h from HashAssociation h where h.phash is not null and h.mime is not null and h.sha1 > ?1 order by h.sha1")
+    List<HashAssociation> findWithPhashAndMimeAfterSha1(String sha1, Pageable page);
+
     Optional<HashAssociation> findBySha1AndMimeIsNull(String sha1);
 }
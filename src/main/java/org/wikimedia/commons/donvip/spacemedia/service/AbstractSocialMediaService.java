@@ -2,7 +2,6 @@ package org.wikimedia.commons.donvip.spacemedia.service;
 
 import static java.util.stream.Collectors.joining;
 import static org.wikimedia.commons.donvip.spacemedia.service.wikimedia.CommonsService.timestampFormatter;
-import static org.wikimedia.commons.donvip.spacemedia.utils.HashHelper.similarityScore;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.executeRequest;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newHttpGet;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newURL;
@@ -250,7 +249,7 @@ public abstract class AbstractSocialMediaService<S extends OAuthService, T exten
     }
 
     boolean sameImages(FileMetadata a, FileMetadata b) {
-        return similarityScore(a.getPhash(), b.getPhash()) <= perceptualThreshold;
+        return a.getPackedPhash().similarityScore(b.getPackedPhash()) <= perceptualThreshold;
     }
 
     protected static URL getImageUrl(URL url, int width, String fileName) {
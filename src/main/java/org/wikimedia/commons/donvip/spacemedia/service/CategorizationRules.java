@@ -0,0 +1,131 @@
+package org.wikimedia.commons.donvip.spacemedia.service;
+
+import static java.util.Arrays.stream;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.WithKeywords;
+import org.wikimedia.commons.donvip.spacemedia.utils.TermMatcher;
+
+/**
+ * Categorization rules compiled once: Earth observation targets or subjects are searched in a single pass over each
+ * text field of a media, and regular expressions of SDC statements by category are compiled once. Thread-safe.
+ */
+final class CategorizationRules {
+
+    /**
+     * Text fields of a media, normalized once to be searched by several rules. Fields are normalized like
+     * {@link Media#containsInTitleOrDescriptionOrKeywords}: lower case, without spaces and dashes.
+     */
+    static record MediaText(String title, String description, List<String> fileDescriptions,
+            List<String> keywords) {
+
+        static MediaText of(Media media) {
+            return new MediaText(Media.normalize(media.getTitle()), Media.normalize(media.getDescription()),
+                    media.hasMetadata()
+                            ? media.getMetadataStream().map(x -> Media.normalize(x.getDescription()))
+                                    .filter(StringUtils::isNotBlank).distinct().toList()
+                            : List.of(),
+                    media instanceof WithKeywords mkw ? mkw.getKeywordStream().map(Media::normalize).toList()
+                            : List.of());
+        }
+
+        /**
+         * Determines if at least one of the given strings is included in title, description or keywords, ignoring
+         * spaces and dashes.
+         *
+         * @param strings strings to search
+         * @return {@code true} if at least one of the given strings is included in title, description or keywords
+         */
+        boolean containsAny(String... strings) {
+            return stream(strings).map(Media::normalize).anyMatch(s -> fields(true, true, true).anyMatch(
+                    x -> x.contains(s)));
+        }
+
+        /**
+         * Returns the fields to search. File descriptions are always searched, like
+         * {@link Media#containsInTitleOrDescriptionOrKeywords}.
+         */
+        Stream<String> fields(boolean title, boolean description, boolean keywords) {
+            List<String> result = new ArrayList<>();
+            if (title) {
+                result.add(this.title);
+            }
+            if (description) {
+                result.add(this.description);
+            }
+            result.addAll(fileDescriptions);
+            if (keywords) {
+                result.addAll(this.keywords);
+            }
+            return result.stream();
+        }
+    }
+
+    /**
+     * SDC statements added to media belonging to a category matching one of the patterns.
+     */
+    static record StatementRule(String categories, List<Pattern> patterns, String statements) {
+
+        boolean matches(Set<String> cats) {
+            return patterns.stream().anyMatch(p -> cats.stream().anyMatch(c -> p.matcher(c).matches()));
+        }
+    }
+
+    private final TermMatcher targetsOrSubjectsMatcher;
+    /** Targets or subjects by normalized term, several of them can be normalized to the same term */
+    private final Map<String, List<String>> targetsOrSubjects = new HashMap<>();
+    private final List<StatementRule> statementRules = new ArrayList<>();
+
+    CategorizationRules(Collection<String> satellitePicturesCategories, Map<String, String> categoriesStatements) {
+        for (String targetOrSubject : satellitePicturesCategories) {
+            targetsOrSubjects.computeIfAbsent(Media.normalize(targetOrSubject), x -> new ArrayList<>())
+                    .add(targetOrSubject);
+        }
+        targetsOrSubjectsMatcher = new TermMatcher(targetsOrSubjects.keySet());
+        for (Entry<String, String> e : categoriesStatements.entrySet()) {
+            statementRules.add(new StatementRule(e.getKey(),
+                    stream(e.getKey().split(";")).map(r -> Pattern.compile(r, Pattern.CASE_INSENSITIVE)).toList(),
+                    e.getValue()));
+        }
+    }
+
+    /**
+     * Finds the Earth observation targets or subjects mentioned by a media.
+     *
+     * @param text                normalized text of the media
+     * @param lookIntoTitle       whether to search the title
+     * @param lookIntoDescription whether to search the description
+     * @param lookIntoKeywords    whether to search the keywords
+     * @return targets or subjects found in the media, sorted
+     */
+    Set<String> findTargetsOrSubjects(MediaText text, boolean lookIntoTitle, boolean lookIntoDescription,
+            boolean lookIntoKeywords) {
+        Set<String> result = new TreeSet<>();
+        text.fields(lookIntoTitle, lookIntoDescription, lookIntoKeywords)
+                .forEach(field -> targetsOrSubjectsMatcher.findAll(field)
+                        .forEach(term -> result.addAll(targetsOrSubjects.get(term))));
+        return result;
+    }
+
+    /**
+     * Finds the statement rules matching the given categories, in file order.
+     *
+     * @param cats categories
+     * @return statement rules matching the given categories
+     */
+    List<StatementRule> findStatementRules(Set<String> cats) {
+        return statementRules.stream().filter(r -> r.matches(cats)).toList();
+    }
+}
@@ -1,11 +1,8 @@
 package org.wikimedia.commons.donvip.spacemedia.service;
 
-import static java.util.Arrays.stream;
-
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
@@ -23,6 +20,8 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.WithKeywords;
+import org.wikimedia.commons.donvip.spacemedia.service.CategorizationRules.MediaText;
+import org.wikimedia.commons.donvip.spacemedia.service.CategorizationRules.StatementRule;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.CommonsService;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.SdcStatements;
 import org.wikimedia.commons.donvip.spacemedia.utils.CsvHelper;
@@ -44,14 +43,15 @@ public class CategorizationService {
 
     private Map<String, String> categoriesStatements;
 
+    private CategorizationRules rules;
+
     @Lazy
     @Autowired
     protected CommonsService commonsService;
 
     @PostConstruct
     void init() throws IOException {
-        getSatellitePicturesCategories();
-        getCategoriesStatements();
+        getRules();
     }
 
     private Set<String> getSatellitePicturesCategories() {
@@ -72,6 +72,13 @@ public class CategorizationService {
         return categoriesStatements;
     }
 
+    private CategorizationRules getRules() {
+        if (rules == null) {
+            rules = new CategorizationRules(getSatellitePicturesCategories(), getCategoriesStatements());
+        }
+        return rules;
+    }
+
     public static String extractCopernicusTemplate(String text) {
         Matcher m = COPERNICUS_CREDIT.matcher(text);
         return m.matches() ? getCopernicusTemplate(m.group(1)) : null;
@@ -86,16 +93,13 @@ public class CategorizationService {
     }
 
     public void findCategoriesStatements(SdcStatements result, Set<String> cats) {
-        for (Entry<String, String> e : getCategoriesStatements().entrySet()) {
-            if (stream(e.getKey().split(";")).map(r -> Pattern.compile(r, Pattern.CASE_INSENSITIVE))
-                    .anyMatch(p -> cats.stream().anyMatch(c -> p.matcher(c).matches()))) {
-                LOGGER.info("SDC category match: {}", e);
-                for (String statement : e.getValue().split(";")) {
-                    String[] kv = statement.split("=");
-                    Pair<Object, Map<String, Object>> old = result.put(kv[0], Pair.of(kv[1], null));
-                    if (old != null) {
-                        LOGGER.warn("Replaced old SDC: {}", old);
-                    }
+        for (StatementRule rule : getRules().findStatementRules(cats)) {
+            LOGGER.info("SDC category match: {}={}", rule.categories(), rule.statements());
+            for (String statement : rule.statements().split(";")) {
+                String[] kv = statement.split("=");
+                Pair<Object, Map<String, Object>> old = result.put(kv[0], Pair.of(kv[1], null));
+                if (old != null) {
+                    LOGGER.warn("Replaced old SDC: {}", old);
                 }
             }
         }
@@ -109,38 +113,43 @@ public class CategorizationService {
     }
 
     public void findCategoriesForSentinels(Media media, Set<String> result) {
+        MediaText text = MediaText.of(media);
         if (isFromSentinelSatellite(media)) {
             result.add(getCopernicusTemplate(media.getYear().getValue()));
-            if (media.containsInTitleOrDescriptionOrKeywords("fires", "burn scars", "wildfire", "forest fire")) {
+            if (text.containsAny("fires", "burn scars", "wildfire", "forest fire")) {
                 result.add("Photos of wildfires by Sentinel satellites");
-            } else if (media.containsInTitleOrDescriptionOrKeywords("Phytoplankton", "algal bloom")) {
+            } else if (text.containsAny("Phytoplankton", "algal bloom")) {
                 result.add("Satellite pictures of algal blooms");
-            } else if (media.containsInTitleOrDescriptionOrKeywords("hurricane")) {
+            } else if (text.containsAny("hurricane")) {
                 result.add("Satellite pictures of hurricanes");
-            } else if (media.containsInTitleOrDescriptionOrKeywords("floods", "flooding")) {
+            } else if (text.containsAny("floods", "flooding")) {
                 result.add("Photos of floods by Sentinel satellites");
             }
         }
         for (String num : new String[] { "1", "2", "3", "4", "5", "5P", "6" }) {
-            findCategoriesForSentinel(media, "Sentinel-" + num, result);
+            findCategoriesForSentinel(text, "Sentinel-" + num, result);
         }
     }
 
-    private void findCategoriesForSentinel(Media media, String sentinel, Set<String> result) {
-        if (media.containsInTitleOrDescriptionOrKeywords(sentinel)) {
-            result.addAll(findCategoriesForEarthObservationImage(media, x -> "Photos of " + x + " by " + sentinel,
+    private void findCategoriesForSentinel(MediaText text, String sentinel, Set<String> result) {
+        if (text.containsAny(sentinel)) {
+            result.addAll(findCategoriesForEarthObservationImage(text, x -> "Photos of " + x + " by " + sentinel,
                     sentinel + " images", true, true, true));
         }
     }
 
     public Set<String> findCategoriesForEarthObservationImage(Media image, UnaryOperator<String> categorizer,
             String defaultCat, boolean lookIntoTitle, boolean lookIntoDescription, boolean lookIntoKeywords) {
+        return findCategoriesForEarthObservationImage(MediaText.of(image), categorizer, defaultCat, lookIntoTitle,
+                lookIntoDescription, lookIntoKeywords);
+    }
+
+    private Set<String> findCategoriesForEarthObservationImage(MediaText text, UnaryOperator<String> categorizer,
+            String defaultCat, boolean lookIntoTitle, boolean lookIntoDescription, boolean lookIntoKeywords) {
         Set<String> result = new TreeSet<>();
-        for (String targetOrSubject : getSatellitePicturesCategories()) {
-            if (image.containsInTitleOrDescriptionOrKeywords(targetOrSubject, lookIntoTitle, lookIntoDescription,
-                    lookIntoKeywords)) {
-                findCategoryForEarthObservationTargetOrSubject(categorizer, targetOrSubject).ifPresent(result::add);
-            }
+        for (String targetOrSubject : getRules().findTargetsOrSubjects(text, lookIntoTitle, lookIntoDescription,
+                lookIntoKeywords)) {
+            findCategoryForEarthObservationTargetOrSubject(categorizer, targetOrSubject).ifPresent(result::add);
         }
         if (result.isEmpty()) {
             result.add(defaultCat);
@@ -2,7 +2,7 @@ package org.wikimedia.commons.donvip.spacemedia.service;
 
 import static java.lang.Integer.parseInt;
 import static java.util.Locale.ENGLISH;
-import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -10,9 +10,16 @@ import static org.apache.commons.text.StringEscapeUtils.unescapeXml;
 import static org.wikimedia.commons.donvip.spacemedia.utils.HashHelper.computePerceptualHash;
 import static org.wikimedia.commons.donvip.spacemedia.utils.HashHelper.computeSha1;
 import static org.wikimedia.commons.donvip.spacemedia.utils.HashHelper.encode;
-import static org.wikimedia.commons.donvip.spacemedia.utils.HashHelper.similarityScore;
 import static org.wikimedia.commons.donvip.spacemedia.utils.ImageUtils.readImageMetadata;
-import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUtils.readFile;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.CLEANUP;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.COMMONS;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.DECODE;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.DOWNLOAD;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.EXIF;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.PHASH;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.SAVE;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.SHA1;
+import static org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics.time;
 
 import java.awt.geom.Dimension2D;
 import java.awt.image.BufferedImage;
@@ -31,8 +38,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -74,6 +84,11 @@ import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.CommonsService;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.GlitchTip;
 import org.wikimedia.commons.donvip.spacemedia.utils.ContentsAndMetadata;
 import org.wikimedia.commons.donvip.spacemedia.utils.CsvHelper;
+import org.wikimedia.commons.donvip.spacemedia.utils.DownloadedFile;
+import org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics;
+import org.wikimedia.commons.donvip.spacemedia.utils.MediaUtils;
+import org.wikimedia.commons.donvip.spacemedia.utils.PerceptualHash;
+import org.wikimedia.commons.donvip.spacemedia.utils.TermMatcher;
 
 import com.drew.lang.Rational;
 import com.drew.metadata.Directory;
@@ -109,6 +124,17 @@ public class MediaService {
     @Autowired
     private HashAssociationRepository hashRepository;
 
+    @Lazy
+    @Autowired
+    private PerceptualHashIndexService hashIndex;
+
+    @Lazy
+    @Autowired
+    private RemoteService remote;
+
+    @Value("${perceptual.index.remote:false}")
+    private boolean remoteHashIndex;
+
     @Autowired
     private FileMetadataRepository metadataRepository;
 
@@ -130,17 +156,23 @@ public class MediaService {
     @Value("${ignored.sha1}")
     private Set<String> ignoredSha1;
 
-    private Set<String> allowListAllowedTerms;
-    private Set<String> blockListIgnoredTerms;
-    private Set<String> copyrightsBlocklist;
-    private Set<String> photographersBlocklist;
+    private TermMatcher allowListAllowedTerms;
+    private TermMatcher blockListIgnoredTerms;
+    private TermMatcher copyrightsBlocklist;
+    private TermMatcher photographersBlocklist;
+
+    private final Map<String, LongAdder> downloadedBytes = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() throws IOException {
-        allowListAllowedTerms = CsvHelper.loadSet(getClass().getResource("/lists/allowlist.allowed.terms.csv"));
-        blockListIgnoredTerms = CsvHelper.loadSet(getClass().getResource("/lists/blocklist.ignored.terms.csv"));
-        copyrightsBlocklist = CsvHelper.loadSet(getClass().getResource("/lists/blocklist.ignored.copyrights.csv"));
-        photographersBlocklist = CsvHelper.loadSet(getClass().getResource("/lists/blocklist.ignored.photographers.csv"));
+        allowListAllowedTerms = loadTermMatcher("/lists/allowlist.allowed.terms.csv");
+        blockListIgnoredTerms = loadTermMatcher("/lists/blocklist.ignored.terms.csv");
+        copyrightsBlocklist = loadTermMatcher("/lists/blocklist.ignored.copyrights.csv");
+        photographersBlocklist = loadTermMatcher("/lists/blocklist.ignored.photographers.csv");
+    }
+
+    private TermMatcher loadTermMatcher(String path) throws IOException {
+        return new TermMatcher(CsvHelper.loadSet(getClass().getResource(path)));
     }
 
     public <M extends Media> MediaUpdateResult<M> updateMedia(MediaUpdateContext<M> ctx,
@@ -158,8 +190,10 @@ public class MediaService {
         M media = ctx.media();
         GlitchTip.setTag("media", media.getIdUsedInOrg());
         GlitchTip.setTag("repo", media.getId().getRepoId());
+        String org = ctx.orgId();
+        String repo = media.getId().getRepoId();
         LOGGER.trace("updateMedia - cleanupDescription - {}", media);
-        if (cleanupDescription(media, patternsToRemove, stringsToRemove)) {
+        if (time(CLEANUP, org, repo, () -> cleanupDescription(media, patternsToRemove, stringsToRemove))) {
             LOGGER.info("Description has been cleaned up for {}", media);
             result = true;
         }
@@ -170,10 +204,11 @@ public class MediaService {
             result = true;
         }
         LOGGER.trace("updateMedia - findCommonsFiles - {}", media);
-        if (media.hasAssetsToUpload()
-                && findCommonsFiles(media.getMetadata(), media.getSearchTermsInCommons(media.getMetadata()),
+        if (media.hasAssetsToUpload() && time(COMMONS, org, repo,
+                () -> findCommonsFiles(media.getMetadata(), ctx.sha1LookedUp(),
+                        media.getSearchTermsInCommons(media.getMetadata()),
                         () -> similarCandidateMedia.apply(media, media.getPublicationDate(), 14),
-                        includeByPerceptualHash)) {
+                        includeByPerceptualHash))) {
             LOGGER.info("Commons files have been updated for {}", media);
             result = true;
         }
@@ -200,10 +235,9 @@ public class MediaService {
         return sb.toString().trim().replace("\r\n", " ").replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
     }
 
-    protected static String getMatchingTerms(Media media, Set<String> terms) {
+    protected static String getMatchingTerms(Media media, TermMatcher terms) {
         String titleAndDescription = getTitleAndDescription(media);
-        return titleAndDescription.isEmpty() ? ""
-                : terms.parallelStream().filter(titleAndDescription::contains).sorted().collect(joining(","));
+        return titleAndDescription.isEmpty() ? "" : String.join(",", terms.findAll(titleAndDescription));
     }
 
     protected boolean belongsToAllowlist(Media media) {
@@ -234,12 +268,12 @@ public class MediaService {
     }
 
     public boolean isCopyrightBlocklisted(String copyright) {
-        return copyrightsBlocklist.stream().anyMatch(copyright::contains);
+        return copyrightsBlocklist.containsAny(copyright);
     }
 
     public boolean isPhotographerBlocklisted(String photographer) {
         String normalizedPhotographer = photographer.toLowerCase(ENGLISH).replace(' ', '_');
-        return photographersBlocklist.stream().anyMatch(normalizedPhotographer::startsWith);
+        return photographersBlocklist.startsWithAny(normalizedPhotographer);
     }
 
     public <M extends Media> MediaUpdateResult<M> updateReadableStateAndHashes(MediaUpdateContext<M> ctx) {
@@ -261,8 +295,16 @@ public class MediaService {
         return new MediaUpdateResult<>(ctx.media(), result, exception);
     }
 
-    public record MediaUpdateContext<M extends Media>(M media, Path localPath, UrlResolver<M> urlResolver,
-            HttpClient httpClient, HttpClientContext context, boolean forceUpdateOfHashes, boolean ignoreExifMetadata) {
+    public record MediaUpdateContext<M extends Media>(String orgId, M media, Path localPath,
+            UrlResolver<M> urlResolver, HttpClient httpClient, HttpClientContext context, boolean forceUpdateOfHashes,
+            boolean ignoreExifMetadata, Set<String> sha1LookedUp) {
+
+        public MediaUpdateContext(String orgId, M media, Path localPath, UrlResolver<M> urlResolver,
+                HttpClient httpClient, HttpClientContext context, boolean forceUpdateOfHashes,
+                boolean ignoreExifMetadata) {
+            this(orgId, media, localPath, urlResolver, httpClient, context, forceUpdateOfHashes, ignoreExifMetadata,
+                    Set.of());
+        }
     }
 
     public record MediaUpdateResult<M extends Media>(M media, boolean result, boolean resetConsecutiveFailures,
@@ -277,14 +319,20 @@ public class MediaService {
             FileMetadata metadata) {
         boolean result = false;
         Object contents = null;
+        DownloadedFile download = null;
+        String org = ctx.orgId;
+        String repo = ctx.media.getId().getRepoId();
         try {
             URL assetUrl = ctx.urlResolver.resolveDownloadUrl(ctx.media, metadata);
             result |= isBlank(metadata.getOriginalFileName())
                     && metadata.updateFilenameAndExtension(assetUrl.getPath());
             if (shouldReadFile(assetUrl, metadata, ctx.forceUpdateOfHashes)) {
                 try {
-                    ContentsAndMetadata<?> img = readFile(assetUrl, metadata.getFileExtension(), ctx.localPath, false,
-                            true, ctx.httpClient, ctx.context);
+                    if (ctx.localPath == null) {
+                        // Download asset only once, then decode it, hash it and read its EXIF metadata locally
+                        download = downloadFile(ctx, assetUrl, metadata.getFileExtension());
+                    }
+                    ContentsAndMetadata<?> img = readFile(ctx, assetUrl, metadata.getFileExtension(), download);
                     contents = img.contents();
                     result |= updateReadableStateAndDims(metadata, img);
                     result |= updateFileSize(metadata, img);
@@ -312,7 +360,8 @@ public class MediaService {
                     result |= handleFileReadingError(metadata, e);
                 }
             }
-            if (contents instanceof BufferedImage bi && updatePerceptualHash(metadata, bi, ctx.forceUpdateOfHashes)) {
+            if (contents instanceof BufferedImage bi
+                    && time(PHASH, org, repo, () -> updatePerceptualHash(metadata, bi, ctx.forceUpdateOfHashes))) {
                 LOGGER.info("Perceptual hash has been updated for {}", metadata);
                 result = true;
             }
@@ -320,12 +369,13 @@ public class MediaService {
             boolean isImage = metadata.isImage();
             boolean isReadableImage = isImage
                     && (Boolean.TRUE == metadata.isReadable() || Boolean.TRUE == metadata.isAssumedReadable());
-            if ((!isImage || isReadableImage) && updateSha1(ctx, metadata)) {
+            DownloadedFile file = download;
+            if ((!isImage || isReadableImage) && time(SHA1, org, repo, () -> updateSha1(ctx, metadata, file))) {
                 LOGGER.info("SHA1 hash has been updated for {}", metadata);
                 result = true;
             }
-            if (isReadableImage && !ctx.ignoreExifMetadata
-                    && updateExifMetadata(metadata, ctx.httpClient, ctx.context)) {
+            if (isReadableImage && !ctx.ignoreExifMetadata && time(EXIF, org, repo,
+                    () -> updateExifMetadata(metadata, file, ctx.httpClient, ctx.context))) {
                 LOGGER.info("EXIF metadata has been updated for {}", metadata);
                 result = true;
             }
@@ -339,13 +389,54 @@ public class MediaService {
             return new MediaUpdateResult<>(ctx.media, result, e);
         } finally {
             contents = flushOrClose(contents);
+            flushOrClose(download);
         }
         if (result) {
-            saveMetadata(metadata);
+            time(SAVE, org, repo, () -> saveMetadata(metadata));
         }
         return new MediaUpdateResult<>(ctx.media, result, null);
     }
 
+    private DownloadedFile downloadFile(MediaUpdateContext<?> ctx, URL assetUrl, String extension)
+            throws IOException, FileDecodingException {
+        long start = System.nanoTime();
+        try {
+            DownloadedFile result = MediaUtils.downloadFile(assetUrl, extension, ctx.httpClient, ctx.context);
+            countDownloadedBytes(ctx, result.size());
+            return result;
+        } finally {
+            MediaUpdateMetrics.record(DOWNLOAD, ctx.orgId, ctx.media.getId().getRepoId(), start);
+        }
+    }
+
+    private static ContentsAndMetadata<?> readFile(MediaUpdateContext<?> ctx, URL assetUrl, String extension,
+            DownloadedFile download) throws IOException, FileDecodingException {
+        long start = System.nanoTime();
+        try {
+            return download != null ? MediaUtils.readFile(assetUrl, extension, download, false)
+                    : MediaUtils.readFile(assetUrl, extension, ctx.localPath, false, true, ctx.httpClient,
+                            ctx.context);
+        } finally {
+            MediaUpdateMetrics.record(DECODE, ctx.orgId, ctx.media.getId().getRepoId(), start);
+        }
+    }
+
+    private void countDownloadedBytes(MediaUpdateContext<?> ctx, long bytes) {
+        String repo = ctx.media.getId().getRepoId();
+        downloadedBytes.computeIfAbsent(repo, x -> new LongAdder()).add(bytes);
+        MediaUpdateMetrics.countDownloadedBytes(ctx.orgId, repo, bytes);
+    }
+
+    /**
+     * Returns the number of bytes downloaded to update the media of the given repositories, since startup.
+     *
+     * @param repoIds repository identifiers
+     * @return number of bytes downloaded for the given repositories
+     */
+    public long getDownloadedBytes(Collection<String> repoIds) {
+        return repoIds.stream().map(downloadedBytes::get).filter(Objects::nonNull).mapToLong(LongAdder::sum).sum();
+    }
+
     private static boolean handleFileReadingError(FileMetadata metadata, Exception e) {
         if (e.toString().contains("UnknownHostException")) {
             LOGGER.warn("Ignored file reading error of {} => {}", metadata.getAssetUri(), e.getMessage());
@@ -591,12 +682,13 @@ public class MediaService {
         return result;
     }
 
-    public boolean updateExifMetadata(FileMetadata metadata, HttpClient httpClient, HttpClientContext context)
-            throws IOException {
+    public boolean updateExifMetadata(FileMetadata metadata, DownloadedFile download, HttpClient httpClient,
+            HttpClientContext context) throws IOException {
         if (metadata.getExif() == null) {
             try {
-                metadata.setExif(exifRepository
-                        .save(ExifMetadata.of(readImageMetadata(metadata.getAssetUri(), httpClient, context))));
+                Metadata exif = download != null ? readImageMetadata(download.path())
+                        : readImageMetadata(metadata.getAssetUri(), httpClient, context);
+                metadata.setExif(exifRepository.save(ExifMetadata.of(exif)));
                 return true;
             } catch (IOException | RuntimeException e) {
                 LOGGER.error("Failed to update EXIF metadata for {}: {}", metadata, e.getMessage());
@@ -611,16 +703,25 @@ public class MediaService {
      *
      * @param ctx media update context
      * @param metadata media object metadata
+     * @param download asset already downloaded with its SHA-1 computed, can be null
      * @return {@code true} if media has been updated with computed SHA-1 and must be persisted
      * @throws IOException        in case of I/O error
      */
-    public <M extends Media> boolean updateSha1(MediaUpdateContext<M> ctx, FileMetadata metadata)
-            throws IOException {
+    public <M extends Media> boolean updateSha1(MediaUpdateContext<M> ctx, FileMetadata metadata,
+            DownloadedFile download) throws IOException {
         if ((!metadata.hasSha1() || ctx.forceUpdateOfHashes)
                 && (metadata.getAssetUrl() != null || ctx.localPath != null)) {
-            metadata.setSha1(ctx.localPath != null ? computeSha1(ctx.localPath)
-                    : computeSha1(ctx.urlResolver.resolveDownloadUrl(ctx.media, metadata), ctx.httpClient,
-                            ctx.context));
+            if (download != null) {
+                metadata.setSha1(download.sha1());
+            } else if (ctx.localPath != null) {
+                metadata.setSha1(computeSha1(ctx.localPath));
+            } else {
+                metadata.setSha1(computeSha1(ctx.urlResolver.resolveDownloadUrl(ctx.media, metadata),
+                        ctx.httpClient, ctx.context));
+                if (metadata.hasSize()) {
+                    countDownloadedBytes(ctx, metadata.getSize());
+                }
+            }
             updateHashes(metadata.getSha1(), metadata.getPhash(), metadata.getMime());
             return true;
         }
@@ -631,7 +732,7 @@ public class MediaService {
         if (sha1 != null) {
             String sha1base36 = CommonsService.base36Sha1(sha1);
             if (!hashRepository.existsById(sha1base36)) {
-                hashRepository.save(new HashAssociation(sha1base36, phash, mime));
+                hashIndex.index(hashRepository.save(new HashAssociation(sha1base36, phash, mime)));
             }
         }
     }
@@ -661,14 +762,22 @@ public class MediaService {
 
     public boolean findCommonsFiles(Collection<FileMetadata> metadata, Collection<String> searchTermsInCommons,
             Supplier<List<? extends Media>> similarCandidateMedia, boolean includeByPerceptualHash) throws IOException {
-        return findCommonsFilesWithSha1(metadata) || (includeByPerceptualHash
+        return findCommonsFiles(metadata, Set.of(), searchTermsInCommons, similarCandidateMedia,
+                includeByPerceptualHash);
+    }
+
+    private boolean findCommonsFiles(Collection<FileMetadata> metadata, Set<String> sha1LookedUp,
+            Collection<String> searchTermsInCommons, Supplier<List<? extends Media>> similarCandidateMedia,
+            boolean includeByPerceptualHash) throws IOException {
+        return findCommonsFilesWithSha1(metadata, sha1LookedUp) || (includeByPerceptualHash
                 && (findCommonsFilesWithPhash(metadata, true)
                         || findCommonsFilesWithTextAndPhash(metadata, searchTermsInCommons)
                         || findCommonsFilesWithPublicationDateAndPhash(metadata, similarCandidateMedia)));
     }
 
     /**
-     * Looks for Wikimedia Commons files matching the metadata SHA-1, if required.
+     * Looks for Wikimedia Commons files matching the metadata SHA-1, if required. All SHA-1 are looked up at once,
+     * so callers should pass metadata of as many media as possible.
      *
      * @param metadatas list of file metadata objects
      * @return {@code true} if at least one metadata has been updated with list of
@@ -676,21 +785,47 @@ public class MediaService {
      * @throws IOException in case of I/O error
      */
     public boolean findCommonsFilesWithSha1(Collection<FileMetadata> metadatas) throws IOException {
-        boolean result = false;
-        for (FileMetadata metadata : metadatas) {
-            result |= findCommonsFilesWithSha1(metadata);
-        }
-        return result;
+        return findCommonsFilesWithSha1(metadatas, Set.of());
     }
 
-    private boolean findCommonsFilesWithSha1(FileMetadata metadata) throws IOException {
-        if (shouldSearchBySha1(metadata)) {
-            Set<String> files = commonsService.findFilesWithSha1(metadata.getSha1());
-            if (!files.isEmpty()) {
-                return saveNewMetadataCommonsFileNames(metadata, files);
+    /**
+     * Looks for Wikimedia Commons files matching the SHA-1 of all files of the given media at once.
+     *
+     * @param medias media to look up
+     * @return SHA-1 of the media files that have been looked up, not to look up again during media update
+     * @throws IOException in case of I/O error
+     */
+    public Set<String> findCommonsFilesWithSha1OfMedia(Collection<? extends Media> medias) throws IOException {
+        List<FileMetadata> metadata = medias.stream().flatMap(Media::getMetadataStream).toList();
+        findCommonsFilesWithSha1(metadata);
+        return metadata.stream().filter(FileMetadata::hasSha1).map(FileMetadata::getSha1).collect(toSet());
+    }
+
+    /**
+     * Looks for Wikimedia Commons files matching the metadata SHA-1, if required and not already looked up.
+     *
+     * @param metadatas    list of file metadata objects
+     * @param sha1LookedUp SHA-1 already looked up by a previous batch, that are not looked up again
+     * @return {@code true} if at least one metadata has been updated with list of
+     *         Wikimedia Commons files and must be persisted
+     * @throws IOException in case of I/O error
+     */
+    public boolean findCommonsFilesWithSha1(Collection<FileMetadata> metadatas, Set<String> sha1LookedUp)
+            throws IOException {
+        List<FileMetadata> toSearch = metadatas.stream()
+                .filter(m -> shouldSearchBySha1(m) && !sha1LookedUp.contains(m.getSha1())).toList();
+        boolean result = false;
+        if (!toSearch.isEmpty()) {
+            Map<String, Set<String>> files = commonsService
+                    .findFilesWithEachSha1(toSearch.stream().map(FileMetadata::getSha1).toList());
+            for (FileMetadata metadata : toSearch) {
+                Set<String> filesForSha1 = files.get(metadata.getSha1());
+                if (filesForSha1 != null) {
+                    result |= saveNewMetadataCommonsFileNames(metadata, new HashSet<>(filesForSha1));
+                }
             }
         }
-        return false;
+        return result;
     }
 
     /**
@@ -714,9 +849,26 @@ public class MediaService {
         return result;
     }
 
+    /**
+     * Finds files with a near perceptual hash in the local index, else in the index of the web app, else files with
+     * the exact same perceptual hash.
+     */
+    private List<String> findSha1ByPhash(String phash, String mime) {
+        if (hashIndex.isReady()) {
+            return hashIndex.findSha1ByNearPhashAndMime(phash, mime);
+        }
+        if (remoteHashIndex) {
+            List<String> sha1s = remote.findSha1ByNearPhashAndMime(phash, mime);
+            if (sha1s != null) {
+                return sha1s;
+            }
+        }
+        return hashRepository.findSha1ByPhashAndMime(phash, mime);
+    }
+
     private boolean findCommonsFilesWithPhash(FileMetadata metadata, boolean excludeSelfSha1) throws IOException {
         if (shouldSearchByPhash(metadata)) {
-            List<String> sha1s = hashRepository.findSha1ByPhashAndMime(metadata.getPhash(), metadata.getMime());
+            List<String> sha1s = new ArrayList<>(findSha1ByPhash(metadata.getPhash(), metadata.getMime()));
             if (excludeSelfSha1) {
                 sha1s.remove(CommonsService.base36Sha1(metadata.getSha1()));
             }
@@ -786,7 +938,7 @@ public class MediaService {
                     && (metadata.getSize() <= similarCandidateFile.getSize() || areLargerOrEqualDimensions(
                             metadata.getMediaDimensions(), similarCandidateFile.getMediaDimensions()))
                     && phashMatches(metadata, similarCandidateFile.getCommonsFileNames().iterator().next(),
-                            similarCandidateFile.getPhash())) {
+                            similarCandidateFile.getPackedPhash())) {
                 filenames.addAll(similarCandidateFile.getCommonsFileNames());
             }
         }
@@ -828,7 +980,7 @@ public class MediaService {
                             FileMetadata.getMime(filename.substring(filename.lastIndexOf('.') + 1))));
                 }
                 if (phashMatches(metadata, filename,
-                        hash.orElseThrow(() -> new IllegalStateException("No hash for " + sha1base36)).getPhash())) {
+                        hash.orElseThrow(() -> new IllegalStateException("No hash for " + sha1base36)).getPackedPhash())) {
                     filenames.add(filename);
                 }
             }
@@ -836,9 +988,9 @@ public class MediaService {
         return filenames;
     }
 
-    private boolean phashMatches(FileMetadata metadata, String filename, String phash) {
+    private boolean phashMatches(FileMetadata metadata, String filename, PerceptualHash phash) {
         if (phash != null) {
-            double score = similarityScore(metadata.getPhash(), phash);
+            double score = metadata.getPackedPhash().similarityScore(phash);
             if (score <= perceptualThresholdIdenticalId) {
                 LOGGER.info("Found match ({}) between {} and {} / {}", score, metadata, filename, phash);
                 return true;
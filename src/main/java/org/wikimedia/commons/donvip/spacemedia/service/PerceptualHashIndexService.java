@@ -0,0 +1,140 @@
+package org.wikimedia.commons.donvip.spacemedia.service;
+
+import static org.wikimedia.commons.donvip.spacemedia.utils.HashHelper.maxHammingDistance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.wikimedia.commons.donvip.spacemedia.data.hashes.HashAssociation;
+import org.wikimedia.commons.donvip.spacemedia.data.hashes.HashAssociationRepository;
+import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.GlitchTip;
+import org.wikimedia.commons.donvip.spacemedia.utils.PerceptualHash;
+import org.wikimedia.commons.donvip.spacemedia.utils.PerceptualHashTree;
+
+/**
+ * In-memory index of perceptual hashes, one BK-tree per MIME type, allowing to find near-duplicates instead of
+ * exact perceptual hash matches only. Loaded in background at startup, then kept up to date when hashes are saved.
+ */
+@Lazy
+@Service
+public class PerceptualHashIndexService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PerceptualHashIndexService.class);
+
+    private static final Pageable LOAD_PAGE = PageRequest.ofSize(10_000);
+
+    @Autowired
+    private HashAssociationRepository hashRepository;
+
+    @Autowired
+    private ExecutorService taskExecutor;
+
+    @Value("${perceptual.index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${perceptual.threshold.identicalid}")
+    private double perceptualThresholdIdenticalId;
+
+    private final Map<String, PerceptualHashTree> trees = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    void init() {
+        if (enabled) {
+            taskExecutor.submit(this::loadIndex);
+        }
+    }
+
+    void loadIndex() {
+        LOGGER.info("Loading perceptual hash index...");
+        long start = System.currentTimeMillis();
+        try {
+            String lastSha1 = "";
+            List<HashAssociation> page;
+            long count = 0;
+            do {
+                page = hashRepository.findWithPhashAndMimeAfterSha1(lastSha1, LOAD_PAGE);
+                page.forEach(this::index);
+                count += page.size();
+                if (!page.isEmpty()) {
+                    lastSha1 = page.get(page.size() - 1).getSha1();
+                }
+            } while (page.size() == LOAD_PAGE.getPageSize());
+            ready = true;
+            LOGGER.info("Perceptual hash index loaded in {} ms: {} hashes, {} distinct perceptual hashes",
+                    System.currentTimeMillis() - start, count, size());
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to load perceptual hash index", e);
+            GlitchTip.capture(e);
+        }
+    }
+
+    /**
+     * Determines if the index is fully loaded and can be queried.
+     *
+     * @return {@code true} if the index is fully loaded and can be queried
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds a newly saved hash association to the index, if enabled.
+     *
+     * @param hash hash association
+     */
+    public void index(HashAssociation hash) {
+        if (enabled && hash != null && hash.getPhash() != null && hash.getMime() != null) {
+            trees.computeIfAbsent(hash.getMime(), x -> new PerceptualHashTree()).add(hash.getPackedPhash(),
+                    hash.getSha1());
+        }
+    }
+
+    /**
+     * Finds the base36 SHA-1 of files with the same MIME type and a perceptual hash within
+     * {@code perceptual.threshold.identicalid} of the given one.
+     *
+     * @param phash perceptual hash
+     * @param mime  MIME type
+     * @return base36 SHA-1 of matching files, closest ones first
+     */
+    public List<String> findSha1ByNearPhashAndMime(String phash, String mime) {
+        return findSha1ByNearPhashAndMime(phash, mime, perceptualThresholdIdenticalId);
+    }
+
+    /**
+     * Finds the base36 SHA-1 of files with the same MIME type and a perceptual hash within the given threshold of the
+     * given one.
+     *
+     * @param phash     perceptual hash
+     * @param mime      MIME type
+     * @param threshold normalized Hamming distance threshold, inclusive
+     * @return base36 SHA-1 of matching files, closest ones first
+     */
+    public List<String> findSha1ByNearPhashAndMime(String phash, String mime, double threshold) {
+        PerceptualHashTree tree = trees.get(mime);
+        return tree == null ? List.of() : tree.findWithin(PerceptualHash.decode(phash), maxHammingDistance(threshold));
+    }
+
+    /**
+     * Returns the number of distinct perceptual hashes in the index.
+     *
+     * @return the number of distinct perceptual hashes in the index
+     */
+    public long size() {
+        return trees.values().stream().mapToLong(PerceptualHashTree::size).sum();
+    }
+}
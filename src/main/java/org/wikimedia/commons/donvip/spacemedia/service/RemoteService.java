@@ -6,6 +6,8 @@ import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.HttpMethod.PUT;
 
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +64,25 @@ public class RemoteService {
         } while (!ok);
     }
 
+    /**
+     * Finds near-duplicates of a perceptual hash in the index of the remote application.
+     *
+     * @param phash perceptual hash
+     * @param mime  MIME type
+     * @return base36 SHA-1 of matching files, closest ones first, or {@code null} if the remote index is not
+     *         available
+     */
+    public List<String> findSha1ByNearPhashAndMime(String phash, String mime) {
+        try {
+            return Arrays.asList(
+                    exchange(remoteApplication + "/hashAssociation/nearDuplicates?phash={phash}&mime={mime}", GET,
+                            String[].class, null, phash, mime).getBody());
+        } catch (BadGateway | ServiceUnavailable | ResourceAccessException e) {
+            LOGGER.debug("Remote perceptual hash index not available: {}", e.getMessage());
+            return null;
+        }
+    }
+
     public void saveMedia(String orgId, Media media) {
         exchange(String.join("/", restOrgEndpoint(orgId), "media", media.getIdUsedInOrg()), PUT, String.class, media);
     }
@@ -1,23 +1,96 @@
 package org.wikimedia.commons.donvip.spacemedia.service;
 
+import static java.util.Objects.requireNonNull;
+
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.WithKeywords;
+import org.wikimedia.commons.donvip.spacemedia.service.orgs.AbstractOrgService;
+import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.GlitchTip;
 import org.wikimedia.commons.donvip.spacemedia.utils.CsvHelper;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+/**
+ * Full-text search of media, backed by an embedded Lucene index stored on disk. The index covers title, description,
+ * keywords and credits of media of all organizations, and is kept in sync by {@code MediaListener}. Terms of
+ * {@code search.ignored.terms.csv} are not indexed.
+ * <p>
+ * Lucene allows a single writer per index directory, so search is only enabled in the web app. Media saved by update
+ * jobs are indexed by the web app, which periodically catches up with media updated since its last catch-up. Media
+ * deleted by update jobs leave no trace in the database, so the web app also periodically sweeps the index for media
+ * that no longer exist.
+ */
 @Lazy
 @Service
 public class SearchService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchService.class);
+
+    private static final String KEY = "key";
+    private static final String ID = "id";
+    private static final String REPO = "repo";
+    private static final String TYPE = "type";
+    private static final String TEXT = "text";
+    private static final String INDEXED_UNTIL = "indexedUntil";
+
     @Autowired
     @PersistenceContext(unitName = "domain")
     private EntityManager entityManager;
@@ -25,12 +98,44 @@ public class SearchService {
     @Value("${search.enabled}")
     private boolean searchEnabled;
 
-    @SuppressWarnings("unused")
+    @Value("${search.index.dir:search-index}")
+    private Path indexDir;
+
+    @Value("${search.index.commit.interval:1000}")
+    private int commitInterval;
+
+    @Value("${search.catch-up.overlap.minutes:10}")
+    private int catchUpOverlapMinutes;
+
+    @Autowired
+    private ObjectProvider<AbstractOrgService<?>> orgs;
+
     private Set<String> ignoredCommonTerms;
 
+    private Analyzer analyzer;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private final AtomicInteger uncommittedChanges = new AtomicInteger();
+
     @PostConstruct
     void init() throws IOException {
         ignoredCommonTerms = CsvHelper.loadSet(getClass().getResource("/lists/search.ignored.terms.csv"));
+        if (searchEnabled) {
+            analyzer = new StandardAnalyzer(new CharArraySet(ignoredCommonTerms, true));
+            writer = new IndexWriter(FSDirectory.open(indexDir),
+                    new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            searcherManager = new SearcherManager(writer, null);
+            LOGGER.info("Opened search index {} with {} documents", indexDir, writer.getDocStats().numDocs);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (writer != null) {
+            searcherManager.close();
+            writer.close();
+            writer = null;
+        }
     }
 
     public boolean isSearchEnabled() {
@@ -42,4 +147,283 @@ public class SearchService {
             throw new UnsupportedOperationException("Search is disabled");
         }
     }
+
+    /**
+     * Adds or replaces the given media in the search index once the current transaction is committed, so that rolled
+     * back changes are not indexed. Outside of a transaction, the media is indexed immediately.
+     *
+     * @param media media to index
+     */
+    public void indexAfterCommit(Media media) {
+        afterCommit(() -> index(media));
+    }
+
+    /**
+     * Removes the given media from the search index once the current transaction is committed. Outside of a
+     * transaction, the media is removed immediately.
+     *
+     * @param media media to remove
+     */
+    public void deleteAfterCommit(Media media) {
+        afterCommit(() -> delete(media));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Adds or replaces the given media in the search index.
+     *
+     * @param media media to index
+     */
+    public void index(Media media) {
+        if (writer != null && media.getId() != null) {
+            try {
+                writer.updateDocument(key(media), toDocument(media));
+                changed();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Failed to index {}: {}", media.getId(), e.getMessage());
+                GlitchTip.capture(e);
+            }
+        }
+    }
+
+    /**
+     * Removes the given media from the search index.
+     *
+     * @param media media to remove
+     */
+    public void delete(Media media) {
+        if (writer != null && media.getId() != null) {
+            try {
+                writer.deleteDocuments(key(media));
+                changed();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Failed to unindex {}: {}", media.getId(), e.getMessage());
+                GlitchTip.capture(e);
+            }
+        }
+    }
+
+    /**
+     * Removes from the index the media of the given type and repositories that no longer exist.
+     *
+     * @param type     media class, or one of its superclasses
+     * @param repoIds  repository identifiers
+     * @param existing returns, among the given media ids of a repository, those of existing media
+     * @return the number of removed media
+     */
+    public int deleteMissing(Class<? extends Media> type, Set<String> repoIds,
+            BiFunction<String, Collection<String>, Set<String>> existing) {
+        checkSearchEnabled();
+        int deleted = 0;
+        try {
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                Query query = new ConstantScoreQuery(filter(type, repoIds));
+                StoredFields storedFields = searcher.storedFields();
+                ScoreDoc after = null;
+                TopDocs top;
+                do {
+                    top = searcher.searchAfter(after, query, 1000);
+                    Map<String, Map<String, String>> keysByRepo = new HashMap<>();
+                    for (ScoreDoc hit : top.scoreDocs) {
+                        Document doc = storedFields.document(hit.doc, Set.of(KEY, ID));
+                        CompositeMediaId id = new CompositeMediaId(doc.get(ID));
+                        keysByRepo.computeIfAbsent(id.getRepoId(), x -> new HashMap<>()).put(id.getMediaId(),
+                                doc.get(KEY));
+                        after = hit;
+                    }
+                    for (Map.Entry<String, Map<String, String>> e : keysByRepo.entrySet()) {
+                        Map<String, String> keys = new HashMap<>(e.getValue());
+                        keys.keySet().removeAll(existing.apply(e.getKey(), e.getValue().keySet()));
+                        for (String key : keys.values()) {
+                            writer.deleteDocuments(new Term(KEY, key));
+                            changed();
+                            deleted++;
+                        }
+                    }
+                } while (top.scoreDocs.length == 1000);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return deleted;
+    }
+
+    /**
+     * Searches media of the given type and repositories.
+     *
+     * @param type    media class, or one of its superclasses
+     * @param repoIds repository identifiers
+     * @param q       user query. Terms are required by default. Supports {@code "phrases"}, {@code -negation},
+     *                {@code prefix*} and {@code a | b}
+     * @param page    requested page
+     * @return identifiers of matching media, by decreasing relevance
+     */
+    public Page<CompositeMediaId> search(Class<? extends Media> type, Set<String> repoIds, String q, Pageable page) {
+        checkSearchEnabled();
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, TEXT);
+        parser.setDefaultOperator(Occur.MUST);
+        Query text = parser.parse(q);
+        if (text == null) {
+            return Page.empty(page);
+        }
+        Query query = new BooleanQuery.Builder().add(text, Occur.MUST)
+                .add(new TermQuery(new Term(TYPE, type.getName())), Occur.FILTER)
+                .add(new TermInSetQuery(REPO, repoIds.stream().map(BytesRef::new).toList()), Occur.FILTER).build();
+        try {
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                int offset = page.isPaged() ? (int) page.getOffset() : 0;
+                TopDocs top = searcher.search(query,
+                        page.isPaged() ? offset + page.getPageSize() : Math.max(1, searcher.count(query)));
+                List<CompositeMediaId> ids = new ArrayList<>();
+                for (int i = offset; i < top.scoreDocs.length; i++) {
+                    ScoreDoc hit = top.scoreDocs[i];
+                    ids.add(new CompositeMediaId(searcher.storedFields().document(hit.doc).get(ID)));
+                }
+                return page.isPaged() ? new PageImpl<>(ids, page, top.totalHits.value) : new PageImpl<>(ids);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the number of indexed media of the given type and repositories.
+     *
+     * @param type    media class, or one of its superclasses
+     * @param repoIds repository identifiers
+     * @return the number of indexed media of the given type and repositories
+     */
+    public int count(Class<? extends Media> type, Collection<String> repoIds) {
+        checkSearchEnabled();
+        try {
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return searcher.count(filter(type, repoIds));
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Commits pending changes to disk.
+     */
+    public void commit() {
+        if (writer != null) {
+            try {
+                uncommittedChanges.set(0);
+                writer.commit();
+            } catch (IOException e) {
+                LOGGER.error("Failed to commit search index: {}", e.getMessage());
+                GlitchTip.capture(e);
+            }
+        }
+    }
+
+    /**
+     * Indexes media saved by other processes since the last catch-up. Starts from the date of the first catch-up,
+     * the index of existing media being built by {@code /reindex}. The last catch-up is stored in index commit data,
+     * with an overlap covering transactions committed after the catch-up that saved media before it.
+     */
+    @Scheduled(fixedDelayString = "${search.catch-up.delay:PT5M}", initialDelayString = "${search.catch-up.initial.delay:PT1M}")
+    public void catchUp() {
+        if (writer != null) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime since = getIndexedUntil().map(x -> x.minusMinutes(catchUpOverlapMinutes)).orElse(now);
+            orgs.orderedStream().forEach(org -> {
+                try {
+                    org.reindexMediaUpdatedSince(since);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Failed to index media of {} updated since {}", org.getId(), since, e);
+                    GlitchTip.capture(e);
+                }
+            });
+            writer.setLiveCommitData(Map.of(INDEXED_UNTIL, now.toString()).entrySet());
+            commit();
+        }
+    }
+
+    /**
+     * Removes media deleted by other processes, such as update jobs, from the index.
+     */
+    @Scheduled(fixedDelayString = "${search.sweep.delay:PT6H}", initialDelayString = "${search.sweep.initial.delay:PT30M}")
+    public void sweep() {
+        if (writer != null) {
+            orgs.orderedStream().forEach(org -> {
+                try {
+                    org.unindexDeletedMedia();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Failed to remove deleted media of {} from index", org.getId(), e);
+                    GlitchTip.capture(e);
+                }
+            });
+            commit();
+        }
+    }
+
+    Optional<LocalDateTime> getIndexedUntil() {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> e : commitData) {
+                if (INDEXED_UNTIL.equals(e.getKey())) {
+                    return Optional.of(LocalDateTime.parse(e.getValue()));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void changed() {
+        if (uncommittedChanges.incrementAndGet() >= commitInterval) {
+            commit();
+        }
+    }
+
+    private static Query filter(Class<? extends Media> type, Collection<String> repoIds) {
+        return new BooleanQuery.Builder().add(new TermQuery(new Term(TYPE, type.getName())), Occur.FILTER)
+                .add(new TermInSetQuery(REPO, repoIds.stream().map(BytesRef::new).toList()), Occur.FILTER).build();
+    }
+
+    private static Term key(Media media) {
+        return new Term(KEY, Hibernate.getClass(media).getName() + '|' + media.getId());
+    }
+
+    private static Document toDocument(Media media) {
+        Document doc = new Document();
+        // Stored, so that the sweep can remove documents of deleted media
+        doc.add(new StringField(KEY, key(media).text(), Field.Store.YES));
+        doc.add(new StoredField(ID, media.getId().toString()));
+        doc.add(new StringField(REPO, requireNonNull(media.getId().getRepoId()), Field.Store.NO));
+        for (Class<?> c = Hibernate.getClass(media); c != null && Media.class.isAssignableFrom(c); c = c.getSuperclass()) {
+            doc.add(new StringField(TYPE, c.getName(), Field.Store.NO));
+        }
+        Stream.concat(Stream.of(media.getTitle(), media.getDescription(), media.getCredits()),
+                media instanceof WithKeywords kw && kw.getKeywords() != null ? kw.getKeywords().stream()
+                        : Stream.empty())
+                .filter(x -> x != null && !x.isBlank()).forEach(x -> doc.add(new TextField(TEXT, x, Field.Store.NO)));
+        return doc;
+    }
 }
@@ -1,21 +1,142 @@
 package org.wikimedia.commons.donvip.spacemedia.service;
 
+import static java.util.Optional.ofNullable;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.Statistics;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaCounts;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaRepository;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RepoStatistics;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RepoStatisticsRepository;
 import org.wikimedia.commons.donvip.spacemedia.service.orgs.AbstractOrgService;
+import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.GlitchTip;
 
+/**
+ * Statistics of orgs, read from counters materialized by repository. Counters are updated by difference each time a
+ * media is saved or deleted, and recomputed periodically from the media tables.
+ */
 @Lazy
 @Service
 public class StatsService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatsService.class);
+
     @Autowired
     private List<AbstractOrgService<?>> orgs;
 
+    @Autowired
+    private RepoStatisticsRepository repository;
+
     public List<Statistics> getStats(boolean details) {
-        return orgs.parallelStream().map(a -> a.getStatistics(details)).sorted().toList();
+        return orgs.stream().map(a -> a.getStatistics(details)).sorted().toList();
+    }
+
+    /**
+     * Returns the statistics counters of the given repositories. Counters never computed before are computed first.
+     *
+     * @param repoIds         repository identifiers
+     * @param mediaRepository media repository, used to compute missing counters
+     * @return the statistics counters of the given repositories, sorted by repository identifier
+     */
+    public Map<String, MediaCounts> getCounts(Set<String> repoIds, MediaRepository<?> mediaRepository) {
+        Map<String, MediaCounts> result = new TreeMap<>();
+        repository.findByRepoIdIn(repoIds).forEach(s -> result.put(s.getRepoId(), s.getCounts()));
+        for (String repoId : repoIds) {
+            if (!result.containsKey(repoId)) {
+                result.put(repoId, reconcile(repoId, mediaRepository));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Recomputes the statistics counters of a repository from the media tables. The upload state of media is first
+     * recomputed from their files, which may have been uploaded or ignored through another media sharing them.
+     *
+     * @param repoId          repository identifier
+     * @param mediaRepository media repository
+     * @return the statistics counters of the given repository
+     */
+    public MediaCounts reconcile(String repoId, MediaRepository<?> mediaRepository) {
+        Set<String> singleton = Collections.singleton(repoId);
+        mediaRepository.updateUploadStates(singleton);
+        mediaRepository.evictCaches();
+        MediaCounts counts = new MediaCounts(mediaRepository.count(singleton),
+                mediaRepository.countUploadedToCommons(singleton),
+                mediaRepository.countByMetadata_IgnoredTrue(singleton),
+                mediaRepository.countMissingImagesInCommons(singleton),
+                mediaRepository.countMissingVideosInCommons(singleton),
+                mediaRepository.countMissingDocumentsInCommons(singleton),
+                mediaRepository.countByMetadata_PhashNotNull(singleton));
+        RepoStatistics old = repository.findById(repoId).orElse(null);
+        if (old != null && !old.getCounts().equals(counts)) {
+            LOGGER.warn("Statistics of {} drifted by {}", repoId, counts.minus(old.getCounts()));
+        }
+        repository.save(new RepoStatistics(repoId, counts, LocalDateTime.now()));
+        return counts;
+    }
+
+    /**
+     * Recomputes the statistics counters of all orgs from the media tables, to correct the drift caused by media
+     * modified outside of {@link #mediaSaved} and {@link #mediaDeleted}.
+     */
+    @Scheduled(fixedDelayString = "${stats.reconciliation.delay:PT6H}", initialDelayString = "${stats.reconciliation.initial.delay:PT15M}")
+    public void reconcile() {
+        for (AbstractOrgService<?> org : orgs) {
+            try {
+                org.reconcileStatistics();
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to reconcile statistics of {}", org.getId(), e);
+                GlitchTip.capture(e);
+            }
+        }
+    }
+
+    /**
+     * Updates the statistics counters of the repository of a saved media, by difference with its counters when it was
+     * loaded.
+     *
+     * @param media media given to the repository
+     * @param saved media returned by the repository
+     */
+    public void mediaSaved(Media media, Media saved) {
+        MediaCounts before = ofNullable(media.getSavedCounts()).or(() -> ofNullable(saved.getSavedCounts()))
+                .orElse(MediaCounts.ZERO);
+        MediaCounts after = MediaCounts.of(saved);
+        increment(saved.getId().getRepoId(), after.minus(before));
+        media.setSavedCounts(after);
+        saved.setSavedCounts(after);
+    }
+
+    /**
+     * Updates the statistics counters of the repository of a deleted media.
+     *
+     * @param media deleted media
+     */
+    public void mediaDeleted(Media media) {
+        increment(media.getId().getRepoId(),
+                MediaCounts.ZERO.minus(ofNullable(media.getSavedCounts()).orElseGet(() -> MediaCounts.of(media))));
+        media.setSavedCounts(null);
+    }
+
+    private void increment(String repoId, MediaCounts delta) {
+        if (!delta.isZero() && repository.increment(repoId, delta.totalMedia(), delta.uploadedMedia(),
+                delta.ignoredMedia(), delta.missingImages(), delta.missingVideos(), delta.missingDocuments(),
+                delta.hashedMedia()) == 0) {
+            LOGGER.debug("No statistics yet for {}, they will be computed on first access", repoId);
+        }
     }
 }
@@ -67,12 +67,18 @@ public class DvidsMediaProcessorService {
     @Autowired
     private DvidsWebcastRepository webcastRepository;
 
+    /**
+     * Fetches, updates and uploads a DVIDS media. Uploaded media are saved right away, as they are handed back to the
+     * caller. Other media are given to {@code saveLater}, so that they can be saved together with other media.
+     * Returns the media and the number of uploaded files.
+     */
     @Transactional
     public Pair<DvidsMedia, Integer> processDvidsMedia(Supplier<Optional<DvidsMedia>> dbFetcher,
             Supplier<DvidsMedia> apiFetcher, Predicate<DvidsMedia> processDvidsMediaUpdater,
             Consumer<DvidsMedia> checkRemoteMedia,
             BiPredicate<DvidsMedia, Boolean> shouldUploadAuto,
-            Function<DvidsMedia, Triple<DvidsMedia, Collection<FileMetadata>, Integer>> uploader) {
+            Function<DvidsMedia, Triple<DvidsMedia, Collection<FileMetadata>, Integer>> uploader,
+            Consumer<DvidsMedia> saveLater) {
         DvidsMedia media = null;
         boolean save = false;
         Optional<DvidsMedia> mediaInDb = dbFetcher.get();
@@ -84,14 +90,14 @@ public class DvidsMediaProcessorService {
             save = true;
         }
         save |= processDvidsMediaUpdater.test(media);
-        int uploadCount = 0;
         if (shouldUploadAuto.test(media, false)) {
             Triple<DvidsMedia, Collection<FileMetadata>, Integer> upload = uploader.apply(media);
-            uploadCount = upload.getRight();
-            media = upload.getLeft();
-            save = true;
+            return Pair.of(saveAndCheckRemoteMedia(upload.getLeft(), checkRemoteMedia), upload.getRight());
+        }
+        if (save) {
+            saveLater.accept(truncateVirin(media));
         }
-        return Pair.of(save ? saveAndCheckRemoteMedia(media, checkRemoteMedia) : media, uploadCount);
+        return Pair.of(media, 0);
     }
 
     protected boolean updateCategoryAndCdnUrls(DvidsMedia media, Supplier<DvidsMedia> apiFetcher) {
@@ -115,11 +121,16 @@ public class DvidsMediaProcessorService {
         return false;
     }
 
-    private DvidsMedia save(DvidsMedia media) {
+    private static DvidsMedia truncateVirin(DvidsMedia media) {
         if (media.getVirin() != null && media.getVirin().length() > 20) {
             LOGGER.warn("VIRIN too long for {}", media);
             media.setVirin(media.getVirin().substring(0, 20));
         }
+        return media;
+    }
+
+    private DvidsMedia save(DvidsMedia media) {
+        truncateVirin(media);
         switch (media.getMediaType()) {
         case image:
             return imageRepository.save((DvidsImage) media);
@@ -10,6 +10,8 @@ import java.util.NoSuchElementException;
 import java.util.TreeMap;
 import java.util.function.Consumer;
 
+import javax.annotation.PostConstruct;
+
 import org.apache.commons.lang3.function.TriFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +30,7 @@ import org.wikimedia.commons.donvip.spacemedia.data.domain.dvids.api.ApiPageInfo
 import org.wikimedia.commons.donvip.spacemedia.data.domain.dvids.api.ApiSearchResponse;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.dvids.api.ApiUnitResponse;
 import org.wikimedia.commons.donvip.spacemedia.exception.ApiException;
+import org.wikimedia.commons.donvip.spacemedia.utils.TokenBucket;
 
 /**
  * Service fetching images from https://api.dvidshub.net/
@@ -57,10 +60,24 @@ public class DvidsService {
     @Value("${dvids.api.unit.url}")
     private UriTemplate unitApiEndpoint;
 
+    /**
+     * DVIDS API calls budget per second, shared by all threads and organizations. Non-positive to disable.
+     */
+    @Value("${dvids.api.rate.per.second:4}")
+    private double apiRatePerSecond;
+
     private final RestTemplate rest = new RestTemplate();
 
+    private TokenBucket apiRateBudget;
+
+    @PostConstruct
+    void init() {
+        apiRateBudget = new TokenBucket(apiRatePerSecond, (int) Math.ceil(apiRatePerSecond));
+    }
+
     public DvidsMedia getMediaFromApi(CompositeMediaId id,
             TriFunction<DvidsMedia, URL, Consumer<FileMetadata>, FileMetadata> addMetadata) {
+        apiRateBudget.acquire();
         DvidsMedia media = ofNullable(
                 rest.getForObject(assetApiEndpoint.expand(Map.of(API_KEY, apiKey, "id", id.getMediaId())),
                         ApiAssetResponse.class))
@@ -92,6 +109,7 @@ public class DvidsService {
         }
         URI uri = new UriTemplate(template).expand(variables);
         LOGGER.debug("{}", uri);
+        apiRateBudget.acquire();
         ApiSearchResponse response = rest.getForObject(uri, ApiSearchResponse.class);
         if (response == null || response.getErrors() != null) {
             throw new ApiException(
@@ -114,6 +132,7 @@ public class DvidsService {
     @Cacheable("unitAbbrByFullName")
     public String getUnitAbbreviation(String unitFullName) {
         try {
+            apiRateBudget.acquire();
             return ofNullable(rest.getForObject(
                     unitApiEndpoint.expand(Map.of(API_KEY, apiKey, "unit_name", requireNonNull(unitFullName))),
                     ApiUnitResponse.class))
@@ -26,7 +26,6 @@ import org.apache.commons.lang3.function.TriFunction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -66,6 +65,8 @@ public class FlickrMediaProcessorService {
     protected FlickrService flickrService;
     @Autowired
     protected MediaService mediaService;
+    @Autowired
+    private CloseableHttpClient httpClient;
 
     @Value("${flickr.video.download.url}")
     private String flickrVideoDownloadUrl;
@@ -89,7 +90,7 @@ public class FlickrMediaProcessorService {
     }
 
     @Transactional
-    public Pair<FlickrMedia, Integer> processFlickrMedia(FlickrMedia media, String flickrAccount,
+    public Pair<FlickrMedia, Integer> processFlickrMedia(String orgId, FlickrMedia media, String flickrAccount,
             Supplier<Collection<Pattern>> patternsToRemove, Supplier<Collection<String>> stringsToRemove,
             BiPredicate<FlickrMedia, Boolean> shouldUploadAuto,
             Function<FlickrMedia, Triple<FlickrMedia, Collection<FileMetadata>, Integer>> uploader,
@@ -154,12 +155,10 @@ public class FlickrMediaProcessorService {
         }
         media = saveMediaAndPhotosetsIfNeeded(media, save, savePhotoSets, isPresentInDb, saver);
         savePhotoSets = false;
-        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-            save = mediaService
-                    .updateMedia(new MediaUpdateContext<>(media, null, urlResolver, httpClient, null, false, false),
-                            patternsToRemove.get(), stringsToRemove.get(), similarCandidateMedia, checkAllowlist, checkBlocklist)
-                    .result();
-        }
+        save = mediaService
+                .updateMedia(new MediaUpdateContext<>(orgId, media, null, urlResolver, httpClient, null, false, false),
+                        patternsToRemove.get(), stringsToRemove.get(), similarCandidateMedia, checkAllowlist, checkBlocklist)
+                .result();
         int uploadCount = 0;
         if (shouldUploadAuto.test(media, false) && (videosEnabled || !media.isVideo())) {
             Triple<FlickrMedia, Collection<FileMetadata>, Integer> upload = uploader.apply(media);
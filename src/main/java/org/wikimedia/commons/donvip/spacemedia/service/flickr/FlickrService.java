@@ -12,6 +12,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -82,6 +83,22 @@ public class FlickrService {
 
     public List<Photo> searchPhotos(String userId, LocalDate minUploadDate, boolean includeAll) throws FlickrException {
         List<Photo> result = new ArrayList<>();
+        searchPhotos(userId, minUploadDate, includeAll, result::addAll);
+        return result;
+    }
+
+    /**
+     * Searches photos of a Flickr user, and hands them page by page to the given consumer, so that each page can be
+     * processed before the next one is fetched.
+     *
+     * @param userId        Flickr user identifier
+     * @param minUploadDate minimum upload date, can be null
+     * @param includeAll    whether to include photos under non-free licences
+     * @param pageConsumer  consumer of each page of photos
+     * @throws FlickrException if a Flickr error occurs
+     */
+    public void searchPhotos(String userId, LocalDate minUploadDate, boolean includeAll,
+            Consumer<List<Photo>> pageConsumer) throws FlickrException {
         SearchParameters params = new SearchParameters();
         params.setUserId(Objects.requireNonNull(userId));
         params.setExtras(EXTRAS);
@@ -97,10 +114,11 @@ public class FlickrService {
             int page = 1;
             do {
                 photos = flickr.getPhotosInterface().search(params, MAX_PER_PAGE, page++);
-                result.addAll(photos);
+                if (!photos.isEmpty()) {
+                    pageConsumer.accept(photos);
+                }
             } while (photos.getPage() < photos.getPages());
         }
-        return result;
     }
 
     public List<PhotoSet> findPhotoSets(String photoId) throws FlickrException {
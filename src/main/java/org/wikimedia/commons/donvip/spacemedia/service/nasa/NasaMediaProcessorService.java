@@ -1,17 +1,15 @@
 package org.wikimedia.commons.donvip.spacemedia.service.nasa;
 
-import static java.time.LocalDateTime.now;
-import static java.time.temporal.ChronoUnit.MILLIS;
 import static java.util.Collections.singleton;
 import static java.util.stream.Collectors.toSet;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newURL;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.restTemplateSupportingAll;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.urlToUri;
 
+import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -24,10 +22,13 @@ import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
+import javax.annotation.PostConstruct;
+
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.function.TriFunction;
 import org.apache.commons.lang3.tuple.Pair;
@@ -61,7 +62,7 @@ import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaResp
 import org.wikimedia.commons.donvip.spacemedia.service.MediaService;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.GlitchTip;
 import org.wikimedia.commons.donvip.spacemedia.utils.Geo;
-import org.wikimedia.commons.donvip.spacemedia.utils.Utils;
+import org.wikimedia.commons.donvip.spacemedia.utils.TokenBucket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -105,35 +106,36 @@ public class NasaMediaProcessorService {
     @Autowired
     private ObjectMapper jackson;
 
-    private LocalDateTime lastRequest;
+    private final TokenBucket apiRateBudget = new TokenBucket(1000d / DELAY, 1);
+
+    // NASA website can return application/octet-stream instead of application/json
+    private RestTemplate restExif;
+
+    @PostConstruct
+    void init() {
+        restExif = restTemplateSupportingAll(jackson);
+    }
 
     /**
      * Makes sure the service complies with api.nasa.gov hourly limit of 1,000
-     * requests per hour
+     * requests per hour, shared by all threads
      */
     void ensureApiLimit() {
-        LocalDateTime fourSecondsAgo = now().minus(DELAY, ChronoUnit.MILLIS);
-        if (lastRequest != null && lastRequest.isAfter(fourSecondsAgo)) {
-            long millis = MILLIS.between(now(), lastRequest.plus(DELAY, ChronoUnit.MILLIS));
-            LOGGER.info("Sleeping {} ms to conform to NASA API limit policy", millis);
-            Utils.sleep(millis);
-        }
-        lastRequest = now();
+        apiRateBudget.acquire();
     }
 
     @Transactional
     public <T extends NasaMedia> String processSearchResults(RestTemplate rest, String searchUrl,
-            Collection<T> uploadedMedia, Counter counter, String who, Set<CompositeMediaId> foundIds,
+            Collection<T> uploadedMedia, Counter counter, String who, Consumer<CompositeMediaId> foundIds,
             TriConsumer<LocalDateTime, String, Integer> ongoingUpdateMedia,
-            Predicate<NasaMedia> doCommonUpdate, BiPredicate<NasaMedia, Boolean> shouldUploadAuto,
+            BiPredicate<NasaMedia, Set<String>> doCommonUpdate, BiPredicate<NasaMedia, Boolean> shouldUploadAuto,
             BiConsumer<URL, Throwable> problem, UnaryOperator<NasaMedia> saveMedia,
             BiFunction<Boolean, NasaMedia, NasaMedia> saveMediaOrCheckRemote,
             TriFunction<NasaMedia, Boolean, Boolean, Triple<NasaMedia, Collection<FileMetadata>, Integer>> uploader) {
         LocalDateTime start = LocalDateTime.now();
-        // NASA website can return application/octet-stream instead of application/json
-        RestTemplate restExif = restTemplateSupportingAll(jackson);
         boolean ok = false;
         int count = 0;
+        RestClientException lastError = null;
         for (int i = 0; i < maxTries && !ok; i++) {
             try {
                 ensureApiLimit();
@@ -141,18 +143,18 @@ public class NasaMediaProcessorService {
                 NasaCollection collection = rest.getForObject(searchUrl, NasaResponse.class).getCollection();
                 List<NasaItem> items = collection.getItems();
                 ok = true;
+                Set<String> sha1LookedUp = findCommonsFilesWithSha1(items);
                 for (NasaItem item : items) {
                     try {
                         Pair<NasaMedia, Integer> update = processMedia(rest, restExif, item.getData().get(0),
-                                item.getHref(),
-                                doCommonUpdate, shouldUploadAuto, problem, saveMedia, saveMediaOrCheckRemote, uploader);
+                                item.getHref(), media -> doCommonUpdate.test(media, sha1LookedUp), shouldUploadAuto, problem, saveMedia, saveMediaOrCheckRemote, uploader);
                         @SuppressWarnings("unchecked")
                         T media = (T) update.getKey();
                         if (update.getValue() > 0) {
                             uploadedMedia.add(media);
                         }
                         if (foundIds != null) {
-                            foundIds.add(media.getId());
+                            foundIds.accept(media.getId());
                         }
                         ongoingUpdateMedia.accept(start, who, count++);
                         counter.count++;
@@ -183,11 +185,33 @@ public class NasaMediaProcessorService {
             } catch (RestClientException e) {
                 LOGGER.error("Unable to process search results for {}", searchUrl, e);
                 GlitchTip.capture(e);
+                lastError = e;
             }
         }
+        if (!ok && lastError != null) {
+            throw lastError;
+        }
         return null;
     }
 
+    /**
+     * Looks for Commons files of all known media of a search results page at once. Media are loaded in the
+     * persistence context of the page, so that they are not loaded again one by one.
+     */
+    private Set<String> findCommonsFilesWithSha1(List<NasaItem> items) {
+        try {
+            return mediaService.findCommonsFilesWithSha1OfMedia(repository.findAllById(items.stream().map(item -> {
+                NasaMedia media = item.getData().get(0);
+                setId(media);
+                return media.getId();
+            }).toList()));
+        } catch (IOException e) {
+            LOGGER.error("Failed to look for Commons files of {} media", items.size(), e);
+            GlitchTip.capture(e);
+            return Set.of();
+        }
+    }
+
     public void setId(NasaMedia media) {
         media.setId(new CompositeMediaId(media.getCenter(), media.getNasaId()));
     }
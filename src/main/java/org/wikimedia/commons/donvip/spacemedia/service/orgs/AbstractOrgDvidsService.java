@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,16 +31,16 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpClientErrorException.BadRequest;
@@ -48,6 +49,9 @@ import org.springframework.web.client.HttpClientErrorException.NotFound;
 import org.springframework.web.util.UriTemplate;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaKeyset;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeData;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.dvids.DvidsLocation;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.dvids.DvidsMedia;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.dvids.DvidsMediaRepository;
@@ -76,6 +80,8 @@ public abstract class AbstractOrgDvidsService extends AbstractOrgService<DvidsMe
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractOrgDvidsService.class);
 
+    private static final String DVIDS_API_HOST = "api.dvidshub.net";
+
     protected static final Map<String, String> KEYWORDS_CATS = loadCsvMapping(
             AbstractOrgDvidsService.class, "dvids.keywords.csv");
 
@@ -140,36 +146,71 @@ public abstract class AbstractOrgDvidsService extends AbstractOrgService<DvidsMe
         LocalDateTime start = startUpdateMedia();
         Set<String> idsKnownToDvidsApi = new HashSet<>();
         List<DvidsMedia> uploadedMedia = new ArrayList<>();
-        int count = 0;
-        LocalDate doNotFetchEarlierThan = getRuntimeData().getDoNotFetchEarlierThan();
+        RuntimeData runtimeData = getRuntimeData();
+        LocalDate doNotFetchEarlierThan = runtimeData.getDoNotFetchEarlierThan();
+        Set<String> completed = new LinkedHashSet<>();
+        if (isNotBlank(runtimeData.getCheckpoint())) {
+            runtimeData.getCheckpoint().lines().forEach(completed::add);
+            LOGGER.info("Resuming interrupted {} update: {} partitions already completed", getId(), completed.size());
+        }
+        List<DvidsPartition> partitions = new ArrayList<>();
         for (int year = LocalDateTime.now().getYear(); year >= minYear
                 && (doNotFetchEarlierThan == null || year >= doNotFetchEarlierThan.getYear()); year--) {
             for (int month = year == Year.now().getValue() ? YearMonth.now().getMonthValue() : 12; month > 0; month--) {
                 for (int day : getDays(year, month)) {
                     for (String unit : getRepoIdsFromArgs(args)) {
                         for (String country : countries) {
-                            Pair<Integer, Collection<DvidsMedia>> update = updateDvidsMedia(unit, country, year,
-                                    month, day, DvidsMediaType.image, idsKnownToDvidsApi);
-                            uploadedMedia.addAll(update.getRight());
-                            count += update.getLeft();
-                            ongoingUpdateMedia(start, count);
+                            partitions.add(new DvidsPartition(unit, country, year, month, day, DvidsMediaType.image));
                             if (videosEnabled) {
-                                update = updateDvidsMedia(unit, country, year, month, day, DvidsMediaType.video,
-                                        idsKnownToDvidsApi);
-                                uploadedMedia.addAll(update.getRight());
-                                count += update.getLeft();
-                                ongoingUpdateMedia(start, count);
+                                partitions.add(
+                                        new DvidsPartition(unit, country, year, month, day, DvidsMediaType.video));
                             }
                         }
                     }
                 }
             }
         }
-        if (doNotFetchEarlierThan == null) {
+        boolean resumed = partitions.removeIf(p -> completed.contains(p.key()));
+        int[] count = { 0 };
+        LocalDateTime[] lastCheckpoint = { LocalDateTime.now() };
+        List<DvidsPartition> failedPartitions = new ArrayList<>();
+        try (MediaUpdateExecutor<DvidsPartition, DvidsPartitionResult> executor = newMediaUpdateExecutor()) {
+            executor.run(partitions, p -> DVIDS_API_HOST, this::updateDvidsMedia, (result, n) -> {
+                // Merge results and checkpoint progress on the calling thread only
+                idsKnownToDvidsApi.addAll(result.idsKnownToDvidsApi());
+                uploadedMedia.addAll(result.uploadedMedia());
+                count[0] += result.count();
+                ongoingUpdateMedia(start, count[0]);
+                if (!result.complete()) {
+                    failedPartitions.add(result.partition());
+                } else if (result.partition().isCheckpointable()) {
+                    completed.add(result.partition().key());
+                    if (lastCheckpoint[0].isBefore(LocalDateTime.now().minusMinutes(1))) {
+                        saveCheckpoint(String.join("\n", completed));
+                        lastCheckpoint[0] = LocalDateTime.now();
+                    }
+                }
+            }, (p, e) -> {
+                LOGGER.error("Error while fetching DVIDS {}: {}", p, smartExceptionLog(e));
+                GlitchTip.capture(e);
+                failedPartitions.add(p);
+            });
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            saveCheckpoint(String.join("\n", completed));
+            return;
+        }
+        saveCheckpoint(null);
+        if (!failedPartitions.isEmpty()) {
+            // Media of failed partitions are missing from known ids, they must not be deleted
+            LOGGER.warn("Not looking for deleted DVIDS media, {} partitions failed: {}", failedPartitions.size(),
+                    failedPartitions);
+        } else if (doNotFetchEarlierThan == null && !resumed) {
             // Only delete pictures not found in complete updates
             deleteOldDvidsMedia(idsKnownToDvidsApi);
         }
-        endUpdateMedia(count, uploadedMedia, allMetadata(uploadedMedia), start, LocalDate.now().minusYears(1), true);
+        endUpdateMedia(count[0], uploadedMedia, allMetadata(uploadedMedia), start, LocalDate.now().minusYears(1),
+                true);
     }
 
     protected int[] getDays(int year, int month) {
@@ -193,45 +234,60 @@ public abstract class AbstractOrgDvidsService extends AbstractOrgService<DvidsMe
         }
     }
 
-    private Pair<Integer, Collection<DvidsMedia>> updateDvidsMedia(String unit, String country, int year, int month, int day,
-            DvidsMediaType type, Set<String> idsKnownToDvidsApi) {
+    /**
+     * Processes all media of a partition, on a worker thread. Media are saved and uploaded by the worker itself:
+     * partitions do not overlap, so two workers never process the same media. Uploaded media are saved in the
+     * transaction of {@link DvidsMediaProcessorService#processDvidsMedia}, other media by batches through a
+     * write-behind buffer of the partition.
+     */
+    private DvidsPartitionResult updateDvidsMedia(DvidsPartition p) {
         List<DvidsMedia> uploadedMedia = new ArrayList<>();
+        Set<String> idsKnownToDvidsApi = new HashSet<>();
         int count = 0;
+        boolean complete = false;
         try {
             boolean loop = true;
             int page = 1;
             LocalDateTime start = LocalDateTime.now();
-            count = 0;
-            LOGGER.info("Fetching DVIDS {}s from unit '{}', country '{}' for {}-{}-{} (page {}/?)...", type, unit,
-                    country, year, month, day, page);
-            while (loop) {
-                DvidsUpdateResult ur = doUpdateDvidsMedia(
-                        dvids.searchDvidsMediaIds(type, unit, country, year, month, day, page++), unit);
-                idsKnownToDvidsApi.addAll(ur.idsKnownToDvidsApi);
-                uploadedMedia.addAll(ur.uploadedMedia);
-                count += ur.count;
-                ongoingUpdateMedia(start, unit, count);
-                loop = page <= ur.numberOfPages();
-                if (loop) {
-                    LOGGER.info("Fetching DVIDS {}s from unit '{}', country '{}' for {}-{}-{} (page {}/{})...", type,
-                            unit, country, year, month, day, page, ur.numberOfPages());
+            LOGGER.info("Fetching DVIDS {}s from unit '{}', country '{}' for {}-{}-{} (page {}/?)...", p.type(),
+                    p.unit(), p.country(), p.year(), p.month(), p.day(), page);
+            try (MediaWriteBehind<DvidsMedia> writeBehind = newMediaWriteBehind((media, e) -> {
+                LOGGER.error("Unable to save {}: {}", media, smartExceptionLog(e));
+                GlitchTip.capture(e);
+            })) {
+                while (loop) {
+                    DvidsUpdateResult ur = doUpdateDvidsMedia(dvids.searchDvidsMediaIds(p.type(), p.unit(),
+                            p.country(), p.year(), p.month(), p.day(), page++), p.unit(), writeBehind);
+                    idsKnownToDvidsApi.addAll(ur.idsKnownToDvidsApi);
+                    uploadedMedia.addAll(ur.uploadedMedia);
+                    count += ur.count;
+                    ongoingUpdateMedia(start, p.unit(), count);
+                    loop = page <= ur.numberOfPages();
+                    if (loop) {
+                        LOGGER.info("Fetching DVIDS {}s from unit '{}', country '{}' for {}-{}-{} (page {}/{})...",
+                                p.type(), p.unit(), p.country(), p.year(), p.month(), p.day(), page,
+                                ur.numberOfPages());
+                    }
                 }
             }
-            LOGGER.info("{}/{} {}s for {}-{}-{} completed: {} {}s in {}", unit, country, type, year, month, day, count,
-                    type, Utils.durationInSec(start));
+            complete = true;
+            LOGGER.info("{}/{} {}s for {}-{}-{} completed: {} {}s in {}", p.unit(), p.country(), p.type(), p.year(),
+                    p.month(), p.day(), count, p.type(), Utils.durationInSec(start));
         } catch (ApiException exx) {
-            LOGGER.error("Error while fetching DVIDS " + type + "s from unit " + unit + " / country " + country, exx);
+            LOGGER.error("Error while fetching DVIDS " + p.type() + "s from unit " + p.unit() + " / country "
+                    + p.country(), exx);
             GlitchTip.capture(exx);
         }
-        return Pair.of(count, uploadedMedia);
+        return new DvidsPartitionResult(p, count, uploadedMedia, idsKnownToDvidsApi, complete);
     }
 
-    private DvidsUpdateResult doUpdateDvidsMedia(ApiSearchResponse response, String unit) {
+    private DvidsUpdateResult doUpdateDvidsMedia(ApiSearchResponse response, String unit,
+            MediaWriteBehind<DvidsMedia> writeBehind) {
         int count = 0;
         LocalDateTime start = LocalDateTime.now();
         List<DvidsMedia> uploadedMedia = new ArrayList<>();
         Set<String> idsKnownToDvidsApi = new HashSet<>();
-        for (CompositeMediaId id : response.getResults().stream().map(x -> {
+        List<CompositeMediaId> ids = response.getResults().stream().map(x -> {
             try {
                 return x.toCompositeMediaId(unit, dvids);
             } catch (RuntimeException e) {
@@ -239,13 +295,16 @@ public abstract class AbstractOrgDvidsService extends AbstractOrgService<DvidsMe
                 LOGGER.trace("Failed to retrieve unit abbreviation for {}", x, e);
                 return null;
             }
-        }).filter(Objects::nonNull).distinct().sorted().toList()) {
+        }).filter(Objects::nonNull).distinct().sorted().toList();
+        // Look for Commons files of all known media of the page at once
+        Set<String> sha1LookedUp = findCommonsFilesWithSha1(repository.findAllById(ids));
+        for (CompositeMediaId id : ids) {
             try {
                 idsKnownToDvidsApi.add(id.getMediaId());
                 Pair<DvidsMedia, Integer> result = dvidsProcessor.processDvidsMedia(
                         () -> repository.findById(id), () -> dvids.getMediaFromApi(id, this::addMetadata),
-                        media -> processDvidsMediaUpdate(media, false).result(), this::checkRemoteMedia,
-                        this::shouldUploadAuto, this::uploadWrapped);
+                        media -> processDvidsMediaUpdate(media, false, sha1LookedUp).result(), this::checkRemoteMedia,
+                        this::shouldUploadAuto, this::uploadWrapped, writeBehind::save);
                 if (result.getValue() > 0) {
                     uploadedMedia.add(result.getKey());
                 }
@@ -265,6 +324,28 @@ public abstract class AbstractOrgDvidsService extends AbstractOrgService<DvidsMe
         return new DvidsUpdateResult(pi.resultsPerPage(), pi.totalResults(), count, uploadedMedia, idsKnownToDvidsApi);
     }
 
+    /**
+     * Unit of work of a DVIDS update: all media of a given type, unit and country for a given period.
+     */
+    static record DvidsPartition(String unit, String country, int year, int month, int day, DvidsMediaType type) {
+
+        String key() {
+            return String.join("/", type.name(), unit, country, Integer.toString(year), Integer.toString(month),
+                    Integer.toString(day));
+        }
+
+        /**
+         * Recent periods still receive new media, they are always fetched again when resuming an update.
+         */
+        boolean isCheckpointable() {
+            return YearMonth.of(year, month).isBefore(YearMonth.now().minusMonths(1));
+        }
+    }
+
+    private static record DvidsPartitionResult(DvidsPartition partition, int count,
+            Collection<DvidsMedia> uploadedMedia, Set<String> idsKnownToDvidsApi, boolean complete) {
+    }
+
     private static record DvidsUpdateResult(
             int resultsPerPage, int totalResults, int count, Collection<DvidsMedia> uploadedMedia,
             Set<String> idsKnownToDvidsApi) {
@@ -274,9 +355,11 @@ public abstract class AbstractOrgDvidsService extends AbstractOrgService<DvidsMe
         }
     }
 
-    private MediaUpdateResult<DvidsMedia> processDvidsMediaUpdate(DvidsMedia media, boolean forceUpdate) {
-        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-            MediaUpdateResult<DvidsMedia> commonUpdate = doCommonUpdate(media, httpClient, null, forceUpdate);
+    private MediaUpdateResult<DvidsMedia> processDvidsMediaUpdate(DvidsMedia media, boolean forceUpdate,
+            Set<String> sha1LookedUp) {
+        try {
+            MediaUpdateResult<DvidsMedia> commonUpdate = doCommonUpdate(media, httpClient, null, forceUpdate,
+                    sha1LookedUp);
             boolean save = commonUpdate.result();
             if (!media.isIgnored()) {
                 if (ignoredCategories.contains(media.getCategory())) {
@@ -294,9 +377,9 @@ public abstract class AbstractOrgDvidsService extends AbstractOrgService<DvidsMe
     }
 
     @Override
-    public final DvidsMedia refreshAndSave(DvidsMedia media) throws IOException {
+    protected final DvidsMedia refreshAndSave(DvidsMedia media, Set<String> sha1LookedUp) throws IOException {
         media = refresh(media);
-        Exception e = processDvidsMediaUpdate(media, true).exception();
+        Exception e = processDvidsMediaUpdate(media, true, sha1LookedUp).exception();
         if (e instanceof NotFound) {
             return deleteMedia(media, e);
         } else {
@@ -554,6 +637,36 @@ public abstract class AbstractOrgDvidsService extends AbstractOrgService<DvidsMe
         return star(getRepoIds()) ? byCountry.apply(countriesOr(set), criteria) : byRepo.apply(set, criteria);
     }
 
+    @Override
+    public Window<DvidsMedia> listMedia(MediaListing listing, String roc, KeysetScrollPosition position, int size) {
+        return star(getRepoIds())
+                ? MediaKeyset.scroll(keysetQueryByCountry(listing),
+                        countriesOr(isBlank(roc) ? getRepoIds() : Set.of(roc)), position, size)
+                : super.listMedia(listing, roc, position, size);
+    }
+
+    private MediaKeyset.Query<DvidsMedia> keysetQueryByCountry(MediaListing listing) {
+        return switch (listing) {
+        case ALL -> new MediaKeyset.Query<>(dvidsRepository::findAllByCountryOlderThan,
+                dvidsRepository::findAllByCountryNewerThan);
+        case MISSING -> new MediaKeyset.Query<>(dvidsRepository::findMissingInCommonsByCountryOlderThan,
+                dvidsRepository::findMissingInCommonsByCountryNewerThan);
+        case MISSING_IMAGES -> new MediaKeyset.Query<>(dvidsRepository::findMissingImagesInCommonsByCountryOlderThan,
+                dvidsRepository::findMissingImagesInCommonsByCountryNewerThan);
+        case MISSING_VIDEOS -> new MediaKeyset.Query<>(dvidsRepository::findMissingVideosInCommonsByCountryOlderThan,
+                dvidsRepository::findMissingVideosInCommonsByCountryNewerThan);
+        case MISSING_DOCUMENTS -> new MediaKeyset.Query<>(
+                dvidsRepository::findMissingDocumentsInCommonsByCountryOlderThan,
+                dvidsRepository::findMissingDocumentsInCommonsByCountryNewerThan);
+        case HASHED -> new MediaKeyset.Query<>(dvidsRepository::findByMetadata_PhashNotNullByCountryOlderThan,
+                dvidsRepository::findByMetadata_PhashNotNullByCountryNewerThan);
+        case UPLOADED -> new MediaKeyset.Query<>(dvidsRepository::findUploadedToCommonsByCountryOlderThan,
+                dvidsRepository::findUploadedToCommonsByCountryNewerThan);
+        case IGNORED -> new MediaKeyset.Query<>(dvidsRepository::findByMetadata_IgnoredTrueByCountryOlderThan,
+                dvidsRepository::findByMetadata_IgnoredTrueByCountryNewerThan);
+        };
+    }
+
     @Override
     public Iterable<DvidsMedia> listAllMedia() {
         return list(dvidsRepository::findAllByCountry, repository::findAll, getRepoIds());
@@ -13,8 +13,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,6 +29,7 @@ import java.util.regex.Pattern;
 import javax.annotation.PostConstruct;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -232,20 +236,33 @@ public abstract class AbstractOrgFlickrService extends AbstractOrgService<Flickr
         for (String flickrAccount : getRepoIdsFromArgs(args)) {
             try {
                 LOGGER.info("Fetching Flickr media from account '{}'...", flickrAccount);
-                List<FlickrMedia> freePictures = buildFlickrMediaList(
-                        flickrService.searchPhotos(flickrAccount, minUploadDate, includeAllLicences()), flickrAccount);
+                FlickrPhotoIds freePictures = new FlickrPhotoIds();
+                Collection<FlickrMedia> localUploadedImages = new ArrayList<>();
+                MutableInt localCount = new MutableInt();
+                LocalDateTime accountStart = LocalDateTime.now();
+                // Process and save each page before fetching the next one
+                flickrService.searchPhotos(flickrAccount, minUploadDate, includeAllLicences(), photos -> {
+                    List<FlickrMedia> medias = buildFlickrMediaList(photos, flickrAccount);
+                    medias.forEach(m -> freePictures.add(m.getId().getMediaId()));
+                    Pair<Integer, Collection<FlickrMedia>> result = processFlickrMedia(medias, flickrAccount,
+                            accountStart, localCount.intValue());
+                    localUploadedImages.addAll(result.getRight());
+                    localCount.add(result.getLeft());
+                });
                 LOGGER.info("Found {} free Flickr media for account '{}'", freePictures.size(), flickrAccount);
-                Pair<Integer, Collection<FlickrMedia>> result = processFlickrMedia(freePictures, flickrAccount);
-                Collection<FlickrMedia> localUploadedImages = result.getRight();
                 uploadedMedia.addAll(localUploadedImages);
-                count += result.getLeft();
+                count += localCount.intValue();
                 postSocialMedia(localUploadedImages,
                         localUploadedImages.stream().flatMap(FlickrMedia::getMetadataStream).toList());
                 if (minUploadDate == null) {
                     // Only delete pictures not found in complete updates
-                    Set<FlickrMedia> noLongerFreePictures = flickrRepository.findNotIn(Set.of(flickrAccount),
-                            freePictures.stream().map(m -> m.getId().getMediaId()).collect(toSet()));
-                    if (!noLongerFreePictures.isEmpty()) {
+                    freePictures.freeze();
+                    List<CompositeMediaId> noLongerFreeIds = flickrRepository.findMediaIds(Set.of(flickrAccount))
+                            .stream().filter(id -> !freePictures.contains(id))
+                            .map(id -> new CompositeMediaId(flickrAccount, id)).toList();
+                    if (!noLongerFreeIds.isEmpty()) {
+                        Set<FlickrMedia> noLongerFreePictures = new LinkedHashSet<>();
+                        flickrRepository.findAllById(noLongerFreeIds).forEach(noLongerFreePictures::add);
                         count += updateNoLongerFreeFlickrMedia(flickrAccount, noLongerFreePictures);
                     }
                 }
@@ -293,29 +310,33 @@ public abstract class AbstractOrgFlickrService extends AbstractOrgService<Flickr
     }
 
     private List<FlickrMedia> buildFlickrMediaList(List<Photo> photos, String flickrAccount) {
-        return photos.stream().map(x -> photoToFlickrMedia(x, flickrAccount)).toList();
+        // Resolve existing media of the whole page at once
+        Map<CompositeMediaId, FlickrMedia> existing = new HashMap<>();
+        repository.findAllById(photos.stream().map(p -> getCompositeMediaId(p, flickrAccount)).toList())
+                .forEach(m -> existing.put(m.getId(), m));
+        return photos.stream().map(p -> ofNullable(existing.get(getCompositeMediaId(p, flickrAccount)))
+                .orElseGet(() -> saveMedia(mapPhoto(p, flickrAccount)))).toList();
     }
 
-    private FlickrMedia photoToFlickrMedia(Photo p, String flickrAccount) {
-        return repository.findById(new CompositeMediaId(getPathAlias(p, flickrAccount), p.getId()))
-                .orElseGet(() -> saveMedia(mapPhoto(p, flickrAccount)));
+    private Pair<Integer, Collection<FlickrMedia>> processFlickrMedia(Iterable<FlickrMedia> medias,
+            String flickrAccount) {
+        return processFlickrMedia(medias, flickrAccount, LocalDateTime.now(), 0);
     }
 
     private Pair<Integer, Collection<FlickrMedia>> processFlickrMedia(Iterable<FlickrMedia> medias,
-            String flickrAccount) {
+            String flickrAccount, LocalDateTime start, int alreadyProcessed) {
         int count = 0;
-        LocalDateTime start = LocalDateTime.now();
         Collection<FlickrMedia> uploadedMedia = new ArrayList<>();
         for (FlickrMedia media : medias) {
             try {
-                Pair<FlickrMedia, Integer> result = processor.processFlickrMedia(media, flickrAccount,
+                Pair<FlickrMedia, Integer> result = processor.processFlickrMedia(getId(), media, flickrAccount,
                         () -> getPatternsToRemove(media), () -> getStringsToRemove(media), this::shouldUploadAuto,
                         this::uploadWrapped, getUrlResolver(), this::getSimilarUploadedMediaByDate,
                         checkAllowlist(media), checkBlocklist(media), this::saveMedia, getIgnoreCriteria());
                 if (result.getValue() > 0) {
                     uploadedMedia.add(result.getKey());
                 }
-                ongoingUpdateMedia(start, flickrAccount, count++);
+                ongoingUpdateMedia(start, flickrAccount, alreadyProcessed + count++);
             } catch (IOException | RuntimeException e) {
                 problem(getPhotoUrl(media), e);
             }
@@ -368,7 +389,7 @@ public abstract class AbstractOrgFlickrService extends AbstractOrgService<Flickr
         }
         ofNullable(p.getTakenGranularity()).ifPresent(granu -> m.setDateTakenGranularity(parseInt(granu)));
         m.setDescription(p.getDescription());
-        m.setId(new CompositeMediaId(getPathAlias(p, flickrAccount), p.getId()));
+        m.setId(getCompositeMediaId(p, flickrAccount));
         m.setLicense(parseInt(p.getLicense()));
         m.setMedia(FlickrMediaType.valueOf(p.getMedia()));
         m.setMediaStatus(p.getMediaStatus());
@@ -398,4 +419,47 @@ public abstract class AbstractOrgFlickrService extends AbstractOrgService<Flickr
     private static String getPathAlias(Photo p, String flickrAccount) {
         return StringUtils.isEmpty(p.getPathAlias()) ? flickrAccount : p.getPathAlias();
     }
+
+    private static CompositeMediaId getCompositeMediaId(Photo p, String flickrAccount) {
+        return new CompositeMediaId(getPathAlias(p, flickrAccount), p.getId());
+    }
+
+    /**
+     * Compact set of Flickr photo identifiers seen during an update. Flickr identifiers are sparse 64-bit numbers,
+     * so they are kept in a sorted {@code long} array rather than a set of strings. Non-numeric identifiers, which
+     * should not happen, are kept separately.
+     */
+    static final class FlickrPhotoIds {
+        private long[] ids = new long[1024];
+        private int size;
+        private final Set<String> others = new HashSet<>();
+
+        void add(String id) {
+            try {
+                long value = Long.parseLong(id);
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = value;
+            } catch (NumberFormatException e) {
+                others.add(id);
+            }
+        }
+
+        void freeze() {
+            Arrays.sort(ids, 0, size);
+        }
+
+        boolean contains(String id) {
+            try {
+                return Arrays.binarySearch(ids, 0, size, Long.parseLong(id)) >= 0;
+            } catch (NumberFormatException e) {
+                return others.contains(id);
+            }
+        }
+
+        int size() {
+            return size + others.size();
+        }
+    }
 }
@@ -1,10 +1,12 @@
 package org.wikimedia.commons.donvip.spacemedia.service.orgs;
 
 import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 import java.io.IOException;
 import java.net.URL;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -16,6 +18,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 
 import org.apache.commons.lang3.tuple.Pair;
@@ -26,9 +29,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeData;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.s3.S3Media;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.s3.S3MediaRepository;
 import org.wikimedia.commons.donvip.spacemedia.exception.UploadException;
+import org.wikimedia.commons.donvip.spacemedia.exception.WrappedUploadException;
+import org.wikimedia.commons.donvip.spacemedia.service.s3.S3KeyIndex;
 import org.wikimedia.commons.donvip.spacemedia.service.s3.S3Service;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.GlitchTip;
 
@@ -90,39 +96,115 @@ public abstract class AbstractOrgS3Service extends AbstractOrgService<S3Media> {
         List<S3Media> uploadedMedia = new ArrayList<>();
         int count = 0;
         LocalDateTime start = LocalDateTime.now();
-        LocalDate doNotFetchEarlierThan = getRuntimeData().getDoNotFetchEarlierThan();
-        List<S3Media> files = s3.getFiles(region, bucket, null, S3Service.MEDIA_EXT,
-                summary -> toS3Media(bucket, summary),
-                file -> doNotFetchEarlierThan == null || file.getPublicationDate().isAfter(doNotFetchEarlierThan),
-                Comparator.comparing(S3Media::getPublicationDateTime));
-        LOGGER.info("Found {} files in {}", files.size(), Duration.between(start, LocalDateTime.now()));
-
-        for (S3Media media : files) {
-            if (!skipMedia(media, files)) {
+        RuntimeData runtimeData = getRuntimeData();
+        LocalDate doNotFetchEarlierThan = runtimeData.getDoNotFetchEarlierThan();
+        S3Cursor cursor = S3Cursor.parse(runtimeData.getCursors().get(bucket));
+        // Filter on listing metadata before building media: objects not modified since the cursor were all
+        // processed by previous updates, and only their keys are kept
+        List<String> keys = new ArrayList<>();
+        List<S3ObjectSummary> changed = new ArrayList<>();
+        Instant[] lastModified = { cursor.lastModified() };
+        s3.streamFiles(region, bucket, null, S3Service.MEDIA_EXT).forEach(summary -> {
+            keys.add(summary.getKey());
+            Instant modified = summary.getLastModified().toInstant();
+            if (modified.isAfter(lastModified[0])) {
+                lastModified[0] = modified;
+            }
+            if (modified.isAfter(cursor.lastModified()) && (doNotFetchEarlierThan == null
+                    || toZonedDateTime(summary.getLastModified()).toLocalDate().isAfter(doNotFetchEarlierThan))) {
+                changed.add(summary);
+            }
+        });
+        S3KeyIndex index = S3KeyIndex.of(keys);
+        List<S3Media> files = changed.stream().map(summary -> toS3Media(bucket, summary))
+                .sorted(Comparator.comparing(S3Media::getPublicationDateTime).reversed()).toList();
+        LOGGER.info("Found {} files in {}, {} modified since {}", keys.size(),
+                Duration.between(start, LocalDateTime.now()), files.size(), cursor.lastModified());
+
+        Instant[] firstFailure = { null };
+        Consumer<S3Media> failed = media -> {
+            Instant modified = media.getPublicationDateTime().toInstant();
+            if (firstFailure[0] == null || modified.isBefore(firstFailure[0])) {
+                firstFailure[0] = modified;
+            }
+        };
+        // Declared first to be closed last, once all media have been handed back by the executor
+        try (MediaWriteBehind<S3Media> writeBehind = newMediaWriteBehind((media, e) -> {
+            LOGGER.error("Unable to save {}: {}", media, e.getMessage(), e);
+            GlitchTip.capture(e);
+            failed.accept(media);
+        }); MediaUpdateExecutor<S3Media, Pair<S3Media, Boolean>> executor = newMediaUpdateExecutor()) {
+            count = executor.run(files.stream().filter(media -> {
+                if (skipMedia(media, index)) {
+                    LOGGER.info("Media skipped: {}", media);
+                    return false;
+                }
+                return true;
+            }).toList(), this::getAssetHost, media -> prepareS3Media(media, this::enrichS3Media), (prepared, n) -> {
                 try {
-                    Pair<S3Media, Integer> result = processS3Media(media, this::enrichS3Media);
+                    Pair<S3Media, Integer> result = saveS3Media(prepared.getKey(), prepared.getValue(),
+                            writeBehind::save);
                     if (result.getValue() > 0) {
                         uploadedMedia.add(result.getKey());
                     }
-                    ongoingUpdateMedia(start, bucket, count++);
-                } catch (AmazonS3Exception e) {
-                    LOGGER.warn(e.getMessage());
-                    if (e.getStatusCode() == 404) {
+                    ongoingUpdateMedia(start, bucket, n);
+                } catch (UploadException e) {
+                    throw new WrappedUploadException(e);
+                }
+            }, (media, e) -> {
+                if (e instanceof AmazonS3Exception s3e) {
+                    LOGGER.warn(s3e.getMessage());
+                    if (s3e.getStatusCode() == 404) {
                         repository.delete(media);
+                        return;
                     }
-                } catch (UploadException | IOException | RuntimeException e) {
+                } else {
                     LOGGER.error(e.getMessage(), e);
                     GlitchTip.capture(e);
                 }
-            } else {
-                LOGGER.info("Media skipped: {}", media);
-            }
+                failed.accept(media);
+            });
         }
 
+        if (!Thread.currentThread().isInterrupted()) {
+            // Failed media are retried by next update
+            saveCursor(bucket, new S3Cursor(
+                    firstFailure[0] != null ? firstFailure[0].minusMillis(1) : lastModified[0]));
+        }
         return Pair.of(count, uploadedMedia);
     }
 
-    protected boolean skipMedia(S3Media media, List<S3Media> files) {
+    private void saveCursor(String bucket, S3Cursor cursor) {
+        RuntimeData runtimeData = getRuntimeData();
+        runtimeData.getCursors().put(bucket, cursor.toString());
+        runtimeDataRepository.save(runtimeData);
+    }
+
+    /**
+     * Position of the incremental update of a bucket: all objects last modified until this instant have been
+     * processed. S3 sets the last modification date of an object to the time of its last write, so an overwritten
+     * object is seen as modified again.
+     */
+    static record S3Cursor(Instant lastModified) {
+
+        static S3Cursor parse(String value) {
+            return new S3Cursor(isBlank(value) ? Instant.EPOCH : Instant.parse(value));
+        }
+
+        @Override
+        public String toString() {
+            return lastModified.toString();
+        }
+    }
+
+    /**
+     * Determines if a media must be skipped.
+     *
+     * @param media media to check
+     * @param keys  index of the keys of all the media files of the bucket, built once per listing
+     * @return {@code true} if media must be skipped
+     */
+    protected boolean skipMedia(S3Media media, S3KeyIndex keys) {
         return false;
     }
 
@@ -148,6 +230,16 @@ public abstract class AbstractOrgS3Service extends AbstractOrgService<S3Media> {
 
     protected Pair<S3Media, Integer> processS3Media(S3Media mediaFromApi, UnaryOperator<S3Media> worker)
             throws IOException, UploadException {
+        Pair<S3Media, Boolean> prepared = prepareS3Media(mediaFromApi, worker);
+        return saveS3Media(prepared.getKey(), prepared.getValue(), this::saveMedia);
+    }
+
+    /**
+     * Network-bound part of S3 media processing, that can run concurrently. It saves the file metadata and hashes
+     * computed by {@code doCommonUpdate}, each S3 object being a distinct file.
+     */
+    private Pair<S3Media, Boolean> prepareS3Media(S3Media mediaFromApi, UnaryOperator<S3Media> worker)
+            throws IOException {
         S3Media media = null;
         boolean save = false;
         Optional<S3Media> mediaInDb = repository.findById(mediaFromApi.getId());
@@ -158,6 +250,16 @@ public abstract class AbstractOrgS3Service extends AbstractOrgService<S3Media> {
             save = true;
         }
         save |= doCommonUpdate(media);
+        return Pair.of(media, save);
+    }
+
+    /**
+     * Upload and media persistence part of S3 media processing, performed by the calling thread only.
+     *
+     * @param saver saves media that have not been uploaded, possibly later. Uploaded media are saved immediately
+     */
+    private Pair<S3Media, Integer> saveS3Media(S3Media media, boolean save, Consumer<S3Media> saver)
+            throws UploadException {
         int uploadCount = 0;
         if (shouldUploadAuto(media, false)) {
             Triple<S3Media, Collection<FileMetadata>, Integer> upload = upload(media, true, false);
@@ -165,8 +267,10 @@ public abstract class AbstractOrgS3Service extends AbstractOrgService<S3Media> {
             media = upload.getLeft();
             save = true;
         }
-        if (save) {
+        if (uploadCount > 0) {
             saveMedia(media);
+        } else if (save) {
+            saver.accept(media);
         }
         return Pair.of(media, uploadCount);
     }
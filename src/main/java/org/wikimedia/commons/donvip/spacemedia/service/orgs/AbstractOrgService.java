@@ -38,7 +38,6 @@ import java.time.temporal.Temporal;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -51,6 +50,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
@@ -77,8 +77,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.web.client.HttpClientErrorException.NotFound;
 import org.springframework.web.client.RestClientException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
@@ -88,7 +92,10 @@ import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadataRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaCounts;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaDimensions;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaKeyset;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeData;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeDataRepository;
@@ -111,6 +118,7 @@ import org.wikimedia.commons.donvip.spacemedia.service.MediaService.MediaUpdateC
 import org.wikimedia.commons.donvip.spacemedia.service.MediaService.MediaUpdateResult;
 import org.wikimedia.commons.donvip.spacemedia.service.RemoteService;
 import org.wikimedia.commons.donvip.spacemedia.service.SearchService;
+import org.wikimedia.commons.donvip.spacemedia.service.StatsService;
 import org.wikimedia.commons.donvip.spacemedia.service.UrlResolver;
 import org.wikimedia.commons.donvip.spacemedia.service.mastodon.MastodonService;
 import org.wikimedia.commons.donvip.spacemedia.service.osm.NominatimService;
@@ -122,6 +130,7 @@ import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.WikidataItem;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.WikidataService;
 import org.wikimedia.commons.donvip.spacemedia.utils.Emojis;
 import org.wikimedia.commons.donvip.spacemedia.utils.ImageUtils;
+import org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics;
 import org.wikimedia.commons.donvip.spacemedia.utils.UnitedStates;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -200,6 +209,9 @@ public abstract class AbstractOrgService<T extends Media>
     private RemoteService remoteService;
     @Lazy
     @Autowired
+    private StatsService statsService;
+    @Lazy
+    @Autowired
     private GoogleTranslateService translateService;
     @Lazy
     @Autowired
@@ -211,6 +223,9 @@ public abstract class AbstractOrgService<T extends Media>
     @Autowired
     protected NominatimService nominatim;
 
+    @Autowired
+    protected CloseableHttpClient httpClient;
+
     @Autowired
     private Environment env;
 
@@ -233,6 +248,12 @@ public abstract class AbstractOrgService<T extends Media>
     @Value("${videos.enabled}")
     protected boolean videosEnabled;
 
+    @Value("${update.threads.per.host:4}")
+    private int updateThreadsPerHost;
+
+    @Value("${media.save.batch.size:50}")
+    private int saveBatchSize;
+
     private UploadMode uploadMode;
 
     protected AbstractOrgService(MediaRepository<T> repository, String id, Set<String> repoIds) {
@@ -372,6 +393,37 @@ public abstract class AbstractOrgService<T extends Media>
         return isBlank(repo) ? listAllMedia(page) : repository.findAll(Set.of(repo), page);
     }
 
+    @Override
+    public Window<T> listMedia(MediaListing listing, String repo, KeysetScrollPosition position, int size) {
+        return MediaKeyset.scroll(keysetQuery(listing), isBlank(repo) ? getRepoIds() : Set.of(repo), position, size);
+    }
+
+    /**
+     * Returns the keyset queries of a media listing, filtering media by repository.
+     *
+     * @param listing media listing
+     * @return the keyset queries of the given media listing
+     */
+    protected MediaKeyset.Query<T> keysetQuery(MediaListing listing) {
+        return switch (listing) {
+        case ALL -> new MediaKeyset.Query<>(repository::findAllOlderThan, repository::findAllNewerThan);
+        case MISSING -> new MediaKeyset.Query<>(repository::findMissingInCommonsOlderThan,
+                repository::findMissingInCommonsNewerThan);
+        case MISSING_IMAGES -> new MediaKeyset.Query<>(repository::findMissingImagesInCommonsOlderThan,
+                repository::findMissingImagesInCommonsNewerThan);
+        case MISSING_VIDEOS -> new MediaKeyset.Query<>(repository::findMissingVideosInCommonsOlderThan,
+                repository::findMissingVideosInCommonsNewerThan);
+        case MISSING_DOCUMENTS -> new MediaKeyset.Query<>(repository::findMissingDocumentsInCommonsOlderThan,
+                repository::findMissingDocumentsInCommonsNewerThan);
+        case HASHED -> new MediaKeyset.Query<>(repository::findByMetadata_PhashNotNullOlderThan,
+                repository::findByMetadata_PhashNotNullNewerThan);
+        case UPLOADED -> new MediaKeyset.Query<>(repository::findUploadedToCommonsOlderThan,
+                repository::findUploadedToCommonsNewerThan);
+        case IGNORED -> new MediaKeyset.Query<>(repository::findByMetadata_IgnoredTrueOlderThan,
+                repository::findByMetadata_IgnoredTrueNewerThan);
+        };
+    }
+
     @Override
     public List<T> listMissingMedia() {
         return repository.findMissingInCommons(getRepoIds());
@@ -490,14 +542,80 @@ public abstract class AbstractOrgService<T extends Media>
 
     @Override
     public List<T> searchMedia(String q) {
-        searchService.checkSearchEnabled();
-        throw new UnsupportedOperationException();
+        return searchMedia(q, Pageable.unpaged()).getContent();
     }
 
     @Override
     public Page<T> searchMedia(String q, Pageable page) {
         searchService.checkSearchEnabled();
-        throw new UnsupportedOperationException();
+        Page<CompositeMediaId> ids = searchService.search(getMediaClass(), getRepoIds(), q, page);
+        // Keep relevance order of search results
+        Map<CompositeMediaId, T> medias = new HashMap<>();
+        repository.findAllById(ids.getContent()).forEach(m -> medias.put(m.getId(), m));
+        List<T> content = ids.stream().map(medias::get).filter(Objects::nonNull).toList();
+        return page.isPaged() ? new PageImpl<>(content, page, ids.getTotalElements()) : new PageImpl<>(content);
+    }
+
+    @Override
+    public void reindexMedia() {
+        searchService.checkSearchEnabled();
+        LocalDateTime start = LocalDateTime.now();
+        LOGGER.info("Indexing media of {}...", getId());
+        long count = indexMedia(page -> repository.findAll(getRepoIds(), page));
+        searchService.commit();
+        LOGGER.info("Indexed {} media of {} in {}", count, getId(), durationInSec(start));
+    }
+
+    /**
+     * Indexes media saved since the given date, including by other processes such as update jobs.
+     *
+     * @param since date of last update of media to index
+     */
+    public void reindexMediaUpdatedSince(LocalDateTime since) {
+        searchService.checkSearchEnabled();
+        long count = 0;
+        LocalDateTime lastUpdate = since;
+        CompositeMediaId lastId = new CompositeMediaId();
+        List<T> medias;
+        do {
+            medias = repository.findUpdatedSince(getRepoIds(), lastUpdate, lastId.getRepoId(), lastId.getMediaId(),
+                    PageRequest.of(0, 1000));
+            medias.forEach(searchService::index);
+            count += medias.size();
+            if (!medias.isEmpty()) {
+                T last = medias.get(medias.size() - 1);
+                lastUpdate = last.getLastUpdate();
+                lastId = last.getId();
+            }
+        } while (medias.size() == 1000);
+        if (count > 0) {
+            LOGGER.info("Indexed {} media of {} updated since {}", count, getId(), since);
+        }
+    }
+
+    /**
+     * Removes media that no longer exist from the search index, including media deleted by other processes such as
+     * update jobs.
+     */
+    public void unindexDeletedMedia() {
+        searchService.checkSearchEnabled();
+        int count = searchService.deleteMissing(getMediaClass(), getRepoIds(), repository::findExistingMediaIds);
+        if (count > 0) {
+            LOGGER.info("Removed {} deleted media of {} from search index", count, getId());
+        }
+    }
+
+    private long indexMedia(Function<Pageable, Page<T>> finder) {
+        long count = 0;
+        Pageable page = PageRequest.of(0, 1000);
+        Page<T> medias;
+        do {
+            medias = finder.apply(page);
+            medias.forEach(searchService::index);
+            count += medias.getNumberOfElements();
+            page = page.next();
+        } while (medias.hasNext());
+        return count;
     }
 
     /**
@@ -548,7 +666,20 @@ public abstract class AbstractOrgService<T extends Media>
         LOGGER.info("Starting {} medias update...", getName());
         RuntimeData runtimeData = getRuntimeData();
         runtimeData.setLastUpdateStart(LocalDateTime.now());
-        return runtimeDataRepository.save(runtimeData).getLastUpdateStart();
+        LocalDateTime start = runtimeDataRepository.save(runtimeData).getLastUpdateStart();
+        backfillUploadStates();
+        return start;
+    }
+
+    /**
+     * Computes the upload state of media saved before it was persisted.
+     */
+    protected final void backfillUploadStates() {
+        int count = repository.updateMissingUploadStates(getRepoIds());
+        if (count > 0) {
+            repository.evictCaches();
+            LOGGER.info("Computed upload state of {} {} media", count, getName());
+        }
     }
 
     protected final void ongoingUpdateMedia(LocalDateTime start, int count) {
@@ -564,6 +695,31 @@ public abstract class AbstractOrgService<T extends Media>
         }
     }
 
+    /**
+     * Creates a new executor of parallel media updates, with {@code <org>.update.threads} worker threads. Orgs opt
+     * into parallel updates by using it in their update loop, and by setting this property: without it, media are
+     * still updated sequentially.
+     *
+     * @param <I> the type of items to process
+     * @param <R> the type of worker results
+     * @return a new executor of parallel media updates, to be closed after use
+     */
+    protected final <I, R> MediaUpdateExecutor<I, R> newMediaUpdateExecutor() {
+        return new MediaUpdateExecutor<>(getId(),
+                env.getProperty(getId() + ".update.threads", Integer.class, 1), updateThreadsPerHost);
+    }
+
+    /**
+     * Returns the host serving the assets of the given media, for per-host concurrency limits.
+     *
+     * @param media media
+     * @return host of the first asset URL of media, or org identifier
+     */
+    protected final String getAssetHost(T media) {
+        return media.getMetadataStream().map(FileMetadata::getAssetUrl).filter(Objects::nonNull).map(URL::getHost)
+                .findFirst().orElse(getId());
+    }
+
     protected final List<FileMetadata> allMetadata(Collection<T> uploadedMedia) {
         return uploadedMedia.stream().flatMap(Media::getMetadataStream).toList();
     }
@@ -606,8 +762,9 @@ public abstract class AbstractOrgService<T extends Media>
             runtimeData.setLastUpdateDurationWithUploadsMin(lastUpdateDuration.toMinutes());
         }
         runtimeData.setDoNotFetchEarlierThan(newDoNotFetchEarlierThan);
-        LOGGER.info("{} medias update completed: {} medias in {}", getName(), count,
-                runtimeDataRepository.save(runtimeData).getLastUpdateDuration());
+        LOGGER.info("{} medias update completed: {} medias in {} ({} bytes downloaded)", getName(), count,
+                runtimeDataRepository.save(runtimeData).getLastUpdateDuration(),
+                mediaService.getDownloadedBytes(getRepoIds()));
         if (postTweet) {
             postSocialMedia(uploadedMedia, uploadedMetadata);
         }
@@ -678,22 +835,23 @@ public abstract class AbstractOrgService<T extends Media>
 
     @Override
     public Statistics getStatistics(boolean details) {
-        Statistics stats = new Statistics(getName(), getId(), countAllMedia(), countUploadedMedia(), countIgnored(),
-                countMissingImages(), countMissingVideos(), countMissingDocuments(), countPerceptualHashes(),
+        Map<String, MediaCounts> counts = getStatisticsCounts();
+        Statistics stats = new Statistics(getName(), getId(),
+                counts.values().stream().reduce(MediaCounts.ZERO, MediaCounts::plus),
                 getRuntimeData().getLastUpdateEnd());
-        if (details && getRepoIds().size() > 1) {
-            stats.setDetails(getRepoIds().stream().map(this::getStatistics).sorted().toList());
+        if (details && counts.size() > 1) {
+            stats.setDetails(counts.entrySet().stream()
+                    .map(e -> new Statistics(e.getKey(), e.getKey(), e.getValue(), null)).sorted().toList());
         }
         return stats;
     }
 
-    private Statistics getStatistics(String alias) {
-        Set<String> singleton = Collections.singleton(alias);
-        return new Statistics(alias, alias, repository.count(singleton), repository.countUploadedToCommons(singleton),
-                repository.countByMetadata_IgnoredTrue(singleton), repository.countMissingImagesInCommons(singleton),
-                repository.countMissingVideosInCommons(singleton), repository.countMissingDocumentsInCommons(singleton),
-                repository.countByMetadata_PhashNotNull(singleton),
-                null);
+    protected final Map<String, MediaCounts> getStatisticsCounts() {
+        return statsService.getCounts(getRepoIds(), repository);
+    }
+
+    public void reconcileStatistics() {
+        getRepoIds().forEach(repoId -> statsService.reconcile(repoId, repository));
     }
 
     protected final void problem(URL problematicUrl, Throwable t) {
@@ -740,7 +898,9 @@ public abstract class AbstractOrgService<T extends Media>
 
     @Override
     public void deleteById(String id) throws ImageNotFoundException {
-        repository.deleteById(new CompositeMediaId(id));
+        T media = getById(new CompositeMediaId(id));
+        repository.delete(media);
+        statsService.mediaDeleted(media);
     }
 
     @Override
@@ -767,9 +927,12 @@ public abstract class AbstractOrgService<T extends Media>
     }
 
     private List<T> refreshAndSaveMedias(Stream<T> medias) {
-        return medias.map(media -> {
+        List<T> mediaList = medias.toList();
+        // Look for Commons files of all media at once, rather than one by one during refresh
+        Set<String> sha1LookedUp = findCommonsFilesWithSha1(mediaList);
+        return mediaList.stream().map(media -> {
             try {
-                return refreshAndSave(media);
+                return refreshAndSave(media, sha1LookedUp);
             } catch (IOException e) {
                 LOGGER.error("Failed to refresh {}", media, e);
                 GlitchTip.capture(e);
@@ -778,8 +941,37 @@ public abstract class AbstractOrgService<T extends Media>
         }).filter(Objects::nonNull).toList();
     }
 
+    /**
+     * Looks for Commons files of all the given media at once, with batched SHA-1 lookups, so that their update does
+     * not look them up again one by one.
+     *
+     * @param medias media to look up
+     * @return SHA-1 of the media files that have been looked up, to give to {@code doCommonUpdate}
+     */
+    protected final Set<String> findCommonsFilesWithSha1(Collection<T> medias) {
+        try {
+            return mediaService.findCommonsFilesWithSha1OfMedia(medias);
+        } catch (IOException e) {
+            LOGGER.error("Failed to look for Commons files of {} media", medias.size(), e);
+            GlitchTip.capture(e);
+            return Set.of();
+        }
+    }
+
     @Override
     public T refreshAndSave(T media) throws IOException {
+        return refreshAndSave(media, Set.of());
+    }
+
+    /**
+     * Refreshes and saves a media.
+     *
+     * @param media        media to refresh
+     * @param sha1LookedUp SHA-1 already looked up in Commons by {@link #findCommonsFilesWithSha1(Collection)}
+     * @return the refreshed media, or {@code null} if it has been deleted
+     * @throws IOException in case of I/O error
+     */
+    protected T refreshAndSave(T media, Set<String> sha1LookedUp) throws IOException {
         T refreshedMedia = null;
         try {
             refreshedMedia = refresh(media);
@@ -792,9 +984,7 @@ public abstract class AbstractOrgService<T extends Media>
             LOGGER.warn("Refresh of {} failed: {}", media, e.getMessage());
         }
         if (refreshedMedia != null) {
-            try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-                doCommonUpdate(refreshedMedia, httpClient, null, true);
-            }
+            doCommonUpdate(refreshedMedia, httpClient, null, true, sha1LookedUp);
             return saveMedia(refreshedMedia);
         } else {
             deleteMedia(media, "refresh did not find media anymore");
@@ -807,11 +997,49 @@ public abstract class AbstractOrgService<T extends Media>
     @Override
     public T saveMedia(T media) {
         LOGGER.info("Saving {}", media);
-        T result = repository.save(media);
+        media.updateUploadState();
+        T result = MediaUpdateMetrics.time(MediaUpdateMetrics.SAVE, getId(), media.getId().getRepoId(),
+                () -> repository.save(media));
+        statsService.mediaSaved(media, result);
         checkRemoteMedia(result);
         return result;
     }
 
+    /**
+     * Saves media together in a single transaction, so that their inserts and updates are sent in JDBC batches.
+     *
+     * @param media media to save, usually of a same repository
+     * @return saved media, in the same order
+     */
+    protected List<T> saveAllMedia(List<T> media) {
+        LOGGER.info("Saving {} {} media", media.size(), getName());
+        media.forEach(Media::updateUploadState);
+        String repoId = media.stream().map(m -> m.getId().getRepoId()).distinct().count() == 1
+                ? media.get(0).getId().getRepoId()
+                : getId();
+        List<T> result = MediaUpdateMetrics.time(MediaUpdateMetrics.SAVE, getId(), repoId,
+                () -> repository.saveAll(media));
+        for (int i = 0; i < result.size(); i++) {
+            statsService.mediaSaved(media.get(i), result.get(i));
+        }
+        if (executionMode == ExecutionMode.REMOTE) {
+            result.forEach(this::checkRemoteMedia);
+        } else if (executionMode == ExecutionMode.LOCAL) {
+            evictRemoteCaches();
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new write-behind buffer of media to save, flushed by batches of {@code media.save.batch.size}.
+     *
+     * @param errorHandler handles the failure to save a single media
+     * @return a new write-behind buffer of media to save, to be closed after use
+     */
+    protected final MediaWriteBehind<T> newMediaWriteBehind(BiConsumer<T, RuntimeException> errorHandler) {
+        return new MediaWriteBehind<>(saveBatchSize, this::saveAllMedia, this::saveMedia, errorHandler);
+    }
+
     @Override
     public T syncAndSave(T media) throws IOException {
         String hiddenCat = hiddenUploadCategory(media.getId().getRepoId()).replace(' ', '_');
@@ -859,6 +1087,7 @@ public abstract class AbstractOrgService<T extends Media>
     protected final T deleteMedia(T media, String message) {
         LOGGER.warn("Deleting {} ({})", media, message);
         repository.delete(media);
+        statsService.mediaDeleted(media);
         return media;
     }
 
@@ -1409,7 +1638,7 @@ public abstract class AbstractOrgService<T extends Media>
             MediaDimensions dims = metadata.getMediaDimensions();
             if ("gif".equals(metadata.getFileExtensionOnCommons())) {
                 try {
-                    int numImages = ImageUtils.readNumberOfImages(metadata.getAssetUri(), true);
+                    int numImages = ImageUtils.readNumberOfImages(metadata.getAssetUri(), httpClient, true);
                     LOGGER.info("GIF file with {} image(s): {}", numImages, metadata.getAssetUri());
                     if (numImages > 1) {
                         long megaPixels = numImages * dims.getPixelsNumber();
@@ -1699,9 +1928,18 @@ public abstract class AbstractOrgService<T extends Media>
 
     protected final MediaUpdateResult<T> doCommonUpdate(T media, HttpClient httpClient, HttpClientContext context,
             boolean forceUpdate) throws IOException {
+        return doCommonUpdate(media, httpClient, context, forceUpdate, Set.of());
+    }
+
+    /**
+     * Performs the common update of a media, without looking up again in Commons the SHA-1 already looked up by
+     * {@link #findCommonsFilesWithSha1(Collection)}.
+     */
+    protected final MediaUpdateResult<T> doCommonUpdate(T media, HttpClient httpClient, HttpClientContext context,
+            boolean forceUpdate, Set<String> sha1LookedUp) throws IOException {
         MediaUpdateResult<T> ur = mediaService.updateMedia(
-                new MediaUpdateContext<T>(media, null, getUrlResolver(), httpClient, context, forceUpdate,
-                        ignoreExifMetadata()),
+                new MediaUpdateContext<T>(getId(), media, null, getUrlResolver(), httpClient, context, forceUpdate,
+                        ignoreExifMetadata(), sha1LookedUp),
                 getPatternsToRemove(media), getStringsToRemove(media), this::getSimilarUploadedMediaByDate,
                 checkAllowlist(media), checkBlocklist(media), includeByPerceptualHash());
         boolean result = ur.result();
@@ -1800,9 +2038,7 @@ public abstract class AbstractOrgService<T extends Media>
     }
 
     protected final boolean doCommonUpdate(T media) throws IOException {
-        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-            return doCommonUpdate(media, httpClient, null);
-        }
+        return doCommonUpdate(media, httpClient, null);
     }
 
     protected final boolean doCommonUpdate(T media, HttpClient httpClient, HttpClientContext context)
@@ -1819,6 +2055,19 @@ public abstract class AbstractOrgService<T extends Media>
         return runtimeDataRepository.findById(getId()).orElseGet(() -> new RuntimeData(getId()));
     }
 
+    /**
+     * Saves the progress of an interrupted update, to resume it later.
+     *
+     * @param checkpoint checkpoint of the update, or {@code null} to clear it once the update is complete
+     */
+    protected final void saveCheckpoint(String checkpoint) {
+        RuntimeData runtimeData = getRuntimeData();
+        if (!Objects.equals(checkpoint, runtimeData.getCheckpoint())) {
+            runtimeData.setCheckpoint(checkpoint);
+            runtimeDataRepository.save(runtimeData);
+        }
+    }
+
     protected final UploadMode getUploadMode() {
         return uploadMode;
     }
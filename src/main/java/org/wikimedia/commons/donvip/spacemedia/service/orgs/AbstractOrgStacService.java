@@ -2,10 +2,16 @@ package org.wikimedia.commons.donvip.spacemedia.service.orgs;
 
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toMap;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.trimToNull;
 import static org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata.IMAGE_EXTENSIONS;
+import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.checkResponse;
+import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.executeRequest;
+import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newHttpGet;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newURL;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -15,22 +21,36 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.cache.CacheManager;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeData;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.stac.StacMedia;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.stac.StacMediaRepository;
 import org.wikimedia.commons.donvip.spacemedia.exception.UploadException;
+import org.wikimedia.commons.donvip.spacemedia.exception.WrappedUploadException;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.GlitchTip;
 import org.wikimedia.commons.donvip.spacemedia.utils.Emojis;
 import org.wikimedia.commons.donvip.spacemedia.utils.Utils;
@@ -50,6 +70,11 @@ public abstract class AbstractOrgStacService extends AbstractOrgService<StacMedi
 
     protected final StacMediaRepository stacRepository;
 
+    /** Cache region of parsed STAC items, shared by metadata creation and wikicode generation */
+    public static final String STAC_ITEMS = "stacItems";
+
+    @Autowired
+    private CacheManager cacheManager;
     protected final Map<String, URL> catalogUrls;
 
     protected AbstractOrgStacService(StacMediaRepository repository, String id, Set<String> catalogs) {
@@ -104,13 +129,13 @@ public abstract class AbstractOrgStacService extends AbstractOrgService<StacMedi
 
     @Override
     protected Optional<String> getOtherFields(StacMedia media) {
-        return getOtherFieldBoundingBox(jackson, media.getUrl());
+        return getOtherFieldBoundingBox(cacheManager.getCache(STAC_ITEMS), jackson, media.getUrl());
     }
 
-    public static Optional<String> getOtherFieldBoundingBox(ObjectMapper jackson, URL stacItemUrl) {
+    public static Optional<String> getOtherFieldBoundingBox(Cache stacItems, ObjectMapper jackson, URL stacItemUrl) {
         StringBuilder sb = new StringBuilder();
         try {
-            Double[] bb = jackson.readValue(stacItemUrl, StacItem.class).bbox().toArray(new Double[] {});
+            Double[] bb = getStacItem(stacItems, jackson, stacItemUrl).bbox().toArray(new Double[] {});
             addOtherField(sb, "Bounding box",
                     "{{Map/bbox|longitude=" + bb[0] + "/" + bb[2] + "|latitude=" + bb[1] + "/" + bb[3] + "}}");
         } catch (IOException | RuntimeException e) {
@@ -121,6 +146,28 @@ public abstract class AbstractOrgStacService extends AbstractOrgService<StacMedi
         return s.isEmpty() ? Optional.empty() : Optional.of(s);
     }
 
+    /**
+     * Returns the parsed STAC item at the given URL. Items are cached, so that an item fetched to create a media is
+     * not fetched again to generate the wikicode of its files.
+     *
+     * @param stacItems   {@link #STAC_ITEMS} cache region
+     * @param jackson     JSON mapper
+     * @param stacItemUrl STAC item URL
+     * @return parsed STAC item
+     * @throws IOException if the item cannot be fetched or parsed
+     */
+    protected static StacItem getStacItem(Cache stacItems, ObjectMapper jackson, URL stacItemUrl)
+            throws IOException {
+        try {
+            return stacItems.get(stacItemUrl.toExternalForm(), () -> jackson.readValue(stacItemUrl, StacItem.class));
+        } catch (ValueRetrievalException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw e;
+        }
+    }
+
     @Override
     protected Set<String> getEmojis(StacMedia uploadedMedia) {
         Set<String> result = super.getEmojis(uploadedMedia);
@@ -131,7 +178,7 @@ public abstract class AbstractOrgStacService extends AbstractOrgService<StacMedi
     protected Pair<Integer, Collection<StacMedia>> updateStacMedia(String repoId) {
         List<StacMedia> uploadedMedia = new ArrayList<>();
         int count = 0;
-        Set<String> processedItems = new HashSet<>();
+        Set<String> processedItems = ConcurrentHashMap.newKeySet();
         LocalDateTime start = LocalDateTime.now();
         LocalDate doNotFetchEarlierThan = getRuntimeData().getDoNotFetchEarlierThan();
 
@@ -146,35 +193,142 @@ public abstract class AbstractOrgStacService extends AbstractOrgService<StacMedi
         return Pair.of(count, uploadedMedia);
     }
 
+    /**
+     * Processes all items of a STAC catalog and of its sub-catalogs. Catalogs are walked level by level, and items
+     * are then fetched concurrently by the bounded pool of {@link #newMediaUpdateExecutor()}. Catalogs without
+     * sub-catalogs are fetched with a conditional request, and are skipped if they did not change since the last
+     * update processing all their items successfully.
+     */
     protected int processStacCatalog(URL catalogUrl, LocalDateTime start, LocalDate doNotFetchEarlierThan,
             String repoId, List<StacMedia> uploadedMedia, Set<String> processedItems, int startCount)
             throws IOException {
-        int count = 0;
         LOGGER.info("Processing STAC catalog {}", catalogUrl);
-        for (StacLink link : jackson.readValue(catalogUrl, StacCatalog.class).links()) {
-            try {
-                if ("child".equals(link.rel())) {
-                    count += processStacCatalog(link.absoluteHref(catalogUrl), start, doNotFetchEarlierThan, repoId,
-                            uploadedMedia, processedItems, startCount + count);
-                } else if ("item".equals(link.rel()) && !isStacItemIgnored(link.href())
-                        && (doNotFetchEarlierThan == null || !isStacItemBefore(link.href(), doNotFetchEarlierThan))) {
-                    Pair<StacMedia, Integer> result = processStacItem(link.absoluteHref(catalogUrl),
-                            repoId, this::fetchStacMedia, processedItems);
-                    if (result != null && result.getValue() > 0) {
-                        uploadedMedia.add(result.getKey());
-                    }
-                    ongoingUpdateMedia(start, repoId, startCount + count++);
-                }
-            } catch (IOException | RuntimeException | UploadException e) {
-                LOGGER.error("Unable to process STAC link {}", link, e);
+        Map<String, String> validators = getRuntimeData().getCursors();
+        Map<String, StacItemLink> items = new LinkedHashMap<>();
+        Map<String, String> changedLeaves = new HashMap<>();
+        Set<String> failedLeaves = new HashSet<>();
+        List<URL> level = List.of(catalogUrl);
+        try (MediaUpdateExecutor<URL, StacCatalogFetch> executor = newMediaUpdateExecutor()) {
+            while (!level.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                List<URL> nextLevel = new ArrayList<>();
+                executor.run(level, URL::getHost,
+                        url -> fetchStacCatalog(url, StacValidator.parse(validators.get(url.toExternalForm()))),
+                        (fetch, n) -> {
+                            if (fetch.catalog() == null) {
+                                LOGGER.debug("STAC catalog not modified: {}", fetch.url());
+                                return;
+                            }
+                            String catalog = fetch.url().toExternalForm();
+                            boolean leaf = true;
+                            for (StacLink link : fetch.catalog().links()) {
+                                try {
+                                    if ("child".equals(link.rel())) {
+                                        nextLevel.add(link.absoluteHref(fetch.url()));
+                                        leaf = false;
+                                    } else if ("item".equals(link.rel()) && !isStacItemIgnored(link.href())
+                                            && (doNotFetchEarlierThan == null
+                                                    || !isStacItemBefore(link.href(), doNotFetchEarlierThan))) {
+                                        URL itemUrl = link.absoluteHref(fetch.url());
+                                        items.putIfAbsent(itemUrl.toExternalForm(), new StacItemLink(itemUrl, catalog));
+                                    }
+                                } catch (IOException | RuntimeException e) {
+                                    LOGGER.error("Unable to process STAC link {}", link, e);
+                                    failedLeaves.add(catalog);
+                                }
+                            }
+                            if (leaf && fetch.validator() != null) {
+                                changedLeaves.put(catalog, fetch.validator().toString());
+                            }
+                        }, (url, e) -> {
+                            LOGGER.error("Unable to process STAC catalog {}", url, e);
+                            failedLeaves.add(url.toExternalForm());
+                        });
+                level = nextLevel;
             }
         }
+        LOGGER.info("Processing {} STAC items of catalog {}", items.size(), catalogUrl);
+        int count;
+        try (MediaUpdateExecutor<StacItemLink, Pair<StacMedia, Boolean>> executor = newMediaUpdateExecutor()) {
+            count = executor.run(items.values(), link -> link.url().getHost(),
+                    link -> prepareStacItem(link.url(), repoId, this::fetchStacMedia, processedItems),
+                    (prepared, n) -> {
+                        if (prepared == null) {
+                            return;
+                        }
+                        try {
+                            Pair<StacMedia, Integer> result = saveStacItem(prepared.getKey(), prepared.getValue(),
+                                    processedItems);
+                            if (result.getValue() > 0) {
+                                uploadedMedia.add(result.getKey());
+                            }
+                            ongoingUpdateMedia(start, repoId, startCount + n);
+                        } catch (UploadException e) {
+                            throw new WrappedUploadException(e);
+                        }
+                    }, (link, e) -> {
+                        LOGGER.error("Unable to process STAC item {}", link.url(), e);
+                        failedLeaves.add(link.catalog());
+                    });
+        }
+        if (!Thread.currentThread().isInterrupted() && !(changedLeaves.isEmpty() && failedLeaves.isEmpty())) {
+            // Catalogs with failed items are processed again by next update
+            RuntimeData runtimeData = getRuntimeData();
+            failedLeaves.forEach(runtimeData.getCursors()::remove);
+            changedLeaves.keySet().removeAll(failedLeaves);
+            runtimeData.getCursors().putAll(changedLeaves);
+            runtimeDataRepository.save(runtimeData);
+        }
         return count;
     }
 
+    /**
+     * Fetches a STAC catalog. If validators of a previous fetch are given, the catalog is only returned if it has
+     * been modified since.
+     *
+     * @param catalogUrl catalog URL
+     * @param validator  validators of a previous fetch of the catalog, can be null
+     * @return the fetched catalog, without content if it has not been modified
+     * @throws IOException if the catalog cannot be fetched
+     */
+    protected StacCatalogFetch fetchStacCatalog(URL catalogUrl, StacValidator validator) throws IOException {
+        if (!catalogUrl.getProtocol().startsWith("http")) {
+            return new StacCatalogFetch(catalogUrl, jackson.readValue(catalogUrl, StacCatalog.class), null);
+        }
+        HttpGet request = newHttpGet(catalogUrl);
+        if (validator != null) {
+            if (validator.etag() != null) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, validator.etag());
+            }
+            if (validator.lastModified() != null) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, validator.lastModified());
+            }
+        }
+        try (ClassicHttpResponse response = executeRequest(request, httpClient, null, false)) {
+            if (validator != null && response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+                return new StacCatalogFetch(catalogUrl, null, validator);
+            }
+            checkResponse(request, response);
+            try (InputStream in = response.getEntity().getContent()) {
+                return new StacCatalogFetch(catalogUrl, jackson.readValue(in, StacCatalog.class),
+                        StacValidator.of(response.getFirstHeader(HttpHeaders.ETAG),
+                                response.getFirstHeader(HttpHeaders.LAST_MODIFIED)));
+            }
+        }
+    }
+
     protected Pair<StacMedia, Integer> processStacItem(URL itemUrl, String repoId,
             BiFunction<String, URL, StacMedia> worker,
             Set<String> processedItems) throws IOException, UploadException {
+        Pair<StacMedia, Boolean> prepared = prepareStacItem(itemUrl, repoId, worker, processedItems);
+        return prepared == null ? null : saveStacItem(prepared.getKey(), prepared.getValue(), processedItems);
+    }
+
+    /**
+     * Network-bound part of STAC item processing, that can run concurrently. It saves the file metadata and hashes
+     * computed by {@code doCommonUpdate}, each STAC item having its own assets.
+     */
+    private Pair<StacMedia, Boolean> prepareStacItem(URL itemUrl, String repoId,
+            BiFunction<String, URL, StacMedia> worker, Set<String> processedItems) throws IOException {
         if (processedItems.contains(itemUrl.toExternalForm())) {
             return null;
         }
@@ -188,6 +342,14 @@ public abstract class AbstractOrgStacService extends AbstractOrgService<StacMedi
             save = true;
         }
         save |= doCommonUpdate(media);
+        return Pair.of(media, save);
+    }
+
+    /**
+     * Upload and media persistence part of STAC item processing, performed by the calling thread only.
+     */
+    private Pair<StacMedia, Integer> saveStacItem(StacMedia media, boolean save, Set<String> processedItems)
+            throws UploadException {
         int uploadCount = 0;
         if (shouldUploadAuto(media, false)) {
             Triple<StacMedia, Collection<FileMetadata>, Integer> upload = upload(media, true, false);
@@ -198,13 +360,13 @@ public abstract class AbstractOrgStacService extends AbstractOrgService<StacMedi
         if (save) {
             saveMedia(media);
         }
-        processedItems.add(itemUrl.toExternalForm());
+        processedItems.add(media.getUrl().toExternalForm());
         return Pair.of(media, uploadCount);
     }
 
     protected StacMedia fetchStacMedia(String repoId, URL itemUrl) {
         try {
-            StacItem item = jackson.readValue(itemUrl, StacItem.class);
+            StacItem item = getStacItem(cacheManager.getCache(STAC_ITEMS), jackson, itemUrl);
             StacProperties properties = item.properties();
             StacMedia media = new StacMedia();
             media.setUrl(itemUrl);
@@ -235,6 +397,41 @@ public abstract class AbstractOrgStacService extends AbstractOrgService<StacMedi
 
     protected abstract boolean isStacItemIgnored(String itemHref);
 
+    /**
+     * Validators of a fetched STAC catalog, sent in conditional requests to detect unmodified catalogs. Stored as
+     * {@code <Last-Modified>|<ETag>} in the runtime data cursors, by catalog URL.
+     */
+    protected static record StacValidator(String lastModified, String etag) {
+
+        static StacValidator of(Header etag, Header lastModified) {
+            return etag == null && lastModified == null ? null
+                    : new StacValidator(lastModified != null ? lastModified.getValue() : null,
+                            etag != null ? etag.getValue() : null);
+        }
+
+        static StacValidator parse(String s) {
+            if (isBlank(s)) {
+                return null;
+            }
+            String[] values = s.split("\\|", 2);
+            return new StacValidator(trimToNull(values[0]), values.length > 1 ? trimToNull(values[1]) : null);
+        }
+
+        @Override
+        public String toString() {
+            return (lastModified != null ? lastModified : "") + '|' + (etag != null ? etag : "");
+        }
+    }
+
+    /**
+     * Fetched STAC catalog, without content if it was not modified since the given validators.
+     */
+    protected static record StacCatalogFetch(URL url, StacCatalog catalog, StacValidator validator) {
+    }
+
+    private static record StacItemLink(URL url, String catalog) {
+    }
+
     @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
     @JsonIgnoreProperties(ignoreUnknown = true)
     protected static record StacCatalog(String type, String id, String stacVersion, String description,
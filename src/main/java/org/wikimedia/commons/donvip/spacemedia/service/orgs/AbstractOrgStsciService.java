@@ -24,6 +24,7 @@ import org.springframework.context.annotation.Lazy;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.Statistics;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaCounts;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.stsci.StsciMedia;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.stsci.StsciMediaRepository;
 import org.wikimedia.commons.donvip.spacemedia.exception.UploadException;
@@ -229,13 +230,7 @@ public abstract class AbstractOrgStsciService extends AbstractOrgService<StsciMe
         Statistics stats = super.getStatistics(details);
         if (details) {
             stats.setDetails(List.of(new Statistics(mission, mission,
-                    repository.count(getRepoIds()),
-                    repository.countUploadedToCommons(getRepoIds()),
-                    repository.countByMetadata_IgnoredTrue(getRepoIds()),
-                    repository.countMissingImagesInCommons(getRepoIds()),
-                    repository.countMissingVideosInCommons(getRepoIds()),
-                    repository.countMissingDocumentsInCommons(getRepoIds()),
-                    repository.countByMetadata_PhashNotNull(getRepoIds()), null)));
+                    getStatisticsCounts().values().stream().reduce(MediaCounts.ZERO, MediaCounts::plus), null)));
         }
         return stats;
     }
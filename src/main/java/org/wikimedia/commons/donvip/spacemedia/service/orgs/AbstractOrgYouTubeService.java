@@ -20,8 +20,6 @@ import java.util.Optional;
 import java.util.Set;
 
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -209,14 +207,12 @@ public abstract class AbstractOrgYouTubeService extends AbstractOrgService<YouTu
             save = true;
         }
         Path path = !video.getUniqueMetadata().hasSha1() ? downloadVideo(video) : null;
-        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-            if (mediaService.updateMedia(
-                    new MediaUpdateContext<>(video, path, getUrlResolver(), httpClient, null, false,
-                            ignoreExifMetadata()),
-                    getPatternsToRemove(video), getStringsToRemove(video), this::getSimilarUploadedMediaByDate,
-                    checkAllowlist(video), checkBlocklist(video), includeByPerceptualHash()).result()) {
-                save = true;
-            }
+        if (mediaService.updateMedia(
+                new MediaUpdateContext<>(getId(), video, path, getUrlResolver(), httpClient, null, false,
+                        ignoreExifMetadata()),
+                getPatternsToRemove(video), getStringsToRemove(video), this::getSimilarUploadedMediaByDate,
+                checkAllowlist(video), checkBlocklist(video), includeByPerceptualHash()).result()) {
+            save = true;
         }
         if (path != null) {
             Files.deleteIfExists(path);
@@ -0,0 +1,158 @@
+package org.wikimedia.commons.donvip.spacemedia.service.orgs;
+
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikimedia.commons.donvip.spacemedia.utils.MediaUpdateMetrics;
+
+/**
+ * Bounded executor of per-media updates. The network-bound part of each update (fetch, download, hashes, Commons
+ * lookups) runs on a pool of worker threads, with a limited number of concurrent tasks per host. Results are handed
+ * back to the calling thread, which accounts progress and saves {@code RuntimeData} in order of completion, so that
+ * cursors and checkpoints are never updated concurrently.
+ * <p>
+ * Workers are not read-only: {@code doCommonUpdate} saves the file metadata, hashes and EXIF metadata it computes,
+ * and some orgs save and upload whole media in their workers. Each worker loads its own entities, outside of any
+ * shared persistence context, and items must not overlap: a {@code FileMetadata} shared by two media processed
+ * concurrently would be saved by both workers, the last save winning.
+ *
+ * @param <I> the type of items to process
+ * @param <R> the type of worker results
+ */
+public final class MediaUpdateExecutor<I, R> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MediaUpdateExecutor.class);
+
+    /**
+     * Network-bound part of a media update, executed concurrently.
+     */
+    @FunctionalInterface
+    public interface Worker<I, R> {
+        R apply(I item) throws Exception;
+    }
+
+    private record Outcome<I, R>(I item, R result, Exception error) {
+    }
+
+    private final int threads;
+    private final int perHost;
+    private final Map<String, Semaphore> hostLimits = new ConcurrentHashMap<>();
+    private final ExecutorService pool;
+    private final AtomicInteger queueDepth;
+
+    /**
+     * Constructs a new {@code MediaUpdateExecutor}.
+     *
+     * @param org     organization identifier, used in worker thread names and metrics
+     * @param threads number of worker threads. If 1 or less, items are processed sequentially by the calling thread
+     * @param perHost maximum number of concurrent tasks for a same host
+     */
+    public MediaUpdateExecutor(String org, int threads, int perHost) {
+        this.threads = threads;
+        this.perHost = Math.max(1, perHost);
+        this.queueDepth = MediaUpdateMetrics.queueDepth(org);
+        if (threads > 1) {
+            AtomicInteger n = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "media-update-" + org + "-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    /**
+     * Processes the given items.
+     *
+     * @param items   items to process, consumed lazily: at most twice the number of threads are in flight
+     * @param host    returns the host contacted to process an item, used for per-host limits
+     * @param worker  network-bound processing, executed concurrently
+     * @param writer  handles the result of a worker, with the number of items processed so far, executed on the
+     *                calling thread only
+     * @param onError handles the failure of a worker or writer, executed on the calling thread only
+     * @return number of items successfully processed
+     */
+    public int run(Iterable<I> items, Function<I, String> host, Worker<I, R> worker, ObjIntConsumer<R> writer,
+            BiConsumer<I, Exception> onError) {
+        int count = 0;
+        if (pool == null) {
+            for (I item : items) {
+                count += write(new Outcome<>(item, null, null), worker, writer, onError, count);
+            }
+            return count;
+        }
+        CompletionService<Outcome<I, R>> completion = new ExecutorCompletionService<>(pool);
+        int inFlight = 0;
+        try {
+            for (I item : items) {
+                if (inFlight >= 2 * threads) {
+                    count += write(completion.take().get(), null, writer, onError, count);
+                    inFlight--;
+                    queueDepth.decrementAndGet();
+                }
+                completion.submit(() -> work(item, host, worker));
+                inFlight++;
+                queueDepth.incrementAndGet();
+            }
+            for (; inFlight > 0; inFlight--) {
+                count += write(completion.take().get(), null, writer, onError, count);
+                queueDepth.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Media update interrupted with {} tasks in flight", inFlight);
+            queueDepth.addAndGet(-inFlight);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Cannot happen, worker exceptions are captured in outcomes
+            throw new IllegalStateException(e);
+        }
+        return count;
+    }
+
+    private Outcome<I, R> work(I item, Function<I, String> host, Worker<I, R> worker) throws InterruptedException {
+        Semaphore limit = hostLimits.computeIfAbsent(String.valueOf(host.apply(item)), x -> new Semaphore(perHost));
+        limit.acquire();
+        try {
+            return new Outcome<>(item, worker.apply(item), null);
+        } catch (Exception e) {
+            return new Outcome<>(item, null, e);
+        } finally {
+            limit.release();
+        }
+    }
+
+    private int write(Outcome<I, R> outcome, Worker<I, R> worker, ObjIntConsumer<R> writer,
+            BiConsumer<I, Exception> onError, int count) {
+        try {
+            if (outcome.error() != null) {
+                throw outcome.error();
+            }
+            writer.accept(worker != null ? worker.apply(outcome.item()) : outcome.result(), count);
+            return 1;
+        } catch (Exception e) {
+            onError.accept(outcome.item(), e);
+            return 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.wikimedia.commons.donvip.spacemedia.service.orgs;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+
+/**
+ * Write-behind buffer of media to save. Media are collected until the batch size is reached, then saved together in
+ * a single transaction so that their inserts and updates are sent in JDBC batches, instead of one transaction and
+ * several round-trips per media. If a batch fails, its media are saved one by one, so that a single invalid media
+ * does not prevent the others from being saved.
+ * <p>
+ * Not thread-safe: it is meant to be used by the single thread persisting media, such as the calling thread of a
+ * {@link MediaUpdateExecutor}. Pending media are saved when the buffer is closed.
+ *
+ * @param <T> the media type
+ */
+public final class MediaWriteBehind<T extends Media> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MediaWriteBehind.class);
+
+    private final int batchSize;
+    private final Function<List<T>, List<T>> batchSaver;
+    private final UnaryOperator<T> saver;
+    private final BiConsumer<T, RuntimeException> errorHandler;
+    // Keyed by id, so that a media saved twice before a flush is only written once, in its last state
+    private final Map<CompositeMediaId, T> pending = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new {@code MediaWriteBehind}.
+     *
+     * @param batchSize    number of media saved together. If 1 or less, media are saved immediately one by one
+     * @param batchSaver   saves a batch of media in a single transaction
+     * @param saver        saves a single media, used when a batch fails
+     * @param errorHandler handles the failure to save a single media
+     */
+    public MediaWriteBehind(int batchSize, Function<List<T>, List<T>> batchSaver, UnaryOperator<T> saver,
+            BiConsumer<T, RuntimeException> errorHandler) {
+        this.batchSize = Math.max(1, batchSize);
+        this.batchSaver = batchSaver;
+        this.saver = saver;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Schedules the save of a media. The batch of pending media is saved if it is full.
+     *
+     * @param media media to save
+     */
+    public void save(T media) {
+        pending.put(media.getId(), media);
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Returns the number of media waiting to be saved.
+     *
+     * @return the number of media waiting to be saved
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Saves all pending media.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<T> batch = new ArrayList<>(pending.values());
+        pending.clear();
+        if (batch.size() == 1) {
+            saveOne(batch.get(0));
+            return;
+        }
+        try {
+            batchSaver.apply(batch);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to save batch of {} media, saving them one by one: {}", batch.size(),
+                    e.getMessage());
+            batch.forEach(this::saveOne);
+        }
+    }
+
+    private void saveOne(T media) {
+        try {
+            saver.apply(media);
+        } catch (RuntimeException e) {
+            errorHandler.accept(media, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
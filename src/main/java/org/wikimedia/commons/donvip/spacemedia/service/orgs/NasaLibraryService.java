@@ -1,34 +1,39 @@
 package org.wikimedia.commons.donvip.spacemedia.service.orgs;
 
 import static java.util.Collections.singleton;
-import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.wikimedia.commons.donvip.spacemedia.utils.CsvHelper.loadCsvMapping;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.durationInSec;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newURL;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.Year;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import javax.annotation.PostConstruct;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +47,7 @@ import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeData;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaAudio;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaAudioRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaImage;
@@ -81,6 +87,9 @@ public class NasaLibraryService extends AbstractOrgService<NasaMedia> {
     @Value("${nasa.max.tries}")
     private int maxTries;
 
+    @Value("${nasa.library.found.ids.dir:${java.io.tmpdir}/spacemedia/nasa.library}")
+    private String foundIdsDir;
+
     public static final Set<String> NASA_CENTERS = Set.of("AFRC", "ARC", "GRC", "GSFC", "HQ", "JPL", "JSC", "KSC",
             "LARC", "LRC", "MAF", "MSFC", "SSC", "WSTF");
 
@@ -105,6 +114,8 @@ public class NasaLibraryService extends AbstractOrgService<NasaMedia> {
 
     private Map<String, String> nasaKeywords;
 
+    private RestTemplate rest;
+
     @Autowired
     public NasaLibraryService(NasaMediaRepository<NasaMedia> repository) {
         super(repository, "nasa.library", NASA_CENTERS);
@@ -115,6 +126,8 @@ public class NasaLibraryService extends AbstractOrgService<NasaMedia> {
     void init() throws IOException {
         super.init();
         nasaKeywords = loadCsvMapping("nasa.keywords.csv");
+        rest = new RestTemplate();
+        rest.getMessageConverters().add(new NasaResponseHtmlErrorHandler());
     }
 
     @Override
@@ -153,46 +166,52 @@ public class NasaLibraryService extends AbstractOrgService<NasaMedia> {
         return true;
     }
 
-    private <T extends NasaMedia> Pair<Integer, Collection<T>> doUpdateMedia(NasaMediaType mediaType,
-            LocalDate doNotFetchEarlierThan) {
-        return doUpdateMedia(mediaType,
-                doNotFetchEarlierThan != null ? Math.max(minYear, doNotFetchEarlierThan.getYear()) : minYear,
-                LocalDateTime.now().getYear(), null, null, doNotFetchEarlierThan);
-    }
-
-    private <T extends NasaMedia> Pair<Integer, Collection<T>> doUpdateMedia(NasaMediaType mediaType, int year,
-            Set<String> centers, Set<CompositeMediaId> foundIds, LocalDate doNotFetchEarlierThan) {
-        return doUpdateMedia(mediaType, year, year, centers, foundIds, doNotFetchEarlierThan);
+    /**
+     * Fetches and processes all media of a shard. Runs concurrently with other shards: shards do not overlap, so
+     * that a given media is only saved by a single thread.
+     */
+    private NasaLibraryShardResult updateShard(NasaLibraryShard shard) throws IOException {
+        if (shard.type() != NasaMediaType.image) {
+            return doUpdateShard(shard, null);
+        }
+        try (BufferedWriter foundIds = Files.newBufferedWriter(foundIdsFile(shard.key()))) {
+            return doUpdateShard(shard, id -> {
+                try {
+                    foundIds.write(id.toString());
+                    foundIds.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
-    private <T extends NasaMedia> Pair<Integer, Collection<T>> doUpdateMedia(NasaMediaType mediaType, int startYear,
-            int endYear, Set<String> centers, Set<CompositeMediaId> foundIds, LocalDate doNotFetchEarlierThan) {
+    private NasaLibraryShardResult doUpdateShard(NasaLibraryShard shard, Consumer<CompositeMediaId> foundIds) {
         Counter count = new Counter();
-        Collection<T> uploadedMedia = new ArrayList<>();
-        if (doNotFetchEarlierThan == null || endYear >= doNotFetchEarlierThan.getYear()) {
-            LocalDateTime start = LocalDateTime.now();
-            logStartUpdate(mediaType, startYear, endYear, centers);
-            RestTemplate rest = new RestTemplate();
-            rest.getMessageConverters().add(new NasaResponseHtmlErrorHandler());
-            String nextUrl = searchEndpoint + "media_type=" + mediaType + "&year_start=" + startYear + "&year_end="
-                    + endYear;
-            if (centers != null) {
-                nextUrl += "&center=" + String.join(",", centers);
-            }
-            while (nextUrl != null) {
-                String who = centers != null ? centers.toString() : getId();
-                nextUrl = processor.processSearchResults(rest, nextUrl, uploadedMedia, count, who, foundIds,
-                        this::ongoingUpdateMedia, this::doCommonUpdateUnchecked, this::shouldUploadAuto, this::problem,
-                        this::saveMedia, this::saveMediaOrCheckRemote, this::uploadUnchecked);
-            }
-            logEndUpdate(mediaType, startYear, endYear, centers, start, count.count);
+        Collection<NasaMedia> uploadedMedia = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now();
+        Set<String> centers = shard.center() != null ? singleton(shard.center()) : null;
+        logStartUpdate(shard.type(), shard.startYear(), shard.endYear(), centers);
+        String nextUrl = searchEndpoint + "media_type=" + shard.type() + "&year_start=" + shard.startYear()
+                + "&year_end=" + shard.endYear();
+        if (centers != null) {
+            nextUrl += "&center=" + String.join(",", centers);
         }
-        return Pair.of(count.count, uploadedMedia);
+        String who = centers != null ? centers.toString() : getId();
+        while (nextUrl != null && !Thread.currentThread().isInterrupted()) {
+            // No write-behind buffer here: media of a search page are already saved in a single transaction, and
+            // thus sent to the database in JDBC batches
+            nextUrl = processor.processSearchResults(rest, nextUrl, uploadedMedia, count, who, foundIds,
+                    this::ongoingUpdateMedia, this::doCommonUpdateUnchecked, this::shouldUploadAuto, this::problem,
+                    this::saveMedia, this::saveMediaOrCheckRemote, this::uploadUnchecked);
+        }
+        logEndUpdate(shard.type(), shard.startYear(), shard.endYear(), centers, start, count.count);
+        return new NasaLibraryShardResult(shard, count.count, uploadedMedia, nextUrl == null);
     }
 
-    private boolean doCommonUpdateUnchecked(NasaMedia media) {
+    private boolean doCommonUpdateUnchecked(NasaMedia media, Set<String> sha1LookedUp) {
         try {
-            return doCommonUpdate(media);
+            return doCommonUpdate(media, httpClient, null, false, sha1LookedUp).result();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -246,80 +265,150 @@ public class NasaLibraryService extends AbstractOrgService<NasaMedia> {
         }
     }
 
-    public Pair<Integer, Collection<NasaImage>> updateImages() {
-        int count = 0;
-        LocalDateTime start = LocalDateTime.now();
-        List<NasaImage> uploadedImages = new ArrayList<>();
-        Set<CompositeMediaId> foundIds = new TreeSet<>();
-        LocalDate doNotFetchEarlierThan = getRuntimeData().getDoNotFetchEarlierThan();
+    @Override
+    public void updateMedia(String[] args) throws IOException {
+        LocalDateTime start = startUpdateMedia();
+        RuntimeData runtimeData = getRuntimeData();
+        LocalDate doNotFetchEarlierThan = runtimeData.getDoNotFetchEarlierThan();
+        Set<String> completed = new LinkedHashSet<>();
+        if (isNotBlank(runtimeData.getCheckpoint())) {
+            runtimeData.getCheckpoint().lines().forEach(completed::add);
+            LOGGER.info("Resuming interrupted {} update: {} shards already completed", getId(), completed.size());
+        }
+        List<NasaLibraryShard> shards = getShards(doNotFetchEarlierThan);
+        boolean resumed = shards.removeIf(s -> completed.contains(s.key()));
+        Files.createDirectories(Path.of(foundIdsDir));
+        if (!resumed) {
+            deleteFoundIds();
+        }
+        Collection<NasaMedia> uploadedMedia = new ArrayList<>();
+        List<NasaLibraryShard> failedShards = new ArrayList<>();
+        int[] count = { 0 };
+        LocalDateTime[] lastCheckpoint = { LocalDateTime.now() };
+        try (MediaUpdateExecutor<NasaLibraryShard, NasaLibraryShardResult> executor = newMediaUpdateExecutor()) {
+            String searchHost = newURL(searchEndpoint).getHost();
+            executor.run(shards, s -> searchHost, this::updateShard, (result, n) -> {
+                // Merge results and checkpoint progress on the calling thread only
+                uploadedMedia.addAll(result.uploadedMedia());
+                count[0] += result.count();
+                ongoingUpdateMedia(start, count[0]);
+                if (result.shard().type() == NasaMediaType.image && result.shard().center() != null) {
+                    // One post per center and year
+                    postSocialMedia(result.uploadedMedia(),
+                            result.uploadedMedia().stream().flatMap(Media::getMetadataStream).toList());
+                }
+                if (result.complete()) {
+                    completed.add(result.shard().key());
+                    if (lastCheckpoint[0].isBefore(LocalDateTime.now().minusMinutes(1))) {
+                        saveCheckpoint(String.join("\n", completed));
+                        lastCheckpoint[0] = LocalDateTime.now();
+                    }
+                } else {
+                    failedShards.add(result.shard());
+                }
+            }, (s, e) -> {
+                LOGGER.error("Error while fetching NASA {}: {}", s, e.getMessage());
+                GlitchTip.capture(e);
+                failedShards.add(s);
+            });
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            saveCheckpoint(String.join("\n", completed));
+            return;
+        }
+        saveCheckpoint(null);
+        if (!failedShards.isEmpty()) {
+            LOGGER.warn("Not looking for removed NASA images, {} shards failed: {}", failedShards.size(),
+                    failedShards);
+        } else if (doNotFetchEarlierThan == null && completed.stream().filter(k -> k.startsWith(NasaMediaType.image + "/"))
+                .allMatch(k -> Files.exists(foundIdsFile(k)))) {
+            // Delete media removed from NASA website (only for complete updates)
+            checkRemovedImages();
+        }
+        deleteFoundIds();
+        endUpdateMedia(count[0], uploadedMedia, allMetadata(uploadedMedia),
+                start, LocalDate.now().minusYears(1), // NASA sometimes post old images dating a few months back
+                false /* tweets already posted - one by NASA center */);
+    }
+
+    List<NasaLibraryShard> getShards(LocalDate doNotFetchEarlierThan) {
+        int thisYear = Year.now().getValue();
+        int firstYear = doNotFetchEarlierThan != null ? Math.max(minYear, doNotFetchEarlierThan.getYear()) : minYear;
+        List<NasaLibraryShard> shards = new ArrayList<>();
         // Recent years have a lot of photos: search by center to avoid more than 10k results
-        for (int year = LocalDateTime.now().getYear(); year >= 2000; year--) {
+        for (int year = thisYear; year >= Math.max(2000, firstYear); year--) {
             for (String center : NASA_CENTERS) {
-                List<NasaImage> localUploadedImages = new ArrayList<>();
-                Pair<Integer, Collection<NasaImage>> update = doUpdateMedia(NasaMediaType.image, year,
-                        singleton(center), foundIds, doNotFetchEarlierThan);
-                localUploadedImages.addAll(update.getRight());
-                count += update.getLeft();
-                ongoingUpdateMedia(start, count);
-                uploadedImages.addAll(localUploadedImages);
-                postSocialMedia(localUploadedImages,
-                        localUploadedImages.stream().flatMap(Media::getMetadataStream).toList());
+                shards.add(new NasaLibraryShard(NasaMediaType.image, year, year, center));
             }
         }
         // Ancient years have a lot less photos: simple search for all centers
-        for (int year = 1999; year >= minYear; year--) {
-            Pair<Integer, Collection<NasaImage>> update = doUpdateMedia(NasaMediaType.image, year, null, foundIds,
-                    doNotFetchEarlierThan);
-            uploadedImages.addAll(update.getRight());
-            count += update.getLeft();
-            ongoingUpdateMedia(start, count);
+        for (int year = 1999; year >= firstYear; year--) {
+            shards.add(new NasaLibraryShard(NasaMediaType.image, year, year, null));
         }
-        if (doNotFetchEarlierThan == null) {
-            // Delete media removed from NASA website (only for complete updates)
-            for (String center : NASA_CENTERS) {
-                for (NasaImage image : imageRepository.findMissingInCommonsNotIn(Set.of(center),
-                        foundIds.stream().filter(x -> x.getRepoId().equals(center)).map(CompositeMediaId::getMediaId)
-                                .collect(toSet()))) {
+        if (audiosEnabled) {
+            shards.add(new NasaLibraryShard(NasaMediaType.audio, firstYear, thisYear, null));
+        }
+        if (videosEnabled) {
+            shards.add(new NasaLibraryShard(NasaMediaType.video, firstYear, thisYear, null));
+        }
+        return shards;
+    }
+
+    private void checkRemovedImages() throws IOException {
+        for (String center : NASA_CENTERS) {
+            Set<String> foundIds = readFoundIds(center);
+            for (NasaImage image : imageRepository.findMissingInCommons(Set.of(center))) {
+                if (!foundIds.contains(image.getId().getMediaId())) {
                     LOGGER.warn("TODO: deleting {} media removed from NASA website: {}", center, image);
                     // imageRepository.delete(image);
                 }
             }
         }
-        return Pair.of(count, uploadedImages);
     }
 
-    public Pair<Integer, Collection<NasaAudio>> updateAudios() {
-        return doUpdateMedia(NasaMediaType.audio, getRuntimeData().getDoNotFetchEarlierThan());
+    /**
+     * Reads the identifiers of the media of a center found by the image shards of the current update.
+     */
+    private Set<String> readFoundIds(String center) throws IOException {
+        String prefix = center + ':';
+        Set<String> result = new HashSet<>();
+        try (Stream<Path> files = Files.list(Path.of(foundIdsDir))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                try (Stream<String> lines = Files.lines(file)) {
+                    lines.filter(x -> x.startsWith(prefix)).map(x -> x.substring(prefix.length())).forEach(result::add);
+                }
+            }
+        }
+        return result;
     }
 
-    public Pair<Integer, Collection<NasaVideo>> updateVideos() {
-        return doUpdateMedia(NasaMediaType.video, getRuntimeData().getDoNotFetchEarlierThan());
+    private void deleteFoundIds() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(foundIdsDir))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
     }
 
-    @Override
-    public void updateMedia(String[] args) {
-        LocalDateTime start = startUpdateMedia();
-        Collection<NasaMedia> uploadedMedia = new ArrayList<>();
-        int count = 0;
+    private Path foundIdsFile(String shardKey) {
+        return Path.of(foundIdsDir, shardKey.replace('/', '_') + ".ids");
+    }
 
-        Pair<Integer, Collection<NasaImage>> images = updateImages();
-        count += images.getLeft();
-        uploadedMedia.addAll(images.getRight());
+    /**
+     * Unit of work of a NASA library update: all media of a given type and center (or all centers if null) for a
+     * given range of years.
+     */
+    static record NasaLibraryShard(NasaMediaType type, int startYear, int endYear, String center) {
 
-        if (audiosEnabled) {
-            Pair<Integer, Collection<NasaAudio>> audios = updateAudios();
-            count += audios.getLeft();
-            uploadedMedia.addAll(audios.getRight());
+        String key() {
+            return String.join("/", type.name(),
+                    startYear == endYear ? Integer.toString(startYear) : startYear + "-" + endYear,
+                    center != null ? center : "*");
         }
+    }
 
-        if (videosEnabled) {
-            Pair<Integer, Collection<NasaVideo>> videos = updateVideos();
-            count += videos.getLeft();
-            uploadedMedia.addAll(videos.getRight());
-        }
-        endUpdateMedia(count, uploadedMedia, allMetadata(uploadedMedia),
-                start, LocalDate.now().minusYears(1), // NASA sometimes post old images dating a few months back
-                false /* tweets already posted - one by NASA center */);
+    private static record NasaLibraryShardResult(NasaLibraryShard shard, int count,
+            Collection<NasaMedia> uploadedMedia, boolean complete) {
     }
 
     @Override
@@ -39,9 +39,6 @@ import java.util.function.BiPredicate;
 import java.util.function.Function;
 
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
@@ -188,16 +185,15 @@ public class NasaSdoService extends AbstractOrgService<NasaSdoMedia> {
         endUpdateMedia(count, uploadedMedia, start);
     }
 
-    private static List<NasaSdoKeywords> fetchAiaKeywords(LocalDate date) throws IOException {
+    private List<NasaSdoKeywords> fetchAiaKeywords(LocalDate date) throws IOException {
         return fetchKeywords(AIA, date, AIA_DATE_TIME_FORMAT);
     }
 
-    private static List<NasaSdoKeywords> fetchKeywords(NasaSdoInstrument instrument, LocalDate date,
+    private List<NasaSdoKeywords> fetchKeywords(NasaSdoInstrument instrument, LocalDate date,
             DateTimeFormatter dateTimeFormatter) throws IOException {
         URL keywordsUrl = getKeywordsUrl(instrument, date);
         LOGGER.info("Fetching {}", keywordsUrl);
-        try (CloseableHttpClient httpclient = HttpClients.createDefault();
-                ClassicHttpResponse response = executeRequest(newHttpGet(keywordsUrl), httpclient, null, false);
+        try (ClassicHttpResponse response = executeRequest(newHttpGet(keywordsUrl), httpClient, null, false);
                 InputStream in = response.getEntity().getContent()) {
             if (response.getCode() >= 400) {
                 LOGGER.warn("{} => {}", keywordsUrl, response);
@@ -360,13 +356,11 @@ public class NasaSdoService extends AbstractOrgService<NasaSdoMedia> {
                 for (NasaSdoMedia media : sdoRepository.findByMediaTypeAndDimensionsAndDate(mediaType, dims, date)) {
                     for (FileMetadata metadata : media.getMetadataStream()
                             .filter(fm -> fm.isIgnored() != Boolean.TRUE && fm.shouldRead()).toList()) {
-                        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build()) {
-                            mediaService.updateReadableStateAndHashes(
-                                    new MediaUpdateContext<>(media, null, getUrlResolver(), httpClient, null, false,
-                                            false),
-                                    metadata);
-                            ongoingUpdateMedia(start, count + localCount++);
-                        }
+                        mediaService.updateReadableStateAndHashes(
+                                new MediaUpdateContext<>(getId(), media, null, getUrlResolver(), httpClient, null,
+                                        false, false),
+                                metadata);
+                        ongoingUpdateMedia(start, count + localCount++);
                     }
                 }
             }
@@ -13,12 +13,16 @@ import java.util.function.Predicate;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.Statistics;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaKeyset;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaListing;
 import org.wikimedia.commons.donvip.spacemedia.exception.ImageNotFoundException;
 import org.wikimedia.commons.donvip.spacemedia.exception.TooManyResultsException;
 import org.wikimedia.commons.donvip.spacemedia.exception.UploadException;
@@ -67,6 +71,17 @@ public interface Org<T extends Media> {
 
     Page<T> listAllMedia(String repo, Pageable page);
 
+    /**
+     * Lists media by keyset pagination, from newest to oldest, without count query.
+     *
+     * @param listing  media listing
+     * @param repo     repository identifier, or {@code null} for all repositories
+     * @param position keyset position, see {@link MediaKeyset}
+     * @param size     maximum number of media to return
+     * @return a window of media, sorted newest first whatever the scroll direction
+     */
+    Window<T> listMedia(MediaListing listing, String repo, KeysetScrollPosition position, int size);
+
     List<T> listMissingMedia();
 
     Page<T> listMissingMedia(Pageable page);
@@ -194,5 +209,7 @@ public interface Org<T extends Media> {
 
     Page<T> searchMedia(String q, Pageable page);
 
+    void reindexMedia();
+
     T saveMedia(T media);
 }
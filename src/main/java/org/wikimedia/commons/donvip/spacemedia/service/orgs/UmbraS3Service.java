@@ -1,6 +1,7 @@
 package org.wikimedia.commons.donvip.spacemedia.service.orgs;
 
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
+import static org.wikimedia.commons.donvip.spacemedia.service.orgs.AbstractOrgStacService.STAC_ITEMS;
 import static org.wikimedia.commons.donvip.spacemedia.service.orgs.AbstractOrgStacService.getOtherFieldBoundingBox;
 import static org.wikimedia.commons.donvip.spacemedia.service.wikimedia.WikidataItem.Q725252_SATELLITE_IMAGERY;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newURL;
@@ -26,12 +27,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.s3.S3Media;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.s3.S3MediaRepository;
 import org.wikimedia.commons.donvip.spacemedia.service.orgs.UmbraS3Service.UmbraMetadata.Collect;
+import org.wikimedia.commons.donvip.spacemedia.service.s3.S3KeyIndex;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.SdcStatements;
 import org.wikimedia.commons.donvip.spacemedia.utils.Emojis;
 
@@ -58,6 +61,9 @@ public class UmbraS3Service extends AbstractOrgS3Service {
     private static final Pattern UUID_REGEX = Pattern
             .compile(".+/([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})/.+");
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     public UmbraS3Service(S3MediaRepository repository,
             @Value("${umbra.s3.region}") Regions region,
@@ -84,7 +90,7 @@ public class UmbraS3Service extends AbstractOrgS3Service {
 
     @Override
     protected Optional<String> getOtherFields(S3Media media) {
-        return getStacItemUrl(media).map(itemUrl -> getOtherFieldBoundingBox(jackson, itemUrl))
+        return getStacItemUrl(media).map(itemUrl -> getOtherFieldBoundingBox(cacheManager.getCache(STAC_ITEMS), jackson, itemUrl))
                 .orElse(Optional.empty());
     }
 
@@ -126,12 +132,14 @@ public class UmbraS3Service extends AbstractOrgS3Service {
     }
 
     @Override
-    protected boolean skipMedia(S3Media media, List<S3Media> files) {
-        String key = media.getIdUsedInOrg();
-        return key.toLowerCase(Locale.ENGLISH).contains(CSI_TIF) && files.stream()
-                .anyMatch(f -> f.getIdUsedInOrg()
-                        .startsWith(key.substring(0, key.toLowerCase(Locale.ENGLISH).lastIndexOf(CSI_TIF)))
-                        && !f.getIdUsedInOrg().toLowerCase(Locale.ENGLISH).contains(CSI_TIF));
+    protected boolean skipMedia(S3Media media, S3KeyIndex keys) {
+        return isCsiWithSibling(media.getIdUsedInOrg(), keys);
+    }
+
+    static boolean isCsiWithSibling(String key, S3KeyIndex keys) {
+        int csi = key.toLowerCase(Locale.ENGLISH).lastIndexOf(CSI_TIF);
+        return csi >= 0 && keys.anyWithPrefix(key.substring(0, csi),
+                k -> !k.toLowerCase(Locale.ENGLISH).contains(CSI_TIF));
     }
 
     @Override
@@ -0,0 +1,61 @@
+package org.wikimedia.commons.donvip.spacemedia.service.s3;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/**
+ * Immutable index of the object keys of a bucket listing, sorted to find keys by prefix in O(log n) by binary search
+ * instead of scanning the whole listing.
+ */
+public final class S3KeyIndex {
+
+    private final String[] keys;
+
+    private S3KeyIndex(String[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Builds a new index. Keys listed by S3 are already sorted, so this is linear in practice.
+     *
+     * @param keys object keys
+     * @return new index of the given keys
+     */
+    public static S3KeyIndex of(Collection<String> keys) {
+        String[] sorted = keys.toArray(String[]::new);
+        Arrays.sort(sorted);
+        return new S3KeyIndex(sorted);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean contains(String key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    /**
+     * Determines if at least one key starting with the given prefix matches the given predicate. Only keys sharing the
+     * prefix are tested.
+     *
+     * @param prefix    key prefix
+     * @param predicate predicate to test on keys starting with prefix
+     * @return {@code true} if a key starting with prefix matches predicate
+     */
+    public boolean anyWithPrefix(String prefix, Predicate<String> predicate) {
+        for (int i = firstIndexOf(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            if (predicate.test(keys[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int firstIndexOf(String prefix) {
+        int i = Arrays.binarySearch(keys, prefix);
+        // A key equal to prefix sorts first, otherwise keys starting with prefix follow the insertion point
+        return i >= 0 ? i : -i - 1;
+    }
+}
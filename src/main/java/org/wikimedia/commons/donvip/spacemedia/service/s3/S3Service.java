@@ -1,11 +1,20 @@
 package org.wikimedia.commons.donvip.spacemedia.service.s3;
 
-import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,7 +25,8 @@ import com.amazonaws.SDKGlobalConfiguration;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.nimbusds.oauth2.sdk.util.StringUtils;
@@ -34,30 +44,66 @@ public class S3Service {
         System.setProperty(SDKGlobalConfiguration.AWS_EC2_METADATA_DISABLED_SYSTEM_PROPERTY, "true");
     }
 
+    /** S3 clients are thread-safe and pool their connections: build them once per region */
+    private final Map<Regions, AmazonS3> clients = new ConcurrentHashMap<>();
+
+    private AmazonS3 client(Regions region) {
+        return clients.computeIfAbsent(region, r -> AmazonS3ClientBuilder.standard().withRegion(r).build());
+    }
+
     public <T> List<T> getFiles(Regions region, String bucket, String prefix, Set<String> allowedExtensions,
             Function<S3ObjectSummary, T> mapper, Predicate<T> predicate, Comparator<T> comparator) {
-        LOGGER.info("Looking for S3 files in {} with prefix {} ...", bucket, prefix);
-        AmazonS3 s3 = AmazonS3ClientBuilder.standard().withRegion(region).build();
-        List<T> result = new ArrayList<>();
-        ObjectListing listing = StringUtils.isBlank(prefix) ? s3.listObjects(bucket) : s3.listObjects(bucket, prefix);
-        addObjects(result, listing, allowedExtensions, mapper);
-        while (listing.isTruncated()) {
-            listing = s3.listNextBatchOfObjects(listing);
-            addObjects(result, listing, allowedExtensions, mapper);
-        }
-        LOGGER.debug("S3 files before filtering: {}", result);
-        return result.stream().filter(predicate).sorted(comparator.reversed()).toList();
+        return streamFiles(region, bucket, prefix, allowedExtensions).map(mapper).filter(predicate)
+                .sorted(comparator.reversed()).toList();
     }
 
-    private static <T> boolean addObjects(List<T> result, ObjectListing listing, Set<String> allowedExtensions,
-            Function<S3ObjectSummary, T> mapper) {
-        return result.addAll(listing.getObjectSummaries().stream()
-                .filter(x -> allowedExtensions.contains(x.getKey().substring(x.getKey().lastIndexOf('.') + 1)))
-                .map(mapper)
-                .toList());
+    /**
+     * Lists the files of a bucket lazily: pages of the listing are fetched as the stream is consumed, in key order.
+     *
+     * @param region            bucket region
+     * @param bucket            bucket name
+     * @param prefix            optional key prefix
+     * @param allowedExtensions file extensions to retain
+     * @return summaries of the files matching the given prefix and extensions
+     */
+    public Stream<S3ObjectSummary> streamFiles(Regions region, String bucket, String prefix,
+            Set<String> allowedExtensions) {
+        LOGGER.info("Looking for S3 files in {} with prefix {} ...", bucket, prefix);
+        AmazonS3 s3 = client(region);
+        ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(bucket)
+                .withPrefix(StringUtils.isBlank(prefix) ? null : prefix);
+        Iterator<List<S3ObjectSummary>> pages = new Iterator<>() {
+            private ListObjectsV2Result page;
+
+            @Override
+            public boolean hasNext() {
+                return page == null || page.isTruncated();
+            }
+
+            @Override
+            public List<S3ObjectSummary> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (page != null) {
+                    request.setContinuationToken(page.getNextContinuationToken());
+                }
+                page = s3.listObjectsV2(request);
+                return page.getObjectSummaries();
+            }
+        };
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .flatMap(List::stream)
+                .filter(x -> allowedExtensions.contains(x.getKey().substring(x.getKey().lastIndexOf('.') + 1)));
     }
 
     public S3Object getObject(Regions region, String bucket, String key) {
-        return AmazonS3ClientBuilder.standard().withRegion(region).build().getObject(bucket, key);
+        return client(region).getObject(bucket, key);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        clients.values().forEach(AmazonS3::shutdown);
     }
 }
@@ -0,0 +1,56 @@
+package org.wikimedia.commons.donvip.spacemedia.service.wikimedia;
+
+import java.time.Duration;
+
+/**
+ * Chunk size of a chunked upload, adapted to the observed throughput: it doubles while full chunks are sent in less
+ * than half the target duration, and is halved when they take more than twice the target duration or fail.
+ */
+final class AdaptiveChunkSize {
+
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+    private int current;
+
+    AdaptiveChunkSize(int min, int initial, int max, Duration target) {
+        this.min = Math.max(1, min);
+        this.max = Math.max(this.min, max);
+        this.targetNanos = target.toNanos();
+        this.current = Math.min(this.max, Math.max(this.min, initial));
+    }
+
+    /**
+     * Returns the size of the next chunk.
+     *
+     * @return the size of the next chunk, in bytes
+     */
+    int get() {
+        return current;
+    }
+
+    /**
+     * Records a chunk sent successfully.
+     *
+     * @param bytes size of the chunk, in bytes
+     * @param nanos duration of the chunk request, in nanoseconds
+     */
+    void sent(int bytes, long nanos) {
+        if (bytes < current) {
+            // Last chunk of the file, not representative
+            return;
+        }
+        if (nanos < targetNanos / 2) {
+            current = (int) Math.min(max, 2L * current);
+        } else if (nanos > 2 * targetNanos) {
+            current = Math.max(min, current / 2);
+        }
+    }
+
+    /**
+     * Records a failed chunk.
+     */
+    void failed() {
+        current = Math.max(min, current / 2);
+    }
+}
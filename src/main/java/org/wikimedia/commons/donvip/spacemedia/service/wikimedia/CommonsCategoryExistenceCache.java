@@ -0,0 +1,121 @@
+package org.wikimedia.commons.donvip.spacemedia.service.wikimedia;
+
+import static java.time.LocalDateTime.now;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.collections4.ListUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.wikimedia.commons.donvip.spacemedia.data.commons.CommonsCategoryRepository;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CommonsCategoryExistence;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CommonsCategoryExistenceRepository;
+
+/**
+ * Size-bounded cache of Commons category existence probes, with expiration. Results are persisted in the domain
+ * database so that they survive job restarts and are shared by all update jobs. At startup the most recent entries
+ * are loaded in memory, and expired ones are checked again against the Commons replica in batches.
+ */
+@Lazy
+@Service
+public class CommonsCategoryExistenceCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommonsCategoryExistenceCache.class);
+
+    @Autowired
+    private CommonsCategoryRepository categoryRepository;
+
+    @Autowired
+    private CommonsCategoryExistenceRepository existenceRepository;
+
+    @Value("${commons.category.cache.size:100000}")
+    private int maxSize;
+
+    @Value("${commons.category.cache.ttl.days:30}")
+    private int ttlDays;
+
+    @Value("${commons.category.cache.batch.size:500}")
+    private int batchSize;
+
+    private Map<String, CommonsCategoryExistence> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CommonsCategoryExistence> eldest) {
+                return size() > maxSize;
+            }
+        });
+        LocalDateTime expiry = now().minusDays(ttlDays);
+        List<CommonsCategoryExistence> entries = existenceRepository
+                .findByOrderByCheckedDesc(PageRequest.of(0, maxSize));
+        List<CommonsCategoryExistence> expired = new ArrayList<>();
+        // Insert oldest first, to keep LRU order
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            CommonsCategoryExistence entry = entries.get(i);
+            if (entry.getChecked().isAfter(expiry)) {
+                cache.put(entry.getTitle(), entry);
+            } else {
+                expired.add(entry);
+            }
+        }
+        refresh(expired);
+        // Drop entries that did not fit in memory, and entries expired before
+        int deleted = existenceRepository.deleteByCheckedBefore(
+                entries.size() >= maxSize ? entries.get(entries.size() - 1).getChecked() : expiry);
+        LOGGER.info("Loaded {} category existence entries, refreshed {} expired ones, deleted {} old ones",
+                cache.size(), expired.size(), deleted);
+    }
+
+    private void refresh(List<CommonsCategoryExistence> expired) {
+        for (List<CommonsCategoryExistence> batch : ListUtils.partition(expired, batchSize)) {
+            Set<String> existing = categoryRepository
+                    .findTitleByTitleIn(batch.stream().map(CommonsCategoryExistence::getTitle).toList());
+            LocalDateTime checked = now();
+            for (CommonsCategoryExistence entry : batch) {
+                entry.setPageExists(existing.contains(entry.getTitle()));
+                entry.setChecked(checked);
+                cache.put(entry.getTitle(), entry);
+            }
+            existenceRepository.saveAll(batch);
+        }
+    }
+
+    /**
+     * Determines if a Commons category page exists, from cache if possible.
+     *
+     * @param title sanitized category title
+     * @return {@code true} if the category page exists
+     */
+    public boolean existsCategoryPage(String title) {
+        CommonsCategoryExistence entry = cache.get(title);
+        if (entry != null && entry.getChecked().isAfter(now().minusDays(ttlDays))) {
+            return entry.isPageExists();
+        }
+        entry = new CommonsCategoryExistence(title, categoryRepository.findByTitle(title).isPresent(), now());
+        cache.put(title, entry);
+        try {
+            existenceRepository.save(entry);
+        } catch (RuntimeException e) {
+            // Another job may have saved the same entry concurrently
+            LOGGER.debug("Unable to save {}: {}", entry, e.getMessage());
+        }
+        return entry.isPageExists();
+    }
+}
@@ -2,7 +2,6 @@ package org.wikimedia.commons.donvip.spacemedia.service.wikimedia;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.time.LocalDateTime.now;
-import static java.time.temporal.ChronoUnit.SECONDS;
 import static java.time.temporal.TemporalQueries.localDate;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
@@ -29,9 +28,9 @@ import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.prependChildEl
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.urlToUri;
 
 import java.awt.image.BufferedImage;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -39,8 +38,12 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -56,6 +59,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -78,12 +82,12 @@ import javax.annotation.Resource;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -118,7 +122,6 @@ import org.wikidata.wdtk.wikibaseapi.OAuthApiConnection;
 import org.wikidata.wdtk.wikibaseapi.WikibaseDataEditor;
 import org.wikidata.wdtk.wikibaseapi.WikibaseDataFetcher;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
-import org.wikimedia.commons.donvip.spacemedia.data.commons.CommonsCategory;
 import org.wikimedia.commons.donvip.spacemedia.data.commons.CommonsCategoryLink;
 import org.wikimedia.commons.donvip.spacemedia.data.commons.CommonsCategoryLinkId;
 import org.wikimedia.commons.donvip.spacemedia.data.commons.CommonsCategoryLinkRepository;
@@ -168,6 +171,7 @@ import org.wikimedia.commons.donvip.spacemedia.exception.IgnoreException;
 import org.wikimedia.commons.donvip.spacemedia.exception.UploadException;
 import org.wikimedia.commons.donvip.spacemedia.service.AbstractSocialMediaService;
 import org.wikimedia.commons.donvip.spacemedia.service.ExecutionMode;
+import org.wikimedia.commons.donvip.spacemedia.service.PerceptualHashIndexService;
 import org.wikimedia.commons.donvip.spacemedia.service.RemoteService;
 import org.wikimedia.commons.donvip.spacemedia.utils.Emojis;
 import org.wikimedia.commons.donvip.spacemedia.utils.HashHelper;
@@ -217,10 +221,20 @@ public class CommonsService {
     private static final Set<String> PPT_EXTENSIONS = Set.of("ppt", "pptm", "pptx");
 
     /**
-     * Minimal delay between successive uploads, in seconds.
+     * Minimal delay between successive uploads, in seconds, if the upload rate limit of the account is unknown.
      */
     private static final int DELAY = 5;
 
+    /**
+     * Size of the first chunk of chunked uploads, sent to obtain a file key quickly.
+     */
+    private static final int FIRST_CHUNK_SIZE = 16_384;
+
+    /**
+     * Maximum number of attempts to send a same chunk.
+     */
+    private static final int MAX_CHUNK_ATTEMPTS = 4;
+
     private static final int MAX_LEN_SEARCH = 266;
 
     /**
@@ -243,6 +257,10 @@ public class CommonsService {
     @Autowired
     private CommonsCategoryLinkRepository categoryLinkRepository;
 
+    @Lazy
+    @Autowired
+    private CommonsCategoryExistenceCache categoryExistenceCache;
+
     @Autowired
     private CommonsPageRestrictionsRepository restrictionsRepository;
 
@@ -252,6 +270,13 @@ public class CommonsService {
     @Autowired
     private HashAssociationRepository hashRepository;
 
+    @Autowired
+    private CloseableHttpClient httpClient;
+
+    @Lazy
+    @Autowired
+    private PerceptualHashIndexService hashIndex;
+
     @Autowired
     protected RuntimeDataRepository runtimeDataRepository;
 
@@ -332,9 +357,27 @@ public class CommonsService {
     @Value("${commons.automatic.hashes.computation.desc:false}")
     private boolean automaticHashComputationDesc;
 
+    @Value("${commons.sha1.batch.size:500}")
+    private int sha1BatchSize;
+
     @Value("${commons.duplicates.lag.threshold:1}")
     private double lagThreshold;
 
+    @Value("${commons.upload.max.in.flight:2}")
+    private int maxInFlightUploads;
+
+    @Value("${commons.upload.chunk.size.min:1048576}")
+    private int minChunkSize;
+
+    @Value("${commons.upload.chunk.size.initial:5242880}")
+    private int initialChunkSize;
+
+    @Value("${commons.upload.chunk.size.max:33554432}")
+    private int maxChunkSize;
+
+    @Value("${commons.upload.chunk.target.seconds:15}")
+    private long chunkTargetSeconds;
+
     @Autowired
     private ExecutorService taskExecutor;
 
@@ -349,8 +392,8 @@ public class CommonsService {
     private final OAuth1AccessToken oAuthAccessToken;
 
     private UserInfo userInfo;
-    private String token;
-    private LocalDateTime lastUpload;
+    private volatile String token;
+    private CommonsUploadScheduler uploads;
 
     public static final DateTimeFormatter timestampFormatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss", ENGLISH);
     public static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyyMMdd000000", ENGLISH);
@@ -394,12 +437,14 @@ public class CommonsService {
         if (!hasUploadRight() && !hasUploadByUrlRight()) {
             LOGGER.warn("Wikimedia Commons user account has no upload right!");
         }
+        Limit uploadRate = null;
         if (userInfo.getRateLimits() != null && userInfo.getRateLimits().getUpload() != null) {
-            Limit uploadRate = userInfo.getRateLimits().getUpload().getUser();
+            uploadRate = userInfo.getRateLimits().getUpload().getUser();
             LOGGER.info("Upload rate limited to {} hits every {} seconds.", uploadRate.getHits(), uploadRate.getSeconds());
         } else {
             LOGGER.warn("Cannot retrieve upload rate for Wikimedia Commons user account!");
         }
+        uploads = new CommonsUploadScheduler(uploadRate, maxInFlightUploads, DELAY);
         // Fetch CSRF token, mandatory for upload using the Mediawiki API
         token = queryTokens().getCsrftoken();
         LOGGER.info("CSRF token: {}", token);
@@ -469,6 +514,45 @@ public class CommonsService {
         return files;
     }
 
+    /**
+     * Finds files in Wikimedia Commons for each of the given SHA-1 hashes, with chunked {@code IN} queries. Each hash
+     * is looked up as in {@link #findFilesWithSha1(Collection)}: in current images, then old images, then file
+     * archive.
+     *
+     * @param sha1s SHA-1 hashes, can be either in base 36 (31 characters) or base
+     *              16 (40 characters)
+     * @return Commons file names for each given SHA-1 hash having at least one
+     * @throws IOException in case of I/O error
+     */
+    public Map<String, Set<String>> findFilesWithEachSha1(Collection<String> sha1s) throws IOException {
+        Map<String, Set<String>> sha1sByBase36 = new HashMap<>();
+        for (String sha1 : sha1s) {
+            sha1sByBase36.computeIfAbsent(sha1.length() == 31 ? sha1 : base36Sha1(sha1), x -> new HashSet<>())
+                    .add(sha1);
+        }
+        Map<String, Set<String>> filesByBase36 = new HashMap<>();
+        for (List<String> chunk : ListUtils.partition(new ArrayList<>(sha1sByBase36.keySet()), sha1BatchSize)) {
+            imageRepository.findBySha1InOrderByTimestamp(chunk).forEach(
+                    i -> filesByBase36.computeIfAbsent(i.getSha1(), x -> new HashSet<>()).add(i.getName()));
+        }
+        List<String> notFound = sha1sByBase36.keySet().stream().filter(x -> !filesByBase36.containsKey(x)).toList();
+        for (List<String> chunk : ListUtils.partition(notFound, sha1BatchSize)) {
+            oldImageRepository.findBySha1In(chunk).forEach(
+                    i -> filesByBase36.computeIfAbsent(i.getSha1(), x -> new HashSet<>()).add(i.getName()));
+        }
+        for (String sha1 : notFound) {
+            if (!filesByBase36.containsKey(sha1)) {
+                Set<String> files = queryFileArchive(sha1).stream().map(FileArchive::getName).collect(toSet());
+                if (!files.isEmpty()) {
+                    filesByBase36.put(sha1, files);
+                }
+            }
+        }
+        Map<String, Set<String>> result = new HashMap<>();
+        filesByBase36.forEach((k, v) -> sha1sByBase36.getOrDefault(k, Set.of()).forEach(sha1 -> result.put(sha1, v)));
+        return result;
+    }
+
     /**
      * Converts a SHA-1 into base 36 SHA-1 used by Commons.
      *
@@ -695,11 +779,8 @@ public class CommonsService {
         return categoryRepository.findByTitle(sanitizeCategory(category)).isPresent();
     }
 
-    @Transactional(transactionManager = "commonsTransactionManager")
-    @Cacheable("existsCategoryPage")
     public boolean existsCategoryPage(String category) {
-        return categoryRepository.findByTitle(sanitizeCategory(category)).map(CommonsCategory::getTitle)
-                .map(pageRepository::findByCategoryTitle).isPresent();
+        return categoryExistenceCache.existsCategoryPage(sanitizeCategory(category));
     }
 
     @Transactional(transactionManager = "commonsTransactionManager")
@@ -913,7 +994,7 @@ public class CommonsService {
                 || permittedFileTypes.stream().anyMatch(type -> lowerCaseUrl.endsWith("." + type));
     }
 
-    private synchronized String doUpload(String wikiCode, String filename, String ext, URL url, String sha1,
+    private String doUpload(String wikiCode, String filename, String ext, URL url, String sha1,
             String orgId, CompositeMediaId mediaId, Long metadataId, boolean audio, UploadErrorPolicy errorPolicy,
             boolean uploadByUrl) throws IOException, UploadException {
         if (Video2CommonsService.V2C_VIDEO_EXTENSIONS.stream().anyMatch(
@@ -941,6 +1022,7 @@ public class CommonsService {
             params.put("text", wikiCode);
         }
         Pair<Path, Long> localFile = null;
+        CommonsUploadScheduler.Upload upload = uploads.start(filenameExt);
         try {
             boolean doUploadByUrl = !isPpt && uploadByUrl && hasUploadByUrlRight();
             if (doUploadByUrl) {
@@ -953,13 +1035,11 @@ public class CommonsService {
                 }
             }
 
-            ensureUploadRate();
-
             UploadApiResponse apiResponse = null;
             if (doUploadByUrl) {
                 try {
                     LOGGER.info("Uploading {} by URL as {}..", url, filenameExt);
-                    apiResponse = apiHttpPost(params, UploadApiResponse.class);
+                    apiResponse = uploads.transfer(upload, u -> apiHttpPost(params, UploadApiResponse.class));
                 } catch (IOException e) {
                     String msg = e.getMessage();
                     if (msg != null && (msg.contains("bytes exhausted (tried to allocate")
@@ -973,7 +1053,9 @@ public class CommonsService {
                 }
             } else if (localFile != null) {
                 LOGGER.info("Uploading {} in chunks as {}..", url, filenameExt);
-                apiResponse = doUploadInChunks(targetExt, params, localFile, 5_242_880);
+                Pair<Path, Long> file = localFile;
+                apiResponse = uploads.transfer(upload,
+                        u -> doUploadInChunks(targetExt, params, file, u));
             }
             LOGGER.info("Upload of {} as {}: {}", url, filenameExt, apiResponse);
             if (apiResponse == null) {
@@ -982,6 +1064,7 @@ public class CommonsService {
             return handleUploadResponse(wikiCode, filename, ext, url, sha1, orgId, mediaId, metadataId, audio,
                     errorPolicy, uploadByUrl, localFile, targetExt, params, apiResponse, false);
         } finally {
+            uploads.end(upload);
             if (localFile != null) {
                 Files.deleteIfExists(localFile.getKey());
             }
@@ -1061,8 +1144,15 @@ public class CommonsService {
                             if (mustDownloadFile) {
                                 Files.deleteIfExists(localFile.getKey());
                             }
-                            localFile = Pair.of(fixedFile.toPath(), fixedFile.length());
-                            apiResponse = doUploadInChunks(targetExt, params, localFile, 5_242_880);
+                            Pair<Path, Long> fixedLocalFile = Pair.of(fixedFile.toPath(), fixedFile.length());
+                            localFile = fixedLocalFile;
+                            CommonsUploadScheduler.Upload fixedUpload = uploads.start(params.get("filename"));
+                            try {
+                                apiResponse = uploads.transfer(fixedUpload,
+                                        u -> doUploadInChunks(targetExt, params, fixedLocalFile, u));
+                            } finally {
+                                uploads.end(fixedUpload);
+                            }
                             if (apiResponse != null) {
                                 return handleUploadResponse(wikiCode, filename, ext, url, sha1, orgId, mediaId,
                                         metadataId, audio, errorPolicy, uploadByUrl, localFile, targetExt, params,
@@ -1248,36 +1338,57 @@ public class CommonsService {
         return result != null && result.length() > limit ? result.substring(0, limit) : result;
     }
 
-    private UploadApiResponse doUploadInChunks(String ext, Map<String, String> params,
-            Pair<Path, Long> localFile, int chunkSize) throws IOException, UploadException {
+    private UploadApiResponse doUploadInChunks(String ext, Map<String, String> params, Pair<Path, Long> localFile,
+            CommonsUploadScheduler.Upload upload) throws IOException, UploadException {
         String url = params.remove("url");
-        try (InputStream in = Files.newInputStream(localFile.getKey())) {
+        try (FileChannel channel = FileChannel.open(localFile.getKey(), StandardOpenOption.READ)) {
             String comment = params.remove("comment");
             String text = params.remove("text");
+            long size = localFile.getValue();
 
             // Upload by chunk
-            params.put("filesize", localFile.getValue().toString());
-            params.put("offset", "0");
+            params.put("filesize", Long.toString(size));
             params.put("stash", "1");
 
             // #1: Pass content for the first chunk
-            int index = 0;
-            byte[] bytes = in.readNBytes(16_384);
-            UploadApiResponse apiResponse = apiHttpPost(params, UploadApiResponse.class,
-                    newChunkPayload(bytes, index++, ext)).checkStatus();
-
             // #2: Pass filekey parameter for second and further chunks
-            while (bytes.length > 0) {
-                params.put("filekey", apiResponse.getUpload().getFilekey());
-                params.put("offset", Long.toString(apiResponse.getUpload().getOffset()));
-                bytes = in.readNBytes(chunkSize);
-                if (bytes.length > 0) {
-                    apiResponse = apiHttpPost(params, UploadApiResponse.class, newChunkPayload(bytes, index++, ext))
-                            .checkStatus();
+            AdaptiveChunkSize chunkSize = new AdaptiveChunkSize(minChunkSize, initialChunkSize, maxChunkSize,
+                    Duration.ofSeconds(chunkTargetSeconds));
+            byte[] buffer = new byte[(int) Math.min(size, FIRST_CHUNK_SIZE)];
+            long offset = 0;
+            int index = 0;
+            int attempts = 0;
+            while (offset < size) {
+                int length = (int) Math.min(size - offset, index == 0 ? FIRST_CHUNK_SIZE : chunkSize.get());
+                if (buffer.length < length) {
+                    buffer = new byte[length];
                 }
+                readChunk(channel, offset, buffer, length);
+                params.put("offset", Long.toString(offset));
+                long start = System.nanoTime();
+                try {
+                    UploadApiResponse apiResponse = apiHttpPost(params, UploadApiResponse.class,
+                            newChunkPayload(buffer, length, index, ext)).checkStatus();
+                    params.put("filekey", apiResponse.getUpload().getFilekey());
+                } catch (IOException e) {
+                    if (++attempts >= MAX_CHUNK_ATTEMPTS) {
+                        throw e;
+                    }
+                    chunkSize.failed();
+                    offset = acknowledgedChunkOffset(params.get("filekey"), offset);
+                    LOGGER.warn("Failed to upload chunk {} of {} ({}), resuming from offset {}", index,
+                            params.get("filename"), e.getMessage(), offset);
+                    continue;
+                }
+                chunkSize.sent(length, System.nanoTime() - start);
+                upload.transferred(length);
+                offset += length;
+                index++;
+                attempts = 0;
             }
 
             // #3: Final upload using the filekey to commit the upload out of the stash area
+            upload.phase(CommonsUploadScheduler.Phase.COMMIT);
             params.remove("offset");
             params.remove("stash");
             params.put("comment", comment);
@@ -1288,17 +1399,42 @@ public class CommonsService {
         }
     }
 
-    private static FileByteArrayBodyPartPayload newChunkPayload(byte[] bytes, int index, String ext) {
-        return new FileByteArrayBodyPartPayload("application/octet-stream", bytes, "chunk",
-                Integer.toString(index) + '.' + ext);
+    private static void readChunk(FileChannel channel, long offset, byte[] buffer, int length) throws IOException {
+        // Positional reads straight into the reused chunk buffer, without intermediate stream buffers
+        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, length);
+        while (chunk.hasRemaining()) {
+            if (channel.read(chunk, offset + chunk.position()) < 0) {
+                throw new EOFException("Unexpected end of file at offset " + (offset + chunk.position()));
+            }
+        }
     }
 
-    private void ensureUploadRate() throws UploadException {
-        LocalDateTime fiveSecondsAgo = now().minusSeconds(DELAY);
-        if (lastUpload != null && lastUpload.isAfter(fiveSecondsAgo)) {
-            Utils.sleep(DELAY - SECONDS.between(now(), lastUpload.plusSeconds(DELAY)));
+    /**
+     * Asks Commons the offset of the next chunk expected for an interrupted chunked upload.
+     *
+     * @param filekey  key of the stashed file, or null if no chunk has been acknowledged yet
+     * @param fallback offset to use if Commons cannot tell, i.e. the offset of the failed chunk
+     * @return offset from which the upload must be resumed
+     */
+    private long acknowledgedChunkOffset(String filekey, long fallback) {
+        if (filekey == null) {
+            return 0;
         }
-        lastUpload = now();
+        try {
+            UploadApiResponse status = apiHttpPost(Map.of("action", "upload", "checkstatus", "1", "filekey", filekey,
+                    "format", "json", "token", token), UploadApiResponse.class);
+            if (status.getError() == null && status.getUpload() != null && status.getUpload().getOffset() > 0) {
+                return status.getUpload().getOffset();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to check status of stashed file {}: {}", filekey, e.getMessage());
+        }
+        return fallback;
+    }
+
+    private static FileByteArrayBodyPartPayload newChunkPayload(byte[] bytes, int length, int index, String ext) {
+        return new FileByteArrayBodyPartPayload("application/octet-stream", bytes, 0, length, "chunk",
+                Integer.toString(index) + '.' + ext);
     }
 
     public void checkExactDuplicateFiles() throws IOException {
@@ -1530,7 +1666,7 @@ public class CommonsService {
     public HashAssociation computeAndSaveHash(String sha1, String name, String mime) {
         if (!hashRepository.existsById(sha1)) {
             BufferedImage bi = null;
-            try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            try {
                 URL url = getImageUrl(name);
                 bi = (BufferedImage) MediaUtils.readFile(url, null, null, false, false, httpClient, null).contents();
                 if (bi == null) {
@@ -1538,6 +1674,7 @@ public class CommonsService {
                 }
                 HashAssociation hash = hashRepository.save(
                         new HashAssociation(sha1, HashHelper.encode(HashHelper.computePerceptualHash(bi)), mime));
+                hashIndex.index(hash);
                 if (hashMode == ExecutionMode.REMOTE) {
                     remote.putHashAssociation(hash);
                 }
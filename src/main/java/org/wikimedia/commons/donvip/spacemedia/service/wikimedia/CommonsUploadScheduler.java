@@ -0,0 +1,189 @@
+package org.wikimedia.commons.donvip.spacemedia.service.wikimedia;
+
+import static java.util.Locale.ENGLISH;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.wikimedia.commons.donvip.spacemedia.data.commons.api.Limit;
+import org.wikimedia.commons.donvip.spacemedia.exception.UploadException;
+import org.wikimedia.commons.donvip.spacemedia.utils.TokenBucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Schedules uploads to Wikimedia Commons. Uploads of different files run concurrently, up to a maximum number of
+ * in-flight transfers, and start no faster than the upload rate limit granted to the bot account. The phase of each
+ * upload is tracked, and the number of uploads in each phase (including the backlog of queued ones) is reported to
+ * Micrometer.
+ */
+final class CommonsUploadScheduler {
+
+    enum Phase {
+        /** Local copy of the file being downloaded, for chunked uploads */
+        DOWNLOAD,
+        /** Waiting for an upload slot or for the rate limit */
+        QUEUED,
+        /** File being sent to Commons, by URL or in chunks */
+        TRANSFER,
+        /** Stashed chunks being committed to the final file */
+        COMMIT
+    }
+
+    /**
+     * Transfer of a file to Commons, executed once an upload slot is available.
+     */
+    @FunctionalInterface
+    interface Transfer<T> {
+        T run(Upload upload) throws IOException, UploadException;
+    }
+
+    private static final Map<Phase, AtomicInteger> PHASES = new EnumMap<>(Phase.class);
+
+    private static final Counter UPLOADED_BYTES = Metrics.counter("spacemedia.commons.uploaded");
+
+    private static final Timer UPLOADS = Metrics.timer("spacemedia.commons.upload");
+
+    static {
+        for (Phase phase : Phase.values()) {
+            PHASES.put(phase, Metrics.gauge("spacemedia.commons.uploads",
+                    Tags.of("phase", phase.name().toLowerCase(ENGLISH)), new AtomicInteger()));
+        }
+    }
+
+    /**
+     * State of an upload.
+     */
+    static final class Upload {
+        private final String filename;
+        private final long start = System.nanoTime();
+        private final AtomicLong transferred = new AtomicLong();
+        private Phase phase;
+
+        private Upload(String filename) {
+            this.filename = filename;
+        }
+
+        synchronized void phase(Phase newPhase) {
+            if (phase != null) {
+                PHASES.get(phase).decrementAndGet();
+            }
+            if (newPhase != null) {
+                PHASES.get(newPhase).incrementAndGet();
+            }
+            phase = newPhase;
+        }
+
+        synchronized Phase getPhase() {
+            return phase;
+        }
+
+        void transferred(long bytes) {
+            transferred.addAndGet(bytes);
+            UPLOADED_BYTES.increment(bytes);
+        }
+
+        long getTransferred() {
+            return transferred.get();
+        }
+
+        String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public String toString() {
+            return "Upload [filename=" + filename + ", phase=" + getPhase() + ", transferred=" + getTransferred()
+                    + "]";
+        }
+    }
+
+    private final TokenBucket rate;
+    private final Semaphore slots;
+    private final Set<Upload> uploads = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a new {@code CommonsUploadScheduler}.
+     *
+     * @param limit        upload rate limit of the bot account, can be null
+     * @param maxInFlight  maximum number of concurrent transfers
+     * @param defaultDelay minimal delay between uploads in seconds, if the rate limit is unknown
+     */
+    CommonsUploadScheduler(Limit limit, int maxInFlight, int defaultDelay) {
+        int max = Math.max(1, maxInFlight);
+        this.slots = new Semaphore(max, true);
+        this.rate = limit != null && limit.getHits() > 0 && limit.getSeconds() > 0
+                ? new TokenBucket((double) limit.getHits() / limit.getSeconds(), Math.min(limit.getHits(), max))
+                : new TokenBucket(1d / defaultDelay, 1);
+    }
+
+    /**
+     * Starts tracking a new upload.
+     *
+     * @param filename target filename
+     * @return state of the new upload, to end after use
+     */
+    Upload start(String filename) {
+        Upload upload = new Upload(filename);
+        upload.phase(Phase.DOWNLOAD);
+        uploads.add(upload);
+        return upload;
+    }
+
+    /**
+     * Transfers a file to Commons once an upload slot is available and the rate limit allows it.
+     *
+     * @param upload   upload state
+     * @param transfer transfer to execute
+     * @return result of transfer
+     */
+    <T> T transfer(Upload upload, Transfer<T> transfer) throws IOException, UploadException {
+        upload.phase(Phase.QUEUED);
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UploadException("Interrupted while waiting for an upload slot: " + upload, e);
+        }
+        try {
+            rate.acquire();
+            upload.phase(Phase.TRANSFER);
+            return transfer.run(upload);
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Stops tracking an upload.
+     *
+     * @param upload upload state
+     */
+    void end(Upload upload) {
+        if (uploads.remove(upload)) {
+            upload.phase(null);
+            UPLOADS.record(System.nanoTime() - upload.start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the uploads currently tracked.
+     *
+     * @return the uploads currently tracked
+     */
+    Collection<Upload> getUploads() {
+        return List.copyOf(uploads);
+    }
+}
@@ -0,0 +1,19 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.hc.core5.http.Header;
+
+/**
+ * Asset downloaded once to a temporary file, with its SHA-1 computed on the fly. Closing it deletes the file.
+ */
+public record DownloadedFile(Path path, String sha1, long size, Header[] contentDisposition) implements Closeable {
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
@@ -99,7 +99,8 @@ public final class HashHelper {
     }
 
     public static double similarityScore(String phash1, String phash2) {
-        return similarityScore(decode(requireNonNull(phash1, "phash1")), decode(requireNonNull(phash2, "phash2")));
+        return PerceptualHash.decode(requireNonNull(phash1, "phash1"))
+                .similarityScore(PerceptualHash.decode(requireNonNull(phash2, "phash2")));
     }
 
     public static double similarityScore(BigInteger phash1, String phash2) {
@@ -110,6 +111,27 @@ public final class HashHelper {
         return newHash(phash1).normalizedHammingDistanceFast(newHash(phash2));
     }
 
+    /**
+     * Returns the number of differing bits between two perceptual hashes.
+     *
+     * @param phash1 first perceptual hash
+     * @param phash2 second perceptual hash
+     * @return Hamming distance between the two hashes
+     */
+    public static int hammingDistance(BigInteger phash1, BigInteger phash2) {
+        return phash1.xor(phash2).bitCount();
+    }
+
+    /**
+     * Converts a normalized similarity threshold, as used by {@link #similarityScore}, to a maximal Hamming distance.
+     *
+     * @param threshold normalized threshold, between 0 and 1
+     * @return maximal Hamming distance, inclusive
+     */
+    public static int maxHammingDistance(double threshold) {
+        return (int) Math.floor(threshold * BIT_RESOLUTION);
+    }
+
     private static Hash newHash(BigInteger phash) {
         return new Hash(requireNonNull(phash, "phash"), BIT_RESOLUTION, ALGORITHM_ID);
     }
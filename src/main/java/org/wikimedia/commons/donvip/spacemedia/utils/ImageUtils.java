@@ -28,8 +28,6 @@ import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.ImageOutputStream;
 
 import org.apache.hc.client5.http.classic.HttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -115,12 +113,11 @@ public class ImageUtils {
         }
     }
 
-    public static int readNumberOfImages(URI uri, boolean log) throws IOException {
+    public static int readNumberOfImages(URI uri, HttpClient httpClient, boolean log) throws IOException {
         if (log) {
             LOGGER.info("Reading number of images in {}", uri);
         }
-        try (CloseableHttpClient httpclient = HttpClients.createDefault();
-                InputStream in = executeRequestStream(newHttpGet(uri), httpclient, null)) {
+        try (InputStream in = executeRequestStream(newHttpGet(uri), httpClient, null)) {
             return readNumberOfImages(ImageIO.createImageInputStream(in));
         }
     }
@@ -135,21 +132,18 @@ public class ImageUtils {
         });
     }
 
-    static ContentsAndMetadata<BufferedImage> readWebp(URI uri, boolean readMetadata)
+    static ContentsAndMetadata<BufferedImage> readWebp(Path file, boolean readMetadata)
             throws IOException, FileDecodingException {
-        Path file = Utils.downloadFile(uri, uri.getPath().replace('/', '_')).getKey();
+        Path pngFile = Files.createTempFile("sm", ".png");
         try {
-            Path pngFile = Path.of(file.toString().replace(".webp", ".png"));
             Utils.execOutput(List.of("dwebp", file.toString(), "-o", pngFile.toString()), 1, TimeUnit.MINUTES);
             try (InputStream inPng = Files.newInputStream(pngFile)) {
                 return readImage(inPng, readMetadata);
-            } finally {
-                Files.delete(pngFile);
             }
         } catch (ExecutionException e) {
             throw new IOException(e);
         } finally {
-            Files.delete(file);
+            Files.delete(pngFile);
         }
     }
 
@@ -179,6 +173,15 @@ public class ImageUtils {
         }
     }
 
+    public static Metadata readImageMetadata(Path path) throws IOException {
+        LOGGER.info("Reading EXIF metadata for {}...", path);
+        try {
+            return ImageMetadataReader.readMetadata(path.toFile());
+        } catch (ImageProcessingException e) {
+            throw new IOException(e);
+        }
+    }
+
     public static void convertBigTiffToTiff(File input, File output) throws IOException {
         try (ImageInputStream inputStream = ImageIO.createImageInputStream(input);
                 ImageOutputStream outputStream = ImageIO.createImageOutputStream(output)) {
@@ -0,0 +1,121 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Micrometer meters of the media update pipeline, exposed through the Actuator {@code metrics} endpoint. Meters are
+ * registered in the global registry, to which Spring Boot binds its own registry: they are no-op when no registry is
+ * configured, such as in unit tests.
+ *
+ * <ul>
+ * <li>{@code spacemedia.update.stage}: timer of each stage of a media update, tagged by {@code org}, {@code repo} and
+ * {@code stage}</li>
+ * <li>{@code spacemedia.update.downloaded}: bytes downloaded, tagged by {@code org} and {@code repo}</li>
+ * <li>{@code spacemedia.http.responses}: HTTP responses, tagged by {@code host} and {@code status}</li>
+ * <li>{@code spacemedia.update.queue}: number of media updates in flight, tagged by {@code org}</li>
+ * </ul>
+ */
+public final class MediaUpdateMetrics {
+
+    public static final String CLEANUP = "cleanup";
+    public static final String DOWNLOAD = "download";
+    public static final String DECODE = "decode";
+    public static final String SHA1 = "sha1";
+    public static final String PHASH = "phash";
+    public static final String EXIF = "exif";
+    public static final String COMMONS = "commons";
+    public static final String SAVE = "save";
+
+    private static final String STAGE_TIMER = "spacemedia.update.stage";
+    private static final String DOWNLOADED_BYTES = "spacemedia.update.downloaded";
+    private static final String HTTP_RESPONSES = "spacemedia.http.responses";
+    private static final String QUEUE_DEPTH = "spacemedia.update.queue";
+
+    private static final String UNKNOWN = "unknown";
+
+    private static final Map<String, AtomicInteger> QUEUES = new ConcurrentHashMap<>();
+
+    private MediaUpdateMetrics() {
+        // Hide default constructor
+    }
+
+    @FunctionalInterface
+    public interface Stage<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Executes and times a stage of a media update.
+     *
+     * @param stage stage name
+     * @param org   organization identifier
+     * @param repo  repository identifier
+     * @param call  stage to execute
+     * @return result of the stage
+     * @throws E if the stage fails. Failed stages are timed too
+     */
+    public static <T, E extends Exception> T time(String stage, String org, String repo, Stage<T, E> call) throws E {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            record(stage, org, repo, start);
+        }
+    }
+
+    /**
+     * Records the duration of a stage of a media update, for stages throwing several checked exceptions.
+     *
+     * @param stage stage name
+     * @param org   organization identifier
+     * @param repo  repository identifier
+     * @param start start of the stage, as returned by {@link System#nanoTime}
+     */
+    public static void record(String stage, String org, String repo, long start) {
+        Metrics.timer(STAGE_TIMER, tags(org, repo).and("stage", stage)).record(System.nanoTime() - start,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts bytes downloaded to update media.
+     *
+     * @param org   organization identifier
+     * @param repo  repository identifier
+     * @param bytes number of bytes downloaded
+     */
+    public static void countDownloadedBytes(String org, String repo, long bytes) {
+        Metrics.counter(DOWNLOADED_BYTES, tags(org, repo)).increment(bytes);
+    }
+
+    /**
+     * Counts a HTTP response.
+     *
+     * @param host   remote host
+     * @param status HTTP status code
+     */
+    public static void countHttpResponse(String host, int status) {
+        Metrics.counter(HTTP_RESPONSES, "host", host != null ? host : UNKNOWN, "status", Integer.toString(status))
+                .increment();
+    }
+
+    /**
+     * Returns the number of media updates in flight for an organization, registering its gauge on first call.
+     *
+     * @param org organization identifier
+     * @return number of media updates in flight, to be updated by the caller
+     */
+    public static AtomicInteger queueDepth(String org) {
+        return QUEUES.computeIfAbsent(org != null ? org : UNKNOWN,
+                x -> Metrics.gauge(QUEUE_DEPTH, Tags.of("org", x), new AtomicInteger()));
+    }
+
+    private static Tags tags(String org, String repo) {
+        return Tags.of("org", org != null ? org : UNKNOWN, "repo", repo != null ? repo : UNKNOWN);
+    }
+}
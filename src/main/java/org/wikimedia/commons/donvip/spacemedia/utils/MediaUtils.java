@@ -1,6 +1,7 @@
 package org.wikimedia.commons.donvip.spacemedia.utils;
 
 import static com.drew.metadata.file.FileSystemDirectory.TAG_FILE_SIZE;
+import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.execOutput;
@@ -21,6 +22,9 @@ import java.net.URLDecoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -34,6 +38,8 @@ import java.util.regex.Pattern;
 
 import javax.imageio.IIOException;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -41,6 +47,7 @@ import org.apache.hc.client5.http.classic.HttpClient;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.ProtocolException;
 import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -114,6 +121,63 @@ public class MediaUtils {
         }
     }
 
+    /**
+     * Reads a file previously downloaded with {@link #downloadFile}, without any new HTTP request.
+     */
+    public static <T> ContentsAndMetadata<T> readFile(URL url, String extension, DownloadedFile file,
+            boolean readMetadata) throws IOException, FileDecodingException {
+        URI uri = urlToUriUnchecked(url);
+        if (isBlank(extension)) {
+            extension = findExtension(uri.toString());
+        }
+        try (InputStream in = Files.newInputStream(file.path())) {
+            return readFile(uri, extension, file.path(), readMetadata, in, file.contentDisposition(), file::size);
+        }
+    }
+
+    /**
+     * Downloads the given asset to a temporary file in a single pass, computing its SHA-1 while streaming it.
+     * The returned file can then be decoded, hashed and scanned for EXIF metadata without downloading it again.
+     *
+     * @param url         asset URL
+     * @param extension   expected file extension
+     * @param httpClient  HTTP client
+     * @param context     HTTP client context
+     * @return downloaded file, to be closed by caller to delete it
+     * @throws IOException           in case of I/O error
+     * @throws FileDecodingException if the file is too big to be processed
+     */
+    public static DownloadedFile downloadFile(URL url, String extension, HttpClient httpClient,
+            HttpClientContext context) throws IOException, FileDecodingException {
+        URI uri = urlToUriUnchecked(url);
+        if (isBlank(extension)) {
+            extension = findExtension(uri.toString());
+        }
+        LOGGER.info("Downloading file {}", uri);
+        try (ClassicHttpResponse response = executeRequest(newHttpGet(uri), httpClient, context)) {
+            HttpEntity entity = requireNonNull(response.getEntity(), "entity");
+            long contentLength = entity.getContentLength();
+            if (contentLength > CommonsService.MAX_FILE_SIZE) {
+                throw new FileDecodingException(contentLength, "File too big: " + uri + " => " + contentLength);
+            }
+            long usableSpace = new File(System.getProperty("java.io.tmpdir")).getUsableSpace();
+            if (usableSpace < contentLength) {
+                throw new IOException("Not enough usable disk space (" + usableSpace + " bytes) to download " + uri
+                        + " (" + contentLength + " bytes)");
+            }
+            Path tempFile = Files.createTempFile("sm", "." + extension);
+            MessageDigest sha1 = DigestUtils.getSha1Digest();
+            try (InputStream in = new DigestInputStream(entity.getContent(), sha1)) {
+                long size = Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                return new DownloadedFile(tempFile, Hex.encodeHexString(sha1.digest()), size,
+                        response.getHeaders("Content-Disposition"));
+            } catch (IOException | RuntimeException e) {
+                Files.delete(tempFile);
+                throw e;
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> ContentsAndMetadata<T> readFile(URI uri, String extension, Path localPath, boolean readMetadata,
             InputStream in, Header[] disposition, LongSupplier contentLength) throws IOException, FileDecodingException {
@@ -174,9 +238,8 @@ public class MediaUtils {
             default -> throw new UnsupportedOperationException("Unsupported video format: " + extension);
             };
         } else if ("webp".equals(extension)) {
-            ContentsAndMetadata<BufferedImage> result = ImageUtils.readWebp(uri, readMetadata);
-            return (ContentsAndMetadata<T>) new ContentsAndMetadata<>(result.contents(),
-                    contentLength(contentLength, result::contentLength), filename, extension, 1, null);
+            return (ContentsAndMetadata<T>) readWebp(localPath, contentLength, filename, extension, uri, dl,
+                    readMetadata);
         } else if ("pdf".equals(extension)) {
             try {
                 PdfRandomAccessReadBuffer reader = new PdfRandomAccessReadBuffer(in);
@@ -301,6 +364,25 @@ public class MediaUtils {
         });
     }
 
+    private static ContentsAndMetadata<BufferedImage> readWebp(Path localPath, LongSupplier contentLength,
+            String filename, String extension, URI uri, Function<URI, Optional<Path>> downloader,
+            boolean readMetadata) throws FileDecodingException, IOException {
+        // Decodes the bytes already downloaded, either to the local file or from the input stream
+        return readVideo(localPath, uri, contentLength, downloader, x -> {
+            try {
+                try {
+                    ContentsAndMetadata<BufferedImage> result = ImageUtils.readWebp(x, readMetadata);
+                    return new ContentsAndMetadata<>(result.contents(),
+                            contentLength(contentLength, () -> x.toFile().length()), filename, extension, 1, null);
+                } catch (FileDecodingException e) {
+                    throw new IOException(e);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     // TODO: replace by metadata-extractor when https://github.com/drewnoakes/metadata-extractor/pull/679 is merged
     private static ContentsAndMetadata<MediaDimensions> readWebmVideo(Path path, LongSupplier contentLength,
             String filename, String extension) throws IOException, FileDecodingException {
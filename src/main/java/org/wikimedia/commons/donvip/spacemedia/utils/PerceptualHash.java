@@ -0,0 +1,100 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import static java.util.Objects.requireNonNull;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * 256-bit perceptual hash packed into four {@code long}s, allowing to compute Hamming distances without any
+ * allocation, contrary to {@link BigInteger} and JImageHash {@code Hash}.
+ */
+public final class PerceptualHash {
+
+    /**
+     * Number of bits of a perceptual hash.
+     */
+    public static final int BITS = 256;
+
+    private static final int WORDS = BITS / Long.SIZE;
+
+    private final long[] words;
+
+    private PerceptualHash(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Packs a perceptual hash.
+     *
+     * @param phash perceptual hash, as computed by JImageHash
+     * @return packed perceptual hash
+     * @throws IllegalArgumentException if the hash is negative or larger than 256 bits
+     */
+    public static PerceptualHash of(BigInteger phash) {
+        if (requireNonNull(phash, "phash").signum() < 0 || phash.bitLength() > BITS) {
+            throw new IllegalArgumentException("Not a 256-bit perceptual hash: " + phash);
+        }
+        long[] words = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = phash.shiftRight(i * Long.SIZE).longValue();
+        }
+        return new PerceptualHash(words);
+    }
+
+    /**
+     * Decodes a perceptual hash stored in database.
+     *
+     * @param phash base 36 perceptual hash, can be null
+     * @return packed perceptual hash, or null
+     */
+    public static PerceptualHash decode(String phash) {
+        return phash != null ? of(HashHelper.decode(phash)) : null;
+    }
+
+    /**
+     * Returns the number of differing bits with another perceptual hash.
+     *
+     * @param other other perceptual hash
+     * @return Hamming distance between both hashes
+     */
+    public int distance(PerceptualHash other) {
+        long[] o = other.words;
+        return Long.bitCount(words[0] ^ o[0]) + Long.bitCount(words[1] ^ o[1]) + Long.bitCount(words[2] ^ o[2])
+                + Long.bitCount(words[3] ^ o[3]);
+    }
+
+    /**
+     * Returns the normalized Hamming distance with another perceptual hash, same as
+     * {@link HashHelper#similarityScore(BigInteger, BigInteger)}.
+     *
+     * @param other other perceptual hash
+     * @return normalized Hamming distance between both hashes, between 0 and 1
+     */
+    public double similarityScore(PerceptualHash other) {
+        return distance(other) / (double) BITS;
+    }
+
+    public BigInteger toBigInteger() {
+        BigInteger result = BigInteger.ZERO;
+        for (int i = WORDS - 1; i >= 0; i--) {
+            result = result.shiftLeft(Long.SIZE).or(new BigInteger(Long.toUnsignedString(words[i])));
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || (obj instanceof PerceptualHash other && Arrays.equals(words, other.words));
+    }
+
+    @Override
+    public String toString() {
+        return HashHelper.encode(toBigInteger());
+    }
+}
@@ -0,0 +1,126 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BK-tree of perceptual hashes, using Hamming distance as metric. Allows to find all hashes within a given distance
+ * of a query hash without scanning the whole set. Thread-safe: lookups run concurrently, insertions are exclusive.
+ */
+public class PerceptualHashTree {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root;
+    private int size;
+
+    /**
+     * Adds a perceptual hash and the SHA-1 of a file having it.
+     *
+     * @param phash perceptual hash
+     * @param sha1  SHA-1 of file
+     * @return {@code true} if the tree has been modified
+     */
+    public boolean add(PerceptualHash phash, String sha1) {
+        requireNonNull(phash, "phash");
+        requireNonNull(sha1, "sha1");
+        lock.writeLock().lock();
+        try {
+            if (root == null) {
+                root = new Node(phash, sha1);
+                size++;
+                return true;
+            }
+            Node node = root;
+            while (true) {
+                int distance = phash.distance(node.phash);
+                if (distance == 0) {
+                    return node.sha1s.add(sha1);
+                }
+                Node child = node.children.get(distance);
+                if (child == null) {
+                    node.children.put(distance, new Node(phash, sha1));
+                    size++;
+                    return true;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the SHA-1 of all files having a perceptual hash within the given Hamming distance of the given one.
+     *
+     * @param phash       perceptual hash to look for
+     * @param maxDistance maximum Hamming distance, inclusive
+     * @return SHA-1 of all matching files, closest ones first
+     */
+    public List<String> findWithin(PerceptualHash phash, int maxDistance) {
+        requireNonNull(phash, "phash");
+        List<List<String>> byDistance = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return List.of();
+            }
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int distance = phash.distance(node.phash);
+                if (distance <= maxDistance) {
+                    while (byDistance.size() <= distance) {
+                        byDistance.add(new ArrayList<>());
+                    }
+                    byDistance.get(distance).addAll(node.sha1s);
+                }
+                // Triangle inequality: only subtrees at distance [d-max, d+max] can contain matches
+                for (Map.Entry<Integer, Node> e : node.children.entrySet()) {
+                    if (Math.abs(e.getKey() - distance) <= maxDistance) {
+                        stack.push(e.getValue());
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return byDistance.stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Returns the number of distinct perceptual hashes in this tree.
+     *
+     * @return the number of distinct perceptual hashes in this tree
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Node {
+        private final PerceptualHash phash;
+        private final Set<String> sha1s = new LinkedHashSet<>(2);
+        private final Map<Integer, Node> children = new HashMap<>(4);
+
+        Node(PerceptualHash phash, String sha1) {
+            this.phash = phash;
+            sha1s.add(sha1);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable Aho–Corasick automaton finding all occurrences of a fixed set of terms in a single pass over a text.
+ * Matching is case-sensitive, like {@link String#contains}. Thread-safe once built.
+ */
+public final class TermMatcher {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    /** Sorted transition characters of each node */
+    private final char[][] chars;
+    /** Child nodes, in the same order as {@link #chars} */
+    private final int[][] children;
+    /** Longest proper suffix of each node that is also a node */
+    private final int[] fail;
+    /** Nearest node in the failure chain (node itself excluded) that ends a term, or {@link #NONE} */
+    private final int[] output;
+    /** Term ending at each node, or {@code null} */
+    private final String[] terms;
+
+    /**
+     * Builds a new automaton for the given terms. Empty terms are ignored.
+     *
+     * @param terms terms to look for
+     */
+    public TermMatcher(Collection<String> terms) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<String> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(null);
+        for (String term : terms) {
+            if (term == null || term.isEmpty()) {
+                continue;
+            }
+            int node = ROOT;
+            for (int i = 0; i < term.length(); i++) {
+                Integer next = trie.get(node).get(term.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(node).put(term.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    ends.add(null);
+                }
+                node = next;
+            }
+            ends.set(node, term);
+        }
+        int n = trie.size();
+        chars = new char[n][];
+        children = new int[n][];
+        for (int node = 0; node < n; node++) {
+            Map<Character, Integer> edges = trie.get(node);
+            chars[node] = new char[edges.size()];
+            children[node] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> e : edges.entrySet()) {
+                chars[node][i] = e.getKey();
+                children[node][i++] = e.getValue();
+            }
+        }
+        this.terms = ends.toArray(new String[n]);
+        fail = new int[n];
+        output = new int[n];
+        output[ROOT] = NONE;
+        // Breadth-first computation of failure and output links
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : children[ROOT]) {
+            fail[child] = ROOT;
+            output[child] = NONE;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < chars[node].length; i++) {
+                int child = children[node][i];
+                int f = step(fail[node], chars[node][i]);
+                fail[child] = f;
+                output[child] = this.terms[f] != null ? f : output[f];
+                queue.add(child);
+            }
+        }
+    }
+
+    private int child(int node, char c) {
+        int i = Arrays.binarySearch(chars[node], c);
+        return i >= 0 ? children[node][i] : NONE;
+    }
+
+    private int step(int node, char c) {
+        int next;
+        while ((next = child(node, c)) == NONE && node != ROOT) {
+            node = fail[node];
+        }
+        return next == NONE ? ROOT : next;
+    }
+
+    /**
+     * Returns all terms contained in the given text.
+     *
+     * @param text text to scan
+     * @return all terms contained in {@code text}, sorted
+     */
+    public SortedSet<String> findAll(String text) {
+        SortedSet<String> result = new TreeSet<>();
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, text.charAt(i));
+            for (int m = terms[node] != null ? node : output[node]; m != NONE; m = output[m]) {
+                result.add(terms[m]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if the given text contains at least one term.
+     *
+     * @param text text to scan
+     * @return {@code true} if {@code text} contains at least one term
+     */
+    public boolean containsAny(String text) {
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, text.charAt(i));
+            if (terms[node] != null || output[node] != NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if the given text starts with at least one term.
+     *
+     * @param text text to scan
+     * @return {@code true} if {@code text} starts with at least one term
+     */
+    public boolean startsWithAny(String text) {
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            if ((node = child(node, text.charAt(i))) == NONE) {
+                return false;
+            } else if (terms[node] != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,77 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread-safe token bucket, limiting the rate of operations shared by several threads. Tokens are refilled
+ * continuously at the configured rate, up to the burst capacity. A non-positive rate disables the limit.
+ */
+public final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Constructs a new {@code TokenBucket}, initially full.
+     *
+     * @param permitsPerSecond number of permits granted per second. Non-positive to disable the limit
+     * @param burst            maximum number of permits that can be granted at once after an idle period
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Acquires a permit, waiting as long as needed. Like Guava's {@code RateLimiter}, waiting is uninterruptible:
+     * the interrupt status of the current thread is preserved.
+     */
+    public void acquire() {
+        long deadline = System.nanoTime() + reserve();
+        for (long wait; (wait = deadline - System.nanoTime()) > 0;) {
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    /**
+     * Acquires a permit if one is available immediately.
+     *
+     * @return {@code true} if a permit has been acquired
+     */
+    public synchronized boolean tryAcquire() {
+        if (tokensPerNano <= 0) {
+            return true;
+        }
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reserves a permit, possibly in the future.
+     *
+     * @return number of nanoseconds to wait before using the reserved permit
+     */
+    synchronized long reserve() {
+        if (tokensPerNano <= 0) {
+            return 0;
+        }
+        refill();
+        tokens--;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -67,7 +67,9 @@ import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpRequest;
 import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.net.URIAuthority;
 import org.apache.hc.core5.util.Timeout;
 import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
@@ -207,7 +209,19 @@ public final class Utils {
     public static ClassicHttpResponse executeRequest(HttpUriRequestBase request, HttpClient httpclient,
             HttpClientContext context, boolean checkResponse) throws IOException {
         ClassicHttpResponse response = httpclient.executeOpen(null, request, context);
-        return checkResponse ? checkResponse(request, response) : response;
+        URIAuthority authority = request.getAuthority();
+        MediaUpdateMetrics.countHttpResponse(authority != null ? authority.getHostName() : null, response.getCode());
+        if (checkResponse) {
+            try {
+                return checkResponse(request, response);
+            } catch (IOException e) {
+                // Callers never get the response to close, release its pooled connection now
+                EntityUtils.consumeQuietly(response.getEntity());
+                response.close();
+                throw e;
+            }
+        }
+        return response;
     }
 
     public static <T extends HttpResponse> T checkResponse(HttpRequest request, T response) throws IOException {
@@ -0,0 +1,75 @@
+package org.wikimedia.commons.donvip.spacemedia.apps;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SpacemediaCacheConfigurationTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(registry);
+        cacheManager = new SpacemediaCacheConfiguration().cacheManager(new MockEnvironment()
+                .withProperty("cache.spec.default", "maximumSize=2")
+                .withProperty("cache.spec.filesInCategory", "maximumWeight=10"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void testRegionsAreBounded() {
+        CaffeineCache counts = (CaffeineCache) cacheManager.getCache("copGalCount");
+        for (int i = 0; i < 10; i++) {
+            counts.put(i, (long) i);
+        }
+        counts.getNativeCache().cleanUp();
+        assertEquals(2, counts.getNativeCache().estimatedSize());
+
+        CaffeineCache files = (CaffeineCache) cacheManager.getCache("filesInCategory");
+        files.put("Small", Set.of("a", "b"));
+        files.put("Large", IntStream.range(0, 20).boxed().collect(Collectors.toSet()));
+        files.getNativeCache().cleanUp();
+        assertNull(files.get("Large"));
+        assertEquals(Set.of("a", "b"), files.get("Small").get());
+    }
+
+    @Test
+    void testEvictAllEntries() {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache("stacCount");
+        cache.put("x", 1L);
+        cache.clear();
+        assertNull(cache.get("x"));
+    }
+
+    @Test
+    void testMetrics() {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache("existsCategory");
+        cache.put("Foo", true);
+        cache.get("Foo");
+        cache.get("Bar");
+        assertEquals(1, registry.get("cache.gets").tags("cache", "existsCategory", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "existsCategory", "result", "miss")
+                .functionCounter().count());
+    }
+}
@@ -0,0 +1,63 @@
+package org.wikimedia.commons.donvip.spacemedia.apps;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.notFound;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.Test;
+import org.wikimedia.commons.donvip.spacemedia.utils.Utils;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@WireMockTest
+class SpacemediaHttpConfigurationTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testConnectionPool() {
+        try (PoolingHttpClientConnectionManager pool = SpacemediaHttpConfiguration.newHttpConnectionManager(registry,
+                50, 4, 5, 30)) {
+            assertEquals(50, pool.getMaxTotal());
+            assertEquals(4, pool.getDefaultMaxPerRoute());
+            assertNotNull(registry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "spacemedia")
+                    .gauge());
+            assertNotNull(registry.get("httpcomponents.httpclient.pool.total.connections")
+                    .tags("httpclient", "spacemedia", "state", "leased").gauge());
+        }
+    }
+
+    @Test
+    void testErrorResponsesReleaseConnections(WireMockRuntimeInfo wmRuntimeInfo) throws IOException {
+        stubFor(get("/missing").willReturn(notFound().withBody("Not found")));
+        try (PoolingHttpClientConnectionManager pool = SpacemediaHttpConfiguration.newHttpConnectionManager(registry,
+                2, 2, 5, 5);
+                CloseableHttpClient httpClient = new SpacemediaHttpConfiguration().httpClient(pool, 60)) {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(
+                    RequestConfig.custom().setConnectionRequestTimeout(Timeout.ofSeconds(1)).build());
+            for (int i = 0; i < 5; i++) {
+                // A leaked connection would make the third request wait for the pool, and fail on its timeout
+                IOException e = assertThrows(IOException.class, () -> Utils.executeRequest(
+                        new HttpGet(wmRuntimeInfo.getHttpBaseUrl() + "/missing"), httpClient, context));
+                assertTrue(e.getMessage().contains("404"), e.getMessage());
+            }
+            assertEquals(0, pool.getTotalStats().getLeased());
+        }
+    }
+}
@@ -1,20 +1,57 @@
 package org.wikimedia.commons.donvip.spacemedia.apps;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newURL;
+
+import java.time.LocalDate;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.stac.StacMedia;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.stac.StacMediaRepository;
+import org.wikimedia.commons.donvip.spacemedia.service.StatsService;
+import org.wikimedia.commons.donvip.spacemedia.service.orgs.Org;
 
 @ActiveProfiles({ "test", "job-capella" })
 @Testcontainers(disabledWithoutDocker = true)
 @SpringBootTest(classes = SpacemediaOrgStacUpdateJobApplication.class)
 class SpacemediaOrgStacUpdateJobApplicationTest {
 
+    private static final String REPO_ID = "capella-open-data";
+    private static final String ITEM_ID = "CAPELLA_C14_SP_SLC_VV_20240414014317_20240414014346";
+
+    @Autowired
+    private Org<StacMedia> org;
+
+    @Autowired
+    private StacMediaRepository repository;
+
+    @Autowired
+    private StatsService statsService;
+
     @Test
     void testContextLoads(ApplicationContext context) {
         assertNotNull(context);
     }
+
+    @Test
+    void testSaveMediaUpdatesStatistics() {
+        long before = statsService.getCounts(Set.of(REPO_ID), repository).get(REPO_ID).totalMedia();
+
+        StacMedia media = new StacMedia();
+        media.setId(new CompositeMediaId(REPO_ID, ITEM_ID));
+        media.setUrl(newURL("https://capella-open-data.test/" + ITEM_ID + ".json"));
+        media.setTitle(ITEM_ID);
+        media.setPublicationDate(LocalDate.of(2024, 4, 14));
+        org.saveMedia(media);
+
+        assertEquals(before + 1, statsService.getCounts(Set.of(REPO_ID), repository).get(REPO_ID).totalMedia());
+    }
 }
@@ -0,0 +1,79 @@
+package org.wikimedia.commons.donvip.spacemedia.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition.Direction;
+import org.springframework.data.domain.Window;
+import org.springframework.web.server.ResponseStatusException;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaKeyset;
+
+class CursorPageTest {
+
+    @Test
+    void testPosition() {
+        assertTrue(CursorPage.position(null, null).isInitial());
+        assertTrue(CursorPage.position("", null).isInitial());
+
+        KeysetScrollPosition after = CursorPage.position("2024-02-01,repo:id:with,chars", null);
+        assertEquals(Direction.FORWARD, after.getDirection());
+        assertEquals(LocalDate.of(2024, 2, 1), after.getKeys().get(MediaKeyset.PUBLICATION_DATE));
+        assertEquals("repo", after.getKeys().get(MediaKeyset.REPO_ID));
+        assertEquals("id:with,chars", after.getKeys().get(MediaKeyset.MEDIA_ID));
+        assertEquals("2024-02-01,repo:id:with,chars", CursorPage.cursor(after));
+
+        KeysetScrollPosition before = CursorPage.position(null, ",repo:id");
+        assertEquals(Direction.BACKWARD, before.getDirection());
+        assertNull(before.getKeys().get(MediaKeyset.PUBLICATION_DATE));
+        assertEquals(",repo:id", CursorPage.cursor(before));
+
+        assertThrows(ResponseStatusException.class, () -> CursorPage.position("repo:id", null));
+        assertThrows(ResponseStatusException.class, () -> CursorPage.position("2024-13-01,repo:id", null));
+    }
+
+    @Test
+    void testLinks() {
+        Window<Media> window = window(true);
+        CursorPage<Media> first = CursorPage.of(window, CursorPage.position(null, null), 2);
+        assertNull(first.previous());
+        assertEquals(",repo:b", first.next());
+
+        CursorPage<Media> middle = CursorPage.of(window, CursorPage.position("2024-03-01,repo:0", null), 2);
+        assertEquals("2024-03-01,repo:a", middle.previous());
+        assertEquals(",repo:b", middle.next());
+
+        CursorPage<Media> last = CursorPage.of(window(false), CursorPage.position("2024-03-01,repo:0", null), 2);
+        assertEquals("2024-03-01,repo:a", last.previous());
+        assertNull(last.next());
+
+        CursorPage<Media> back = CursorPage.of(window(false), CursorPage.position(null, ",repo:c"), 2);
+        assertNull(back.previous());
+        assertEquals(",repo:b", back.next());
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        assertEquals(PagingSortingDefaults.MAX_SIZE,
+                CursorPage.<Media>of((position, n) -> window(false), null, null, 1_000_000).size());
+        assertEquals(1, CursorPage.<Media>of((position, n) -> window(false), null, null, -5).size());
+    }
+
+    private static Window<Media> window(boolean hasNext) {
+        Media a = new Media();
+        a.setId(new CompositeMediaId("repo", "a"));
+        a.setPublicationDate(LocalDate.of(2024, 3, 1));
+        Media b = new Media();
+        b.setId(new CompositeMediaId("repo", "b"));
+        List<Media> content = List.of(a, b);
+        return Window.from(content, i -> MediaKeyset.position(content.get(i), Direction.FORWARD), hasNext);
+    }
+}
@@ -0,0 +1,45 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class MediaCountsTest {
+
+    @Test
+    void testOf() {
+        Media media = new Media();
+        assertEquals(new MediaCounts(1, 0, 0, 0, 0, 0, 0), MediaCounts.of(media));
+
+        FileMetadata jpg = new FileMetadata();
+        jpg.setExtension("jpg");
+        jpg.setPhash("1");
+        FileMetadata png = new FileMetadata();
+        png.setExtension("png");
+        FileMetadata mp4 = new FileMetadata();
+        mp4.setExtension("mp4");
+        mp4.setIgnored(true);
+        media.addMetadata(jpg);
+        media.addMetadata(png);
+        media.addMetadata(mp4);
+        // Counted once per media, ignored files are never missing
+        assertEquals(new MediaCounts(1, 0, 1, 1, 0, 0, 1), MediaCounts.of(media));
+
+        jpg.setCommonsFileNames(Set.of("File.jpg"));
+        assertEquals(new MediaCounts(1, 1, 1, 1, 0, 0, 1), MediaCounts.of(media));
+        png.setCommonsFileNames(Set.of("File.png"));
+        assertEquals(new MediaCounts(1, 1, 1, 0, 0, 0, 1), MediaCounts.of(media));
+    }
+
+    @Test
+    void testArithmetic() {
+        MediaCounts a = new MediaCounts(1, 1, 0, 1, 0, 0, 1);
+        MediaCounts b = new MediaCounts(1, 0, 1, 0, 1, 1, 0);
+        assertEquals(new MediaCounts(2, 1, 1, 1, 1, 1, 1), a.plus(b));
+        assertEquals(new MediaCounts(0, 1, -1, 1, -1, -1, 1), a.minus(b));
+        assertTrue(a.minus(a).isZero());
+    }
+}
@@ -0,0 +1,81 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.ScrollPosition.Direction;
+import org.springframework.data.domain.Window;
+
+class MediaKeysetTest {
+
+    private final List<Object> args = new ArrayList<>();
+
+    @Test
+    void testScrollInitial() {
+        Window<Media> window = MediaKeyset.scroll(new MediaKeyset.Query<>((set, date, repoId, mediaId, page) -> {
+            args.addAll(List.of(set, page.getPageSize()));
+            assertNull(date);
+            assertNull(repoId);
+            assertNull(mediaId);
+            return List.of(media("a", "2024-03-01"), media("b", "2024-02-01"), media("c", null));
+        }, (set, date, repoId, mediaId, page) -> fail()), Set.of("repo"), ScrollPosition.keyset(), 2);
+
+        assertEquals(List.of(Set.of("repo"), 3), args);
+        assertEquals(List.of("a", "b"), ids(window));
+        assertTrue(window.hasNext());
+        KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(1);
+        assertEquals(LocalDate.of(2024, 2, 1), last.getKeys().get(MediaKeyset.PUBLICATION_DATE));
+        assertEquals("repo", last.getKeys().get(MediaKeyset.REPO_ID));
+        assertEquals("b", last.getKeys().get(MediaKeyset.MEDIA_ID));
+    }
+
+    @Test
+    void testScrollForwardFromUndatedMedia() {
+        Window<Media> window = MediaKeyset.scroll(new MediaKeyset.Query<>((set, date, repoId, mediaId, page) -> {
+            args.addAll(List.of(repoId, mediaId));
+            assertNull(date);
+            return List.of(media("d", null));
+        }, (set, date, repoId, mediaId, page) -> fail()), Set.of("repo"),
+                MediaKeyset.position(null, "repo", "c", Direction.FORWARD), 2);
+
+        assertEquals(List.of("repo", "c"), args);
+        assertEquals(List.of("d"), ids(window));
+        assertFalse(window.hasNext());
+    }
+
+    @Test
+    void testScrollBackwardKeepsNewestFirst() {
+        Window<Media> window = MediaKeyset.scroll(new MediaKeyset.Query<>((set, date, repoId, mediaId, page) -> fail(),
+                (set, date, repoId, mediaId, page) -> {
+                    assertEquals(LocalDate.of(2024, 2, 1), date);
+                    return List.of(media("a", "2024-03-01"), media("0", "2024-04-01"), media("z", "2024-05-01"));
+                }), Set.of("repo"), MediaKeyset.position(LocalDate.of(2024, 2, 1), "repo", "b", Direction.BACKWARD), 2);
+
+        assertEquals(List.of("0", "a"), ids(window));
+        assertTrue(window.hasNext());
+    }
+
+    private static Media media(String id, String date) {
+        Media media = new Media();
+        media.setId(new CompositeMediaId("repo", id));
+        if (date != null) {
+            media.setPublicationDate(LocalDate.parse(date));
+        }
+        return media;
+    }
+
+    private static List<String> ids(Window<Media> window) {
+        return window.stream().map(m -> m.getId().getMediaId()).toList();
+    }
+}
@@ -0,0 +1,60 @@
+package org.wikimedia.commons.donvip.spacemedia.data.domain.base;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class MediaUploadStateTest {
+
+    @Test
+    void testOf() {
+        assertEquals(MediaUploadState.NEW, MediaUploadState.of(List.of()));
+
+        FileMetadata pdf = file("pdf");
+        FileMetadata mp4 = file("mp4");
+        FileMetadata jpg = file("jpg");
+        FileMetadata txt = file("txt");
+        assertEquals(MediaUploadState.MISSING_OTHER, MediaUploadState.of(List.of(txt)));
+        assertEquals(MediaUploadState.MISSING_DOCUMENT, MediaUploadState.of(List.of(txt, pdf)));
+        assertEquals(MediaUploadState.MISSING_VIDEO, MediaUploadState.of(List.of(txt, pdf, mp4)));
+        assertEquals(MediaUploadState.MISSING_IMAGE, MediaUploadState.of(List.of(txt, pdf, mp4, jpg)));
+
+        jpg.setCommonsFileNames(Set.of("File.jpg"));
+        assertEquals(MediaUploadState.MISSING_VIDEO, MediaUploadState.of(List.of(mp4, jpg)));
+        mp4.setIgnored(true);
+        assertEquals(MediaUploadState.UPLOADED, MediaUploadState.of(List.of(mp4, jpg)));
+        assertEquals(MediaUploadState.IGNORED, MediaUploadState.of(List.of(mp4)));
+    }
+
+    @Test
+    void testExtensions() {
+        assertEquals(Set.of("pdf", "stl", "epub", "ppt", "pptm", "pptx"),
+                MediaUploadState.extensions(MediaUploadState.DOCUMENT_EXTENSIONS_JPQL));
+        assertEquals(MediaUploadState.MISSING_IMAGE, MediaUploadState.of(List.of(file("exr"))));
+    }
+
+    @Test
+    void testUpdateUploadState() {
+        Media media = new Media();
+        media.updateUploadState();
+        assertEquals(MediaUploadState.NEW, media.getUploadState());
+
+        FileMetadata png = file("png");
+        media.addMetadata(png);
+        media.updateUploadState();
+        assertEquals(MediaUploadState.MISSING_IMAGE, media.getUploadState());
+
+        png.setCommonsFileNames(Set.of("File.png"));
+        media.updateUploadState();
+        assertEquals(MediaUploadState.UPLOADED, media.getUploadState());
+    }
+
+    private static FileMetadata file(String ext) {
+        FileMetadata fm = new FileMetadata();
+        fm.setExtension(ext);
+        return fm;
+    }
+}
@@ -1,25 +1,178 @@
 package org.wikimedia.commons.donvip.spacemedia.data.domain.noaa.nesdis;
 
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.TestDataJpa;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaRepository;
 
+import jakarta.persistence.EntityManager;
+
 @EntityScan(basePackageClasses = { Media.class, NoaaNesdisMedia.class })
 @EnableJpaRepositories(basePackageClasses = { MediaRepository.class, NoaaNesdisMediaRepository.class })
+@TestPropertySource(properties = { "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.wikimedia.commons.donvip.spacemedia.data.domain.noaa.nesdis.NoaaNesdisMediaRepositoryTest$SqlRecorder" })
 class NoaaNesdisMediaRepositoryTest extends TestDataJpa {
 
     @Autowired
     private NoaaNesdisMediaRepository mediaRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void injectedRepositoryIsNotNull() {
         checkInjectedComponentsAreNotNull();
         assertNotNull(mediaRepository);
     }
+
+    @Test
+    void testLoadingMediaDoesNotSelectFilesPerMedia() {
+        for (int i = 0; i < 100; i++) {
+            FileMetadata fm = new FileMetadata("https://www.nesdis.noaa.gov/" + i + ".jpg");
+            fm.setCommonsFileNames(Set.of("File " + i + ".jpg"));
+            entityManager.persist(fm);
+            NoaaNesdisMedia media = new NoaaNesdisMedia();
+            media.setId(new CompositeMediaId("nesdis", Integer.toString(i)));
+            media.setTitle("Media " + i);
+            media.setPublicationDate(LocalDate.of(2024, 1, 1));
+            media.addMetadata(fm);
+            entityManager.persist(media);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<NoaaNesdisMedia> media = mediaRepository.findAll();
+
+        assertEquals(100, media.size());
+        assertEquals(1, media.get(0).getMetadata().iterator().next().getCommonsFileNames().size());
+        // One select for the media, one for their files along with Commons file names, captions and EXIF
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testMediaIndexesAreCreated() {
+        Set<String> indexes = jdbcTemplate.queryForList("show index from noaa_nesdis_media").stream()
+                .map(row -> (String) row.get("Key_name")).collect(toSet());
+        assertTrue(indexes.containsAll(
+                Set.of("repo_id", "publication_date", "upload_state_publication_date", "repo_id_upload_state",
+                        "last_update")),
+                indexes::toString);
+    }
+
+    @Test
+    void testFindUpdatedSinceByKeyset() {
+        LocalDateTime since = LocalDateTime.now().minusSeconds(1);
+        for (int i = 0; i < 5; i++) {
+            NoaaNesdisMedia media = new NoaaNesdisMedia();
+            media.setId(new CompositeMediaId("nesdis", Integer.toString(i)));
+            media.setTitle("Media " + i);
+            entityManager.persist(media);
+        }
+        entityManager.flush();
+        // Same last update for all media, so that pages only move forward on the id
+        jdbcTemplate.update("update noaa_nesdis_media set last_update = ?", since.plusSeconds(1));
+        entityManager.clear();
+
+        Set<String> repos = Set.of("nesdis");
+        List<String> ids = new ArrayList<>();
+        List<NoaaNesdisMedia> page = mediaRepository.findUpdatedSince(repos, since, null, null, PageRequest.of(0, 2));
+        while (!page.isEmpty()) {
+            page.forEach(m -> ids.add(m.getId().getMediaId()));
+            NoaaNesdisMedia last = page.get(page.size() - 1);
+            page = mediaRepository.findUpdatedSince(repos, last.getLastUpdate(), last.getId().getRepoId(),
+                    last.getId().getMediaId(), PageRequest.of(0, 2));
+        }
+        assertEquals(List.of("0", "1", "2", "3", "4"), ids);
+    }
+
+    @Test
+    void testKeysetQueryOfMissingImagesIsServedByIndex() {
+        // One media out of ten has a missing image, others are uploaded
+        for (int i = 0; i < 1000; i++) {
+            FileMetadata fm = new FileMetadata("https://www.nesdis.noaa.gov/" + i + ".jpg");
+            fm.setExtension("jpg");
+            if (i % 10 != 0) {
+                fm.setCommonsFileNames(Set.of("File " + i + ".jpg"));
+            }
+            entityManager.persist(fm);
+            NoaaNesdisMedia media = new NoaaNesdisMedia();
+            media.setId(new CompositeMediaId("nesdis", Integer.toString(i)));
+            media.setTitle("Media " + i);
+            media.setPublicationDate(LocalDate.of(2024, 1, 1).minusDays(i));
+            media.addMetadata(fm);
+            entityManager.persist(media);
+        }
+        entityManager.flush();
+
+        // Second page of 50 media, after the last media of the first page
+        LocalDate date = LocalDate.of(2024, 1, 1).minusDays(490);
+        SqlRecorder.SELECTS.clear();
+        assertEquals(50, mediaRepository.findMissingImagesInCommonsOlderThan(Set.of("nesdis"), date, "nesdis", "490",
+                PageRequest.of(0, 51)).size());
+        String sql = SqlRecorder.SELECTS.get(SqlRecorder.SELECTS.size() - 1);
+
+        // Bind the parameters in their order of appearance, the SQL having the same conditions as the JPQL
+        Map<Integer, Object> values = Map.of(1, "nesdis", 2, date, 3, "nesdis", 4, "490");
+        List<Object> params = new ArrayList<>();
+        Matcher m = Pattern.compile("\\?(\\d)").matcher(MediaRepository.MISSING_IMAGES + MediaRepository.AND
+                + MediaRepository.IN_REPOS + MediaRepository.OLDER);
+        while (m.find()) {
+            params.add(values.get(Integer.parseInt(m.group(1))));
+        }
+        params.add(51);
+        assertEquals(sql.chars().filter(c -> c == '?').count(), params.size(), sql);
+
+        Map<String, Object> plan = jdbcTemplate.queryForList("explain " + sql, params.toArray()).get(0);
+        assertEquals("upload_state_publication_date", plan.get("key"), plan::toString);
+        // The index ends with the primary key (media_id, repo_id), so it provides the whole ordering
+        assertFalse(String.valueOf(plan.get("Extra")).contains("filesort"), plan::toString);
+    }
+
+    /**
+     * Records the SQL selects run by Hibernate.
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> SELECTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.startsWith("select")) {
+                SELECTS.add(sql);
+            }
+            return sql;
+        }
+    }
 }
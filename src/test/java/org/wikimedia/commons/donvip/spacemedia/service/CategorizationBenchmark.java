@@ -0,0 +1,88 @@
+package org.wikimedia.commons.donvip.spacemedia.service;
+
+import static java.util.Arrays.stream;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.service.CategorizationRules.MediaText;
+import org.wikimedia.commons.donvip.spacemedia.utils.CsvHelper;
+
+/**
+ * Compares Earth observation targets lookup and SDC statements matching, one {@code contains} and one regex
+ * compilation per rule, with the precompiled {@link CategorizationRules}, over the media corpus of the golden file
+ * test. Run its {@code main} method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategorizationBenchmark {
+
+    static final Set<String> CATEGORIES = Set.of("Photos by Sentinel-2", "Images by Juno", "Taken with ZWO ASI2600MM",
+            "Lake Baikal", "Photos of Jupiter by Juno");
+
+    private List<Media> corpus;
+    private Set<String> targetsOrSubjects;
+    private Map<String, String> categoriesStatements;
+    private CategorizationRules rules;
+
+    @Setup
+    public void setup() throws IOException {
+        corpus = CategorizationCorpus.load();
+        targetsOrSubjects = CsvHelper.loadSet(getClass().getResource("/lists/satellite.pictures.categories.txt"));
+        categoriesStatements = CsvHelper.loadCsvMapping("categories.statements.csv");
+        rules = new CategorizationRules(targetsOrSubjects, categoriesStatements);
+    }
+
+    @Benchmark
+    public void containsPerRule(Blackhole bh) {
+        for (Media media : corpus) {
+            Set<String> result = new TreeSet<>();
+            for (String targetOrSubject : targetsOrSubjects) {
+                if (media.containsInTitleOrDescriptionOrKeywords(targetOrSubject, true, true, true)) {
+                    result.add(targetOrSubject);
+                }
+            }
+            bh.consume(result);
+        }
+        for (Map.Entry<String, String> e : categoriesStatements.entrySet()) {
+            bh.consume(stream(e.getKey().split(";")).map(r -> Pattern.compile(r, Pattern.CASE_INSENSITIVE))
+                    .anyMatch(p -> CATEGORIES.stream().anyMatch(c -> p.matcher(c).matches())));
+        }
+    }
+
+    @Benchmark
+    public void compiledRules(Blackhole bh) {
+        for (Media media : corpus) {
+            bh.consume(rules.findTargetsOrSubjects(MediaText.of(media), true, true, true));
+        }
+        bh.consume(rules.findStatementRules(CATEGORIES));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CategorizationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
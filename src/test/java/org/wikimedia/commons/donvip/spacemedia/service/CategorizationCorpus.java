@@ -0,0 +1,62 @@
+package org.wikimedia.commons.donvip.spacemedia.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaImage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Corpus of real Earth observation media, built from test resources: Copernicus image descriptions, and NASA ASTER
+ * gallery entries with their category as keyword.
+ */
+final class CategorizationCorpus {
+
+    private CategorizationCorpus() {
+        // Hide default constructor
+    }
+
+    static List<Media> load() throws IOException {
+        List<Media> result = new ArrayList<>();
+        try (InputStream in = CategorizationCorpus.class.getResourceAsStream("/copernicus/descriptions.csv")) {
+            for (String line : new String(in.readAllBytes(), UTF_8).split("\n")) {
+                String[] row = line.split("\t", 2);
+                if (row.length == 2) {
+                    String id = unquote(row[0]);
+                    result.add(media("copernicus", id, id.replace('-', ' '), unquote(row[1]), Set.of()));
+                }
+            }
+        }
+        try (InputStream in = CategorizationCorpus.class.getResourceAsStream("/nasa/aster/gallery.json")) {
+            int i = 0;
+            for (JsonNode node : new ObjectMapper().readTree(in)) {
+                result.add(media("aster", node.get("name").asText() + '-' + i++, node.get("lname").asText(), null,
+                        Set.of(node.get("Cat").asText())));
+            }
+        }
+        return result;
+    }
+
+    private static Media media(String repo, String id, String title, String description, Set<String> keywords) {
+        NasaImage media = new NasaImage();
+        media.setId(new CompositeMediaId(repo, id));
+        media.setTitle(title);
+        media.setDescription(description);
+        media.setKeywords(keywords);
+        return media;
+    }
+
+    private static String unquote(String s) {
+        String t = s.strip();
+        return t.length() >= 2 && t.startsWith("\"") && t.endsWith("\"") ? t.substring(1, t.length() - 1) : t;
+    }
+}
@@ -1,25 +1,39 @@
 package org.wikimedia.commons.donvip.spacemedia.service;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.CommonsService;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.SdcStatements;
 
 @SpringJUnitConfig(CategorizationServiceTest.TestConfig.class)
 @TestPropertySource("/application-test.properties")
 class CategorizationServiceTest {
 
+    @MockBean
+    private CommonsService commonsService;
+
     @Autowired
     private CategorizationService service;
 
@@ -131,6 +145,29 @@ class CategorizationServiceTest {
         }
     }
 
+    @Test
+    void testFindCategoriesForEarthObservationImageGoldenFile() throws IOException {
+        when(commonsService.existsCategoryPage(anyString())).thenReturn(true);
+        Map<String, String> golden = new LinkedHashMap<>();
+        try (InputStream in = getClass().getResourceAsStream("/categorization/golden.tsv")) {
+            for (String line : new String(in.readAllBytes(), UTF_8).split("\n")) {
+                String[] row = line.split("\t", -1);
+                golden.put(row[0], row[1] + '\t' + row[2]);
+            }
+        }
+        List<Media> corpus = CategorizationCorpus.load();
+        assertEquals(golden.size(), corpus.size());
+        for (Media media : corpus) {
+            assertEquals(golden.get(media.getId().toString()), findCategories(media, true) + '\t'
+                    + findCategories(media, false), media.getId().toString());
+        }
+    }
+
+    private String findCategories(Media media, boolean lookIntoDescription) {
+        return String.join(";", service.findCategoriesForEarthObservationImage(media, x -> x, "", true,
+                lookIntoDescription, true));
+    }
+
     @Configuration
     public static class TestConfig {
 
@@ -3,6 +3,10 @@ package org.wikimedia.commons.donvip.spacemedia.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.newURL;
 import static org.wikimedia.commons.donvip.spacemedia.utils.Utils.urlToUriUnchecked;
  
@@ -11,7 +15,10 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -53,6 +60,9 @@ class MediaServiceTest {
     @MockBean
     private HashAssociationRepository hashRepository;
 
+    @MockBean
+    private PerceptualHashIndexService hashIndex;
+
     @MockBean
     private FileMetadataRepository metadataRepository;
 
@@ -75,6 +85,44 @@ class MediaServiceTest {
                 media.getIgnoredReasons());
     }
 
+    @Test
+    void testFindCommonsFilesWithSha1InOneBatch() throws Exception {
+        String sha1a = "0000000000000000000000000000000000000001";
+        String sha1b = "0000000000000000000000000000000000000002";
+        FileMetadata fm1 = new FileMetadata();
+        fm1.setSha1(sha1a);
+        FileMetadata fm2 = new FileMetadata();
+        fm2.setSha1(sha1b);
+        FileMetadata fm3 = new FileMetadata();
+        fm3.setSha1(sha1a);
+        fm3.setCommonsFileNames(new HashSet<>(Set.of("Known.jpg")));
+        when(commonsService.findFilesWithEachSha1(List.of(sha1a, sha1b))).thenReturn(Map.of(sha1a, Set.of("A.jpg")));
+
+        assertTrue(service.findCommonsFilesWithSha1(List.of(fm1, fm2, fm3)));
+
+        verify(commonsService, times(1)).findFilesWithEachSha1(any());
+        assertEquals(Set.of("A.jpg"), fm1.getCommonsFileNames());
+        assertTrue(fm2.getCommonsFileNames().isEmpty());
+        assertEquals(Set.of("Known.jpg"), fm3.getCommonsFileNames());
+    }
+
+    @Test
+    void testFindCommonsFilesWithSha1SkipsSha1AlreadyLookedUp() throws Exception {
+        String sha1a = "0000000000000000000000000000000000000001";
+        String sha1b = "0000000000000000000000000000000000000002";
+        FileMetadata fm1 = new FileMetadata();
+        fm1.setSha1(sha1a);
+        FileMetadata fm2 = new FileMetadata();
+        fm2.setSha1(sha1b);
+        when(commonsService.findFilesWithEachSha1(List.of(sha1b))).thenReturn(Map.of(sha1b, Set.of("B.jpg")));
+
+        assertTrue(service.findCommonsFilesWithSha1(List.of(fm1, fm2), Set.of(sha1a)));
+
+        verify(commonsService, times(1)).findFilesWithEachSha1(List.of(sha1b));
+        assertTrue(fm1.getCommonsFileNames().isEmpty());
+        assertEquals(Set.of("B.jpg"), fm2.getCommonsFileNames());
+    }
+
     @Test
     void testCleanupDescriptionPierreMarkuse() {
         FlickrMedia media = new FlickrMedia();
@@ -2,8 +2,14 @@ package org.wikimedia.commons.donvip.spacemedia.service;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.serviceUnavailable;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +38,17 @@ class RemoteServiceTest {
         assertDoesNotThrow(() -> service.evictCaches("foo"));
     }
 
+    @Test
+    void testFindSha1ByNearPhashAndMime(WireMockRuntimeInfo wmRuntimeInfo) {
+        stubFor(get("/hashAssociation/nearDuplicates?phash=abc&mime=image/jpeg")
+                .willReturn(okJson("[\"sha1a\",\"sha1b\"]")));
+        assertEquals(List.of("sha1a", "sha1b"), service.findSha1ByNearPhashAndMime("abc", "image/jpeg"));
+
+        stubFor(get("/hashAssociation/nearDuplicates?phash=abc&mime=image/jpeg")
+                .willReturn(serviceUnavailable()));
+        assertNull(service.findSha1ByNearPhashAndMime("abc", "image/jpeg"));
+    }
+
     @Configuration
     @Import(SpacemediaCommonConfiguration.class)
     public static class TestConfig {
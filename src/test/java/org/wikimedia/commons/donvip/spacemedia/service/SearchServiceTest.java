@@ -1,26 +1,55 @@
 package org.wikimedia.commons.donvip.spacemedia.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 import org.wikimedia.commons.donvip.spacemedia.apps.SpacemediaCommonConfiguration;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaImage;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaMedia;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
 
 @SpringJUnitConfig(SearchServiceTest.TestConfig.class)
-@TestPropertySource("/application-test.properties")
+@TestPropertySource(locations = "/application-test.properties", properties = "search.enabled=true")
+// Closes the index before the deletion of its temporary directory
+@DirtiesContext
 class SearchServiceTest {
 
+    @TempDir
+    static Path indexDir;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("search.index.dir", indexDir::toString);
+    }
+
     @MockBean
     @PersistenceContext(unitName = "domain")
     private EntityManager entityManager;
@@ -36,6 +65,96 @@ class SearchServiceTest {
         assertTrue(service.isSearchEnabled());
     }
 
+    @Test
+    void testIndexSearchDelete() {
+        NasaImage m1 = newMedia("GSFC", "1", "NASA image: Hubble captures a spiral galaxy", Set.of("Hubble", "galaxy"));
+        NasaImage m2 = newMedia("GSFC", "2", "Webb observes the Pillars of Creation", Set.of("Webb", "nebula"));
+        NasaImage m3 = newMedia("JSC", "3", "Galaxy cluster seen by Webb", Set.of("Webb"));
+        service.index(m1);
+        service.index(m2);
+        service.index(m3);
+        Set<String> repos = Set.of("GSFC", "JSC");
+
+        assertEquals(List.of(m1.getId(), m3.getId()), search(NasaMedia.class, repos, "galaxy"));
+        assertEquals(List.of(m3.getId()), search(NasaImage.class, repos, "webb galaxy"));
+        assertEquals(List.of(m2.getId()), search(Media.class, Set.of("GSFC"), "webb"));
+        assertEquals(List.of(m2.getId()), search(Media.class, repos, "pillar*"));
+        assertEquals(List.of(), search(Media.class, repos, "nasa image"));
+        assertEquals(3, service.count(Media.class, repos));
+
+        Page<CompositeMediaId> page = service.search(Media.class, repos, "webb | hubble", PageRequest.of(1, 2));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(1, page.getNumberOfElements());
+
+        m3.setTitle("Star cluster");
+        service.index(m3);
+        assertEquals(List.of(m1.getId()), search(Media.class, repos, "galaxy"));
+        service.delete(m1);
+        assertEquals(List.of(), search(Media.class, repos, "galaxy"));
+        assertEquals(2, service.count(Media.class, repos));
+    }
+
+    @Test
+    void testIndexAfterCommit() {
+        NasaImage m1 = newMedia("HQ", "1", "Committed comet", Set.of());
+        NasaImage m2 = newMedia("HQ", "2", "Rolled back comet", Set.of());
+        Set<String> repos = Set.of("HQ");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.indexAfterCommit(m1);
+            assertEquals(List.of(), search(Media.class, repos, "comet"));
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.indexAfterCommit(m2);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(m1.getId()), search(Media.class, repos, "comet"));
+    }
+
+    @Test
+    void testDeleteMissing() {
+        NasaImage m1 = newMedia("KSC", "1", "Deleted launch", Set.of());
+        NasaImage m2 = newMedia("KSC", "2", "Existing launch", Set.of());
+        NasaImage m3 = newMedia("MSFC", "1", "Other launch", Set.of());
+        service.index(m1);
+        service.index(m2);
+        service.index(m3);
+
+        assertEquals(1, service.deleteMissing(NasaMedia.class, Set.of("KSC"), (repo, ids) -> {
+            assertEquals("KSC", repo);
+            assertEquals(Set.of("1", "2"), Set.copyOf(ids));
+            return Set.of("2");
+        }));
+        assertEquals(List.of(m2.getId()), search(Media.class, Set.of("KSC"), "launch"));
+        assertEquals(List.of(m3.getId()), search(Media.class, Set.of("MSFC"), "launch"));
+    }
+
+    @Test
+    void testCatchUp() {
+        service.catchUp();
+        LocalDateTime indexedUntil = service.getIndexedUntil().orElseThrow();
+        service.catchUp();
+        assertTrue(service.getIndexedUntil().orElseThrow().isAfter(indexedUntil.minusNanos(1)));
+    }
+
+    private List<CompositeMediaId> search(Class<? extends Media> type, Set<String> repos, String q) {
+        return service.search(type, repos, q, Pageable.unpaged()).getContent();
+    }
+
+    private static NasaImage newMedia(String repo, String id, String title, Set<String> keywords) {
+        NasaImage media = new NasaImage();
+        media.setId(new CompositeMediaId(repo, id));
+        media.setTitle(title);
+        media.setKeywords(keywords);
+        return media;
+    }
+
     @Configuration
     @Import(SpacemediaCommonConfiguration.class)
     public static class TestConfig {
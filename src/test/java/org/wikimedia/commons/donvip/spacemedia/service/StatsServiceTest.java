@@ -0,0 +1,125 @@
+package org.wikimedia.commons.donvip.spacemedia.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaCounts;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaRepository;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RepoStatistics;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RepoStatisticsRepository;
+import org.wikimedia.commons.donvip.spacemedia.service.orgs.AbstractOrgService;
+
+@SpringJUnitConfig(StatsServiceTest.TestConfig.class)
+class StatsServiceTest {
+
+    @MockBean
+    private RepoStatisticsRepository repository;
+
+    @MockBean
+    private AbstractOrgService<Media> org;
+
+    @Autowired
+    private StatsService service;
+
+    @Test
+    void testMediaSavedIncrementsDifference() {
+        FileMetadata fm = new FileMetadata();
+        fm.setExtension("jpg");
+        Media media = newMedia(fm);
+
+        // New media
+        service.mediaSaved(media, media);
+        verify(repository).increment("repo", 1, 0, 0, 1, 0, 0, 0);
+        assertEquals(new MediaCounts(1, 0, 0, 1, 0, 0, 0), media.getSavedCounts());
+
+        // Uploaded media, merged into another instance
+        fm.setCommonsFileNames(Set.of("File.jpg"));
+        Media merged = newMedia(fm);
+        service.mediaSaved(media, merged);
+        verify(repository).increment("repo", 0, 1, 0, -1, 0, 0, 0);
+
+        // Unchanged media
+        service.mediaSaved(merged, merged);
+        verify(repository, never()).increment("repo", 0, 0, 0, 0, 0, 0, 0);
+
+        service.mediaDeleted(merged);
+        verify(repository).increment("repo", -1, -1, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    void testMediaSavedUsesCountsOfMergedInstanceForUnloadedMedia() {
+        FileMetadata fm = new FileMetadata();
+        fm.setExtension("mp4");
+        fm.setIgnored(true);
+        Media media = newMedia(fm);
+        Media merged = newMedia(fm);
+        merged.setSavedCounts(new MediaCounts(1, 0, 0, 0, 1, 0, 0));
+
+        service.mediaSaved(media, merged);
+        verify(repository).increment("repo", 0, 0, 1, 0, -1, 0, 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetCountsReconcilesMissingRepos() {
+        MediaRepository<Media> mediaRepository = mock(MediaRepository.class);
+        when(mediaRepository.count(Set.of("b"))).thenReturn(5L);
+        when(mediaRepository.countUploadedToCommons(Set.of("b"))).thenReturn(2L);
+        when(repository.findByRepoIdIn(Set.of("a", "b"))).thenReturn(
+                List.of(new RepoStatistics("a", new MediaCounts(3, 1, 0, 2, 0, 0, 1), LocalDateTime.now())));
+        when(repository.findById("b")).thenReturn(Optional.empty());
+
+        assertEquals(Map.of("a", new MediaCounts(3, 1, 0, 2, 0, 0, 1), "b", new MediaCounts(5, 2, 0, 0, 0, 0, 0)),
+                service.getCounts(Set.of("a", "b"), mediaRepository));
+        verify(repository).save(any(RepoStatistics.class));
+        verify(mediaRepository).updateUploadStates(Set.of("b"));
+        verify(mediaRepository, never()).count(Set.of("a"));
+    }
+
+    @Test
+    void testReconcileContinuesAfterFailure() {
+        doThrow(new IllegalStateException()).when(org).reconcileStatistics();
+        service.reconcile();
+        verify(org).reconcileStatistics();
+        verify(repository, never()).increment(anyString(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong());
+    }
+
+    private static Media newMedia(FileMetadata fm) {
+        Media media = new Media();
+        media.setId(new CompositeMediaId("repo", "id"));
+        media.addMetadata(fm);
+        return media;
+    }
+
+    @Configuration
+    static class TestConfig {
+
+        @Bean
+        public StatsService service() {
+            return new StatsService();
+        }
+    }
+}
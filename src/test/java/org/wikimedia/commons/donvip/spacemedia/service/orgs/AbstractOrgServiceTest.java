@@ -18,8 +18,11 @@ import org.springframework.boot.convert.ApplicationConversionService;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.test.context.TestPropertySource;
+import org.wikimedia.commons.donvip.spacemedia.apps.SpacemediaCacheConfiguration;
+import org.wikimedia.commons.donvip.spacemedia.apps.SpacemediaHttpConfiguration;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.ExifMetadataRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadataRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.MediaDimensions;
@@ -32,6 +35,7 @@ import org.wikimedia.commons.donvip.spacemedia.service.GoogleTranslateService;
 import org.wikimedia.commons.donvip.spacemedia.service.MediaService;
 import org.wikimedia.commons.donvip.spacemedia.service.RemoteService;
 import org.wikimedia.commons.donvip.spacemedia.service.SearchService;
+import org.wikimedia.commons.donvip.spacemedia.service.StatsService;
 import org.wikimedia.commons.donvip.spacemedia.service.osm.NominatimService;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.CommonsService;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.WikidataService;
@@ -81,6 +85,9 @@ public abstract class AbstractOrgServiceTest {
     @MockBean
     private GeometryService geometry;
 
+    @MockBean
+    protected StatsService statsService;
+
     @Autowired
     protected NominatimService nominatim;
 
@@ -143,6 +150,7 @@ public abstract class AbstractOrgServiceTest {
     }
 
     @Configuration
+    @Import({ SpacemediaCacheConfiguration.class, SpacemediaHttpConfiguration.class })
     protected static class DefaultOrgTestConfig {
         @Bean
         public ConversionService conversionService() {
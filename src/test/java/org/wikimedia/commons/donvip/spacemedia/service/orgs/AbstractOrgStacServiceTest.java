@@ -1,18 +1,35 @@
 package org.wikimedia.commons.donvip.spacemedia.service.orgs;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URL;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -20,23 +37,76 @@ import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.stac.StacMedia;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.stac.StacMediaRepository;
+import org.wikimedia.commons.donvip.spacemedia.service.MediaService.MediaUpdateContext;
+import org.wikimedia.commons.donvip.spacemedia.service.MediaService.MediaUpdateResult;
+import org.wikimedia.commons.donvip.spacemedia.service.orgs.AbstractOrgStacService.StacValidator;
 
 @SpringJUnitConfig(AbstractOrgStacServiceTest.TestConfig.class)
 class AbstractOrgStacServiceTest extends AbstractOrgServiceTest {
 
+    private static final String CATALOG_ROOT = "https://capella-open-data.test/";
+
     @MockBean
     private StacMediaRepository repository;
 
     @Autowired
     private AbstractOrgStacService service;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @ParameterizedTest
     @CsvSource({ "CAPELLA_C09_SM_GEC_VV_20231118132210_20231118132214",
             "CAPELLA_C14_SP_SLC_VV_20240414014317_20240414014346" })
     void testFetchMedia(String id) throws MalformedURLException {
         when(metadataRepository.save(any(FileMetadata.class))).thenAnswer(a -> a.getArgument(0, FileMetadata.class));
         assertNotNull(service.fetchStacMedia("capella",
-                Path.of("src/test/resources/capella/" + id + ".json").toUri().toURL()));
+                resource(id + ".json")));
+    }
+
+    @Test
+    void testProcessStacCatalogWalksSubCatalogsAndDeduplicatesItems() throws Exception {
+        when(repository.findByUrl(any())).thenAnswer(a -> {
+            StacMedia media = new StacMedia();
+            media.setUrl(a.getArgument(0));
+            return Optional.of(media);
+        });
+        when(mediaService.updateMedia(any(), any(), any(), any(), anyBoolean(), anyBoolean(), anyBoolean()))
+                .thenAnswer(a -> new MediaUpdateResult<>(a.getArgument(0, MediaUpdateContext.class).media(), false,
+                        null));
+        Set<String> processedItems = new HashSet<>();
+
+        assertEquals(2, service.processStacCatalog(new URL(CATALOG_ROOT + "stac/catalog.json"), LocalDateTime.now(),
+                null, "test", new ArrayList<>(), processedItems, 0));
+
+        assertEquals(Set.of(CATALOG_ROOT + "CAPELLA_C09_SM_GEC_VV_20231118132210_20231118132214.json",
+                CATALOG_ROOT + "CAPELLA_C14_SP_SLC_VV_20240414014317_20240414014346.json"), processedItems);
+        verify(repository, times(2)).findByUrl(any());
+    }
+
+    @Test
+    void testStacItemIsCached() throws Exception {
+        URL url = resource("CAPELLA_C14_SP_SLC_VV_20240414014317_20240414014346.json");
+        Cache stacItems = cacheManager.getCache(AbstractOrgStacService.STAC_ITEMS);
+        assertSame(AbstractOrgStacService.getStacItem(stacItems, jackson, url),
+                AbstractOrgStacService.getStacItem(stacItems, jackson, url));
+        assertTrue(AbstractOrgStacService.getOtherFieldBoundingBox(stacItems, jackson, url).orElseThrow()
+                .contains("{{Map/bbox|longitude=-122.23047295/-122.14749604|latitude=46.16693595/46.22449677}}"));
+    }
+
+    @Test
+    void testStacValidator() {
+        assertNull(StacValidator.parse(null));
+        assertNull(StacValidator.of(null, null));
+        StacValidator validator = StacValidator.of(new BasicHeader("ETag", "\"abc\""),
+                new BasicHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT|\"abc\"", validator.toString());
+        assertEquals(validator, StacValidator.parse(validator.toString()));
+        assertEquals(new StacValidator(null, "\"abc\""), StacValidator.parse("|\"abc\""));
+    }
+
+    private static URL resource(String path) throws MalformedURLException {
+        return Path.of("src/test/resources/capella/" + path).toUri().toURL();
     }
 
     @Configuration
@@ -72,6 +142,14 @@ class AbstractOrgStacServiceTest extends AbstractOrgServiceTest {
                 protected String hiddenUploadCategory(String repoId) {
                     return "";
                 }
+
+                @Override
+                protected StacCatalogFetch fetchStacCatalog(URL catalogUrl, StacValidator validator)
+                        throws IOException {
+                    // Serve catalogs from test resources
+                    return new StacCatalogFetch(catalogUrl, super.fetchStacCatalog(
+                            resource(catalogUrl.getPath().substring(1)), validator).catalog(), null);
+                }
             };
         }
     }
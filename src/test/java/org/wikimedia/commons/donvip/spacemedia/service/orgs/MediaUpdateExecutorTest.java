@@ -0,0 +1,60 @@
+package org.wikimedia.commons.donvip.spacemedia.service.orgs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class MediaUpdateExecutorTest {
+
+    @Test
+    void testSequential() {
+        List<Integer> written = new ArrayList<>();
+        List<Integer> failed = new ArrayList<>();
+        try (MediaUpdateExecutor<Integer, Integer> executor = new MediaUpdateExecutor<>("test", 1, 1)) {
+            assertEquals(2, executor.run(List.of(1, 2, 3), i -> "host", i -> {
+                if (i == 2) {
+                    throw new IOException();
+                }
+                return i * 10;
+            }, (r, n) -> written.add(r), (i, e) -> failed.add(i)));
+        }
+        assertEquals(List.of(10, 30), written);
+        assertEquals(List.of(2), failed);
+    }
+
+    @Test
+    void testParallelWithPerHostLimitAndSingleWriter() {
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        Map<String, Integer> maxRunning = new ConcurrentHashMap<>();
+        List<Integer> counts = new ArrayList<>();
+        List<String> writerThreads = new ArrayList<>();
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+        try (MediaUpdateExecutor<Integer, Integer> executor = new MediaUpdateExecutor<>("test", 8, 2)) {
+            assertEquals(100, executor.run(items, i -> "host" + (i % 2), i -> {
+                String host = "host" + (i % 2);
+                int n = running.computeIfAbsent(host, x -> new AtomicInteger()).incrementAndGet();
+                maxRunning.merge(host, n, Math::max);
+                Thread.sleep(2);
+                running.get(host).decrementAndGet();
+                return i;
+            }, (r, n) -> {
+                counts.add(n);
+                writerThreads.add(Thread.currentThread().getName());
+            }, (i, e) -> {
+                throw new AssertionError(e);
+            }));
+        }
+        assertEquals(IntStream.range(0, 100).boxed().toList(), counts);
+        assertTrue(writerThreads.stream().allMatch(Thread.currentThread().getName()::equals));
+        assertTrue(maxRunning.values().stream().allMatch(n -> n <= 2), maxRunning::toString);
+    }
+}
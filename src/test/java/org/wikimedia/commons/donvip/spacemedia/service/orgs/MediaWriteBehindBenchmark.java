@@ -0,0 +1,113 @@
+package org.wikimedia.commons.donvip.spacemedia.service.orgs;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.wikimedia.commons.donvip.spacemedia.apps.SpacemediaOrgS3UpdateJobApplication;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadataRepository;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.s3.S3Media;
+
+/**
+ * Measures the time taken by the Umbra S3 org to save 10,000 new media having one file each through
+ * {@link AbstractOrgService#newMediaWriteBehind}, with and without JDBC batching. With a batch size of 1, media are
+ * saved one by one by {@code saveMedia}, otherwise by batches through {@code saveAllMedia}. Runs the S3 update job
+ * application with the test profile, against the same Testcontainers MariaDB database as repository tests, so
+ * Docker is required. Run its {@code main} method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MediaWriteBehindBenchmark {
+
+    private static final int ITEMS = 10_000;
+
+    @Param({ "1", "50" })
+    public int saveBatchSize;
+
+    @Param({ "0", "50" })
+    public int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private AbstractOrgService<S3Media> service;
+    private FileMetadataRepository fileRepository;
+    private List<S3Media> media;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        context = new SpringApplicationBuilder(SpacemediaOrgS3UpdateJobApplication.class)
+                .web(WebApplicationType.NONE).profiles("test", "job-umbra")
+                .properties("media.save.batch.size=" + saveBatchSize,
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize)
+                .run();
+        service = (AbstractOrgService<S3Media>) context.getBean("org", Org.class);
+        fileRepository = context.getBean(FileMetadataRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void createMedia() {
+        // New media ids for each iteration, so that all media are inserted. Files are saved beforehand, as the
+        // update jobs do, so that only the save of media is measured
+        iteration++;
+        List<FileMetadata> files = new ArrayList<>(ITEMS);
+        for (int j = 0; j < ITEMS; j++) {
+            FileMetadata fm = new FileMetadata(
+                    "https://umbra-open-data-catalog.s3.amazonaws.com/" + iteration + "/" + j + ".tif");
+            fm.setExtension("tif");
+            files.add(fm);
+        }
+        media = new ArrayList<>(ITEMS);
+        int j = 0;
+        for (FileMetadata fm : fileRepository.saveAll(files)) {
+            S3Media m = new S3Media("umbra-open-data-catalog", iteration + "/" + j + ".tif");
+            m.setTitle("Media " + j++);
+            m.setPublicationDate(LocalDate.of(2024, 1, 1));
+            m.addMetadata(fm);
+            media.add(m);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void save() {
+        try (MediaWriteBehind<S3Media> writeBehind = service.newMediaWriteBehind((m, e) -> {
+            throw e;
+        })) {
+            media.forEach(writeBehind::save);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MediaWriteBehindBenchmark.class.getSimpleName()).build()).run();
+    }
+}
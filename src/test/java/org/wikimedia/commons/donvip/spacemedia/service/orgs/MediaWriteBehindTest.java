@@ -0,0 +1,70 @@
+package org.wikimedia.commons.donvip.spacemedia.service.orgs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.Media;
+
+class MediaWriteBehindTest {
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private final List<String> saved = new ArrayList<>();
+    private final List<String> failed = new ArrayList<>();
+
+    @Test
+    void testBatches() {
+        try (MediaWriteBehind<Media> writeBehind = newWriteBehind(2)) {
+            writeBehind.save(media("a"));
+            assertEquals(1, writeBehind.pendingCount());
+            writeBehind.save(media("b"));
+            assertEquals(0, writeBehind.pendingCount());
+            writeBehind.save(media("c"));
+            writeBehind.save(media("c"));
+            writeBehind.save(media("d"));
+            writeBehind.save(media("e"));
+        }
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), batches);
+        // Last media is alone in its batch
+        assertEquals(List.of("e"), saved);
+        assertEquals(List.of(), failed);
+    }
+
+    @Test
+    void testFailedBatchIsSavedOneByOne() {
+        try (MediaWriteBehind<Media> writeBehind = newWriteBehind(3)) {
+            writeBehind.save(media("a"));
+            writeBehind.save(media("invalid"));
+            writeBehind.save(media("c"));
+        }
+        assertEquals(List.of(), batches);
+        assertEquals(List.of("a", "c"), saved);
+        assertEquals(List.of("invalid"), failed);
+    }
+
+    private MediaWriteBehind<Media> newWriteBehind(int batchSize) {
+        return new MediaWriteBehind<>(batchSize, batch -> {
+            List<String> ids = batch.stream().map(m -> m.getId().getMediaId()).toList();
+            if (ids.contains("invalid")) {
+                throw new IllegalStateException();
+            }
+            batches.add(ids);
+            return batch;
+        }, m -> {
+            if ("invalid".equals(m.getId().getMediaId())) {
+                throw new IllegalStateException();
+            }
+            saved.add(m.getId().getMediaId());
+            return m;
+        }, (m, e) -> failed.add(m.getId().getMediaId()));
+    }
+
+    private static Media media(String id) {
+        Media media = new Media();
+        media.setId(new CompositeMediaId("repo", id));
+        return media;
+    }
+}
@@ -1,9 +1,28 @@
 package org.wikimedia.commons.donvip.spacemedia.service.orgs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.net.MalformedURLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.tuple.Pair;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +40,8 @@ import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaMedi
 import org.wikimedia.commons.donvip.spacemedia.service.flickr.FlickrMediaProcessorService;
 import org.wikimedia.commons.donvip.spacemedia.service.flickr.FlickrService;
 
+import com.flickr4java.flickr.photos.Photo;
+
 @SpringJUnitConfig(NasaFlickrServiceTest.TestConfig.class)
 class NasaFlickrServiceTest extends AbstractOrgServiceTest {
 
@@ -63,6 +84,50 @@ class NasaFlickrServiceTest extends AbstractOrgServiceTest {
                 service.getDescription(media, null));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUpdateMediaStreamsPagesWithBulkLookups() throws Exception {
+        String account = "nasahqphoto";
+        Map<CompositeMediaId, FlickrMedia> db = Stream.of("1", "2", "3", "4", "5")
+                .map(id -> newFlickrMedia(account, id)).collect(Collectors.toMap(FlickrMedia::getId, m -> m));
+        when(runtimeDataRepository.findById(any())).thenReturn(Optional.empty());
+        when(runtimeDataRepository.save(any())).thenAnswer(a -> a.getArgument(0));
+        when(repository.findAllById(any())).thenAnswer(a -> ((Collection<CompositeMediaId>) a.getArgument(0))
+                .stream().map(db::get).toList());
+        when(repository.findMediaIds(Set.of(account))).thenReturn(List.of("1", "2", "3", "4", "5"));
+        when(processor.processFlickrMedia(anyString(), any(), anyString(), any(), any(), any(), any(), any(), any(),
+                anyBoolean(), anyBoolean(), any(), any())).thenAnswer(a -> Pair.of(a.getArgument(1), 0));
+        when(flickr.findPhoto("5")).thenReturn(newPhoto("5"));
+        doAnswer(a -> {
+            Consumer<List<Photo>> pageConsumer = a.getArgument(3);
+            pageConsumer.accept(List.of(newPhoto("1"), newPhoto("2")));
+            pageConsumer.accept(List.of(newPhoto("3"), newPhoto("4")));
+            return null;
+        }).when(flickr).searchPhotos(eq(account), isNull(), anyBoolean(), any(Consumer.class));
+
+        service.updateMedia(new String[] { account });
+
+        // One lookup per page, one for media no longer free, one for the refreshed non-free photo
+        verify(repository, times(4)).findAllById(any());
+        verify(repository, never()).findById(any());
+        verify(repository, never()).findNotIn(any(), any());
+        verify(flickr).findPhoto("5");
+        verify(flickr, never()).findPhoto("1");
+    }
+
+    private static FlickrMedia newFlickrMedia(String account, String id) {
+        FlickrMedia media = new FlickrMedia();
+        media.setId(new CompositeMediaId(account, id));
+        return media;
+    }
+
+    private static Photo newPhoto(String id) {
+        Photo photo = new Photo();
+        photo.setId(id);
+        photo.setPathAlias("nasahqphoto");
+        return photo;
+    }
+
     @Configuration
     @Import(DefaultOrgTestConfig.class)
     static class TestConfig {
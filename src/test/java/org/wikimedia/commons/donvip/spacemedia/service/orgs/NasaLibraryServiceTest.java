@@ -1,15 +1,23 @@
 package org.wikimedia.commons.donvip.spacemedia.service.orgs;
 
+import static java.util.stream.Collectors.joining;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.time.LocalDate;
 import java.time.Year;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.List;
@@ -39,13 +47,16 @@ import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeData;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaAudioRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaImage;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaImageRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaMedia;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaMediaRepository;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaMediaType;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.nasa.library.NasaVideoRepository;
 import org.wikimedia.commons.donvip.spacemedia.service.nasa.NasaMediaProcessorService;
+import org.wikimedia.commons.donvip.spacemedia.service.orgs.NasaLibraryService.NasaLibraryShard;
 
 @SpringJUnitConfig(NasaLibraryServiceTest.TestConfig.class)
 @TestPropertySource("/application-test.properties")
@@ -142,6 +153,51 @@ class NasaLibraryServiceTest extends AbstractOrgServiceTest {
         assertTrue(errors.isEmpty(), errors.toString());
     }
 
+    @Test
+    void testShards() {
+        int thisYear = Year.now().getValue();
+        List<NasaLibraryShard> images = service.getShards(null).stream()
+                .filter(x -> x.type() == NasaMediaType.image).toList();
+        assertEquals((thisYear - 1999) * NasaLibraryService.NASA_CENTERS.size() + 80, images.size());
+        assertEquals(images.size(), images.stream().map(NasaLibraryShard::key).distinct().count());
+        assertTrue(images.stream().anyMatch(x -> "image/1920/*".equals(x.key())));
+        assertTrue(images.stream().anyMatch(x -> ("image/" + thisYear + "/JSC").equals(x.key())));
+
+        assertTrue(service.getShards(LocalDate.of(thisYear, 1, 1)).stream()
+                .allMatch(x -> x.endYear() == thisYear && (x.type() != NasaMediaType.image || x.center() != null)));
+    }
+
+    @Test
+    void testUpdateMediaResumesFromCheckpoint() throws IOException {
+        String remaining = new NasaLibraryShard(NasaMediaType.image, Year.now().getValue(), Year.now().getValue(),
+                "JSC").key();
+        RuntimeData runtimeData = new RuntimeData(service.getId());
+        runtimeData.setCheckpoint(service.getShards(null).stream().map(NasaLibraryShard::key)
+                .filter(x -> !remaining.equals(x)).collect(joining("\n")));
+        when(runtimeDataRepository.findById(service.getId())).thenReturn(Optional.of(runtimeData));
+        when(runtimeDataRepository.save(any())).thenAnswer(a -> a.getArgument(0));
+
+        service.updateMedia(new String[0]);
+
+        verify(processor).processSearchResults(any(), contains("year_start=" + Year.now() + "&year_end="
+                + Year.now() + "&center=JSC"), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                any());
+        verifyNoMoreInteractions(processor);
+        assertNull(runtimeData.getCheckpoint());
+    }
+
+    @Test
+    void testUpdateMediaDoesNotCheckRemovedImagesAfterFailedShard() throws IOException {
+        when(runtimeDataRepository.save(any())).thenAnswer(a -> a.getArgument(0));
+        when(processor.processSearchResults(any(), contains("year_start=" + Year.now() + "&year_end=" + Year.now()
+                + "&center=JSC"), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("NASA API is down"));
+
+        service.updateMedia(new String[0]);
+
+        verify(imageRepository, never()).findMissingInCommons(anySet());
+    }
+
     private static Statement s(ItemIdValue subject, PropertyIdValue property, String targetQid) {
         return new StatementImpl(null, new ValueSnakImpl(property, new ItemIdValueImpl(targetQid, "wikidata")),
                 subject);
@@ -1,14 +1,29 @@
 package org.wikimedia.commons.donvip.spacemedia.service.orgs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.net.URL;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -18,11 +33,15 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CompositeMediaId;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.FileMetadata;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeData;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.s3.S3Media;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.s3.S3MediaRepository;
+import org.wikimedia.commons.donvip.spacemedia.service.MediaService.MediaUpdateResult;
+import org.wikimedia.commons.donvip.spacemedia.service.s3.S3KeyIndex;
 import org.wikimedia.commons.donvip.spacemedia.service.s3.S3Service;
 
 import com.amazonaws.regions.Regions;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 
 @SpringJUnitConfig(UmbraS3ServiceTest.TestConfig.class)
 class UmbraS3ServiceTest extends AbstractOrgServiceTest {
@@ -60,6 +79,53 @@ class UmbraS3ServiceTest extends AbstractOrgServiceTest {
                 media.getUploadTitle(new FileMetadata()));
     }
 
+    @Test
+    void testIncrementalUpdateSkipsObjectsNotModifiedSinceCursor() throws Exception {
+        String bucket = "umbra-open-data-catalog";
+        Instant cursor = Instant.parse("2024-08-01T00:00:00Z");
+        RuntimeData runtimeData = new RuntimeData("umbra");
+        runtimeData.getCursors().put(bucket, cursor.toString());
+        when(runtimeDataRepository.findById("umbra")).thenReturn(Optional.of(runtimeData));
+        when(runtimeDataRepository.save(any())).thenAnswer(a -> a.getArgument(0));
+        when(metadataRepository.save(any())).thenAnswer(a -> a.getArgument(0));
+        S3ObjectSummary oldObject = summary(bucket, "sar-data/tasks/old/a_GEC.tif", cursor.minusSeconds(3600));
+        S3ObjectSummary newObject = summary(bucket, "sar-data/tasks/new/b_GEC.tif", cursor.plusSeconds(3600));
+        when(s3.streamFiles(any(), eq(bucket), isNull(), any())).thenReturn(Stream.of(oldObject, newObject));
+        S3Media newMedia = new S3Media(bucket, newObject.getKey());
+        when(repository.findById(newMedia.getId())).thenReturn(Optional.of(newMedia));
+        when(mediaService.updateMedia(any(), any(), any(), any(), anyBoolean(), anyBoolean(), anyBoolean()))
+                .thenReturn(new MediaUpdateResult<>(newMedia, false, null));
+
+        service.updateS3Media(bucket);
+
+        verify(repository).findById(newMedia.getId());
+        verify(repository, never()).findById(new CompositeMediaId(bucket, oldObject.getKey()));
+        verify(metadataRepository, never())
+                .findByAssetUrl(new URL("https://" + bucket + ".s3.amazonaws.com/" + oldObject.getKey()));
+        ArgumentCaptor<RuntimeData> saved = ArgumentCaptor.forClass(RuntimeData.class);
+        verify(runtimeDataRepository).save(saved.capture());
+        assertEquals(newObject.getLastModified().toInstant().toString(), saved.getValue().getCursors().get(bucket));
+    }
+
+    @Test
+    void testSkipCsiWithGecSibling() {
+        String dir = "sar-data/tasks/Site/4d7c8c0c-7c6f-4252-81e1-6995095d945a/2024-08-21-20-27-04_UMBRA-08/";
+        S3KeyIndex keys = S3KeyIndex.of(List.of(dir + "2024-08-21-20-27-04_UMBRA-08_CSI.tif",
+                dir + "2024-08-21-20-27-04_UMBRA-08_GEC.tif", dir + "other/2024-08-21_UMBRA-08_CSI.tif"));
+        assertTrue(UmbraS3Service.isCsiWithSibling(dir + "2024-08-21-20-27-04_UMBRA-08_CSI.tif", keys));
+        assertFalse(UmbraS3Service.isCsiWithSibling(dir + "2024-08-21-20-27-04_UMBRA-08_GEC.tif", keys));
+        assertFalse(UmbraS3Service.isCsiWithSibling(dir + "other/2024-08-21_UMBRA-08_CSI.tif", keys));
+    }
+
+    private static S3ObjectSummary summary(String bucket, String key, Instant lastModified) {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setBucketName(bucket);
+        summary.setKey(key);
+        summary.setLastModified(Date.from(lastModified));
+        summary.setSize(1);
+        return summary;
+    }
+
     @Configuration
     @Import(DefaultOrgTestConfig.class)
     static class TestConfig {
@@ -0,0 +1,90 @@
+package org.wikimedia.commons.donvip.spacemedia.service.s3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the detection of Umbra CSI files having a GEC sibling through a linear scan of the bucket listing with
+ * {@link S3KeyIndex}, on a synthetic bucket laid out like the Umbra open data catalog (one task directory per
+ * collect, half of them with both CSI and GEC files). Run its {@code main} method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class S3KeyIndexBenchmark {
+
+    private static final String CSI_TIF = "_csi.tif";
+
+    @Param({ "100000" })
+    public int keys;
+
+    private List<String> listing;
+    private S3KeyIndex index;
+    private List<String> csiKeys;
+
+    @Setup
+    public void setup() {
+        listing = new ArrayList<>(keys);
+        csiKeys = new ArrayList<>();
+        for (int i = 0; listing.size() < keys; i++) {
+            String dir = String.format(
+                    "sar-data/tasks/Site %06d/%08x-0000-0000-0000-000000000000/2024-01-01_UMBRA-%02d/", i, i, i % 10);
+            String csi = dir + "2024-01-01_UMBRA-" + (i % 10) + "_CSI.tif";
+            listing.add(csi);
+            if (i % 2 == 0) {
+                listing.add(dir + "2024-01-01_UMBRA-" + (i % 10) + "_GEC.tif");
+            }
+            if (csiKeys.size() < 1000) {
+                csiKeys.add(csi);
+            }
+        }
+        index = S3KeyIndex.of(listing);
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole bh) {
+        for (String key : csiKeys) {
+            String prefix = key.substring(0, key.toLowerCase(Locale.ENGLISH).lastIndexOf(CSI_TIF));
+            bh.consume(listing.stream().anyMatch(
+                    k -> k.startsWith(prefix) && !k.toLowerCase(Locale.ENGLISH).contains(CSI_TIF)));
+        }
+    }
+
+    @Benchmark
+    public void prefixIndex(Blackhole bh) {
+        for (String key : csiKeys) {
+            String prefix = key.substring(0, key.toLowerCase(Locale.ENGLISH).lastIndexOf(CSI_TIF));
+            bh.consume(index.anyWithPrefix(prefix, k -> !k.toLowerCase(Locale.ENGLISH).contains(CSI_TIF)));
+        }
+    }
+
+    @Benchmark
+    public S3KeyIndex buildIndex() {
+        return S3KeyIndex.of(listing);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(S3KeyIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,31 @@
+package org.wikimedia.commons.donvip.spacemedia.service.s3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class S3KeyIndexTest {
+
+    private final S3KeyIndex index = S3KeyIndex.of(List.of("b/2.tif", "a/1_CSI.tif", "a/1_GEC.tif", "a/10.tif", "c"));
+
+    @Test
+    void testContains() {
+        assertEquals(5, index.size());
+        assertTrue(index.contains("a/10.tif"));
+        assertFalse(index.contains("a/1"));
+    }
+
+    @Test
+    void testAnyWithPrefix() {
+        assertTrue(index.anyWithPrefix("a/1", k -> k.endsWith("_GEC.tif")));
+        assertTrue(index.anyWithPrefix("a/1", k -> k.equals("a/10.tif")));
+        assertFalse(index.anyWithPrefix("a/1_", k -> k.equals("a/10.tif")));
+        assertFalse(index.anyWithPrefix("b/", k -> k.startsWith("a/")));
+        assertTrue(index.anyWithPrefix("c", k -> true));
+        assertFalse(index.anyWithPrefix("d", k -> true));
+    }
+}
@@ -0,0 +1,44 @@
+package org.wikimedia.commons.donvip.spacemedia.service.wikimedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveChunkSizeTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void testGrowsWhenFastUpToMax() {
+        AdaptiveChunkSize size = new AdaptiveChunkSize(1_000, 4_000, 10_000, Duration.ofSeconds(10));
+        size.sent(4_000, SECOND);
+        assertEquals(8_000, size.get());
+        size.sent(8_000, SECOND);
+        assertEquals(10_000, size.get());
+        size.sent(10_000, SECOND);
+        assertEquals(10_000, size.get());
+    }
+
+    @Test
+    void testStableWithinTarget() {
+        AdaptiveChunkSize size = new AdaptiveChunkSize(1_000, 4_000, 10_000, Duration.ofSeconds(10));
+        size.sent(4_000, 10 * SECOND);
+        assertEquals(4_000, size.get());
+        // Last chunk is smaller, ignored
+        size.sent(100, SECOND);
+        assertEquals(4_000, size.get());
+    }
+
+    @Test
+    void testShrinksWhenSlowOrFailedDownToMin() {
+        AdaptiveChunkSize size = new AdaptiveChunkSize(1_000, 4_000, 10_000, Duration.ofSeconds(10));
+        size.sent(4_000, 30 * SECOND);
+        assertEquals(2_000, size.get());
+        size.failed();
+        assertEquals(1_000, size.get());
+        size.failed();
+        assertEquals(1_000, size.get());
+    }
+}
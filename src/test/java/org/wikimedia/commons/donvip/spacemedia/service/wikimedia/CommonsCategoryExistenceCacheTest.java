@@ -0,0 +1,70 @@
+package org.wikimedia.commons.donvip.spacemedia.service.wikimedia;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.wikimedia.commons.donvip.spacemedia.data.commons.CommonsCategory;
+import org.wikimedia.commons.donvip.spacemedia.data.commons.CommonsCategoryRepository;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CommonsCategoryExistence;
+import org.wikimedia.commons.donvip.spacemedia.data.domain.base.CommonsCategoryExistenceRepository;
+
+@SpringJUnitConfig(CommonsCategoryExistenceCacheTest.TestConfig.class)
+class CommonsCategoryExistenceCacheTest {
+
+    @MockBean
+    private CommonsCategoryRepository categoryRepository;
+
+    @MockBean
+    private CommonsCategoryExistenceRepository existenceRepository;
+
+    @Autowired
+    private CommonsCategoryExistenceCache cache;
+
+    @Test
+    void testPrewarmAndProbeOnce() {
+        when(existenceRepository.findByOrderByCheckedDesc(any())).thenReturn(List.of(
+                new CommonsCategoryExistence("Recent", true, LocalDateTime.now().minusDays(1)),
+                new CommonsCategoryExistence("Expired", false, LocalDateTime.now().minusDays(60))));
+        when(categoryRepository.findTitleByTitleIn(List.of("Expired"))).thenReturn(Set.of("Expired"));
+        when(categoryRepository.findByTitle("New")).thenReturn(Optional.of(new CommonsCategory()));
+        cache.init();
+
+        assertTrue(cache.existsCategoryPage("Recent"));
+        assertTrue(cache.existsCategoryPage("Expired"));
+        verify(categoryRepository, never()).findByTitle("Recent");
+        verify(categoryRepository, never()).findByTitle("Expired");
+
+        assertTrue(cache.existsCategoryPage("New"));
+        assertTrue(cache.existsCategoryPage("New"));
+        assertFalse(cache.existsCategoryPage("Missing"));
+        assertFalse(cache.existsCategoryPage("Missing"));
+        verify(categoryRepository, times(1)).findByTitle("New");
+        verify(categoryRepository, times(1)).findByTitle("Missing");
+        verify(existenceRepository, times(2)).save(any());
+    }
+
+    @Configuration
+    static class TestConfig {
+
+        @Bean
+        public CommonsCategoryExistenceCache cache() {
+            return new CommonsCategoryExistenceCache();
+        }
+    }
+}
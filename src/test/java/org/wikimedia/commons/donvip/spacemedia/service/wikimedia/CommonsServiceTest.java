@@ -45,6 +45,7 @@ import org.wikimedia.commons.donvip.spacemedia.data.commons.CommonsPageRestricti
 import org.wikimedia.commons.donvip.spacemedia.data.commons.HeartbeatRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.domain.base.RuntimeDataRepository;
 import org.wikimedia.commons.donvip.spacemedia.data.hashes.HashAssociationRepository;
+import org.wikimedia.commons.donvip.spacemedia.service.PerceptualHashIndexService;
 import org.wikimedia.commons.donvip.spacemedia.service.RemoteService;
 import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.CommonsServiceTest.TestConfig;
 
@@ -72,6 +73,8 @@ class CommonsServiceTest {
     @MockBean
     private HashAssociationRepository hashAssociationRepository;
     @MockBean
+    private PerceptualHashIndexService hashIndex;
+    @MockBean
     private RuntimeDataRepository runtimeDataRepository;
     @MockBean
     private HeartbeatRepository heartbeat;
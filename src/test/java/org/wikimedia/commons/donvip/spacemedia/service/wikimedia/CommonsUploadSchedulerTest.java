@@ -0,0 +1,90 @@
+package org.wikimedia.commons.donvip.spacemedia.service.wikimedia;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wikimedia.commons.donvip.spacemedia.data.commons.api.Limit;
+import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.CommonsUploadScheduler.Phase;
+import org.wikimedia.commons.donvip.spacemedia.service.wikimedia.CommonsUploadScheduler.Upload;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CommonsUploadSchedulerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void testConcurrentTransfersAreBounded() throws Exception {
+        Limit limit = new Limit();
+        limit.setHits(1000);
+        limit.setSeconds(1);
+        CommonsUploadScheduler scheduler = new CommonsUploadScheduler(limit, 2, 5);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String filename = "File " + i;
+                results.add(pool.submit(() -> {
+                    Upload upload = scheduler.start(filename);
+                    try {
+                        return scheduler.transfer(upload, u -> {
+                            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                            u.transferred(10);
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            inFlight.decrementAndGet();
+                            return u.getFilename();
+                        });
+                    } finally {
+                        scheduler.end(upload);
+                    }
+                }));
+            }
+            while (scheduler.getUploads().stream().filter(u -> u.getPhase() == Phase.QUEUED).count() < 2) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, registry.get("spacemedia.commons.uploads").tag("phase", "transfer").gauge().value());
+            assertEquals(2, registry.get("spacemedia.commons.uploads").tag("phase", "queued").gauge().value());
+            release.countDown();
+            for (int i = 0; i < 4; i++) {
+                assertEquals("File " + i, results.get(i).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, maxInFlight.get());
+        assertTrue(scheduler.getUploads().isEmpty());
+        assertEquals(0, registry.get("spacemedia.commons.uploads").tag("phase", "transfer").gauge().value());
+        assertEquals(4, registry.get("spacemedia.commons.upload").timer().count());
+        assertEquals(40, registry.get("spacemedia.commons.uploaded").counter().count());
+    }
+}
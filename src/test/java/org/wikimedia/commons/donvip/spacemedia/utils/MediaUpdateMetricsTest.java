@@ -0,0 +1,61 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MediaUpdateMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void testTimeStages() {
+        assertEquals("ok", MediaUpdateMetrics.time(MediaUpdateMetrics.SHA1, "nasa", "repo", () -> "ok"));
+        assertThrows(IOException.class, () -> MediaUpdateMetrics.time(MediaUpdateMetrics.DOWNLOAD, "nasa", "repo",
+                () -> {
+                    throw new IOException();
+                }));
+        assertEquals(1, registry.get("spacemedia.update.stage").tags("org", "nasa", "repo", "repo", "stage", "sha1")
+                .timer().count());
+        assertEquals(1, registry.get("spacemedia.update.stage").tag("stage", "download").timer().count());
+    }
+
+    @Test
+    void testCounters() {
+        MediaUpdateMetrics.countDownloadedBytes("esa", "esa", 100);
+        MediaUpdateMetrics.countDownloadedBytes("esa", "esa", 50);
+        MediaUpdateMetrics.countHttpResponse("www.esa.int", 404);
+        MediaUpdateMetrics.countHttpResponse(null, 200);
+        assertEquals(150, registry.get("spacemedia.update.downloaded").tag("org", "esa").counter().count());
+        assertEquals(1, registry.get("spacemedia.http.responses").tags("host", "www.esa.int", "status", "404")
+                .counter().count());
+        assertEquals(1, registry.get("spacemedia.http.responses").tags("host", "unknown", "status", "200")
+                .counter().count());
+    }
+
+    @Test
+    void testQueueDepth() {
+        MediaUpdateMetrics.queueDepth("dvids").set(3);
+        assertEquals(3, registry.get("spacemedia.update.queue").tag("org", "dvids").gauge().value());
+        MediaUpdateMetrics.queueDepth("dvids").decrementAndGet();
+        assertEquals(2, registry.get("spacemedia.update.queue").tag("org", "dvids").gauge().value());
+    }
+}
@@ -1,14 +1,31 @@
 package org.wikimedia.commons.donvip.spacemedia.utils;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.image.BufferedImage;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+@WireMockTest
 class MediaUtilsTest {
 
     @Test
@@ -21,4 +38,25 @@ class MediaUtilsTest {
             assertNotNull(img.ioException());
         }
     }
+
+    @Test
+    void testDownloadFileThenReadFile(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+        byte[] bytes = Files.readAllBytes(Path.of("src/test/resources/samples/cbar_temperature.png"));
+        stubFor(get("/cbar_temperature.png").willReturn(ok().withBody(bytes)));
+        URL url = new URL(wmRuntimeInfo.getHttpBaseUrl() + "/cbar_temperature.png");
+        Path path;
+        try (CloseableHttpClient httpClient = HttpClients.createDefault();
+                DownloadedFile file = MediaUtils.downloadFile(url, null, httpClient, null)) {
+            path = file.path();
+            assertEquals(DigestUtils.sha1Hex(bytes), file.sha1());
+            assertEquals(bytes.length, file.size());
+            ContentsAndMetadata<BufferedImage> img = MediaUtils.readFile(url, null, file, false);
+            assertNotNull(img.contents());
+            assertEquals("png", img.extension());
+            assertNotNull(ImageUtils.readImageMetadata(path));
+            assertTrue(Files.exists(path));
+        }
+        assertFalse(Files.exists(path));
+        verify(1, getRequestedFor(urlEqualTo("/cbar_temperature.png")));
+    }
 }
@@ -0,0 +1,79 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares perceptual hash comparison through base 36 strings / JImageHash with packed {@link PerceptualHash}.
+ * Run its {@code main} method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerceptualHashBenchmark {
+
+    private static final int CANDIDATES = 1000;
+
+    private String query;
+    private String[] candidates;
+
+    private PerceptualHash packedQuery;
+    private PerceptualHash[] packedCandidates;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        query = HashHelper.encode(new BigInteger(255, random).setBit(255));
+        packedQuery = PerceptualHash.decode(query);
+        candidates = new String[CANDIDATES];
+        packedCandidates = new PerceptualHash[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates[i] = HashHelper.encode(new BigInteger(255, random).setBit(255));
+            packedCandidates[i] = PerceptualHash.decode(candidates[i]);
+        }
+    }
+
+    @Benchmark
+    public void bigIntegerFromString(Blackhole bh) {
+        for (String candidate : candidates) {
+            bh.consume(HashHelper.similarityScore(HashHelper.decode(query), HashHelper.decode(candidate)));
+        }
+    }
+
+    @Benchmark
+    public void packedFromString(Blackhole bh) {
+        for (String candidate : candidates) {
+            bh.consume(HashHelper.similarityScore(query, candidate));
+        }
+    }
+
+    @Benchmark
+    public void packedDecoded(Blackhole bh) {
+        for (PerceptualHash candidate : packedCandidates) {
+            bh.consume(packedQuery.similarityScore(candidate));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PerceptualHashBenchmark.class.getSimpleName()).build()).run();
+    }
+}
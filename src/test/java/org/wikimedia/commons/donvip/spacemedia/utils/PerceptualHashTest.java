@@ -0,0 +1,34 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PerceptualHashTest {
+
+    @Test
+    void testDecodeEncode() {
+        String phash = "5t5fgitouqj9i6k3d4fdtg8p0926o8qs9v73d901tqihkca7ii";
+        assertEquals(phash, PerceptualHash.decode(phash).toString());
+        assertEquals(HashHelper.decode(phash), PerceptualHash.decode(phash).toBigInteger());
+        assertEquals(PerceptualHash.decode(phash), PerceptualHash.of(HashHelper.decode(phash)));
+        assertNull(PerceptualHash.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> PerceptualHash.of(BigInteger.ONE.shiftLeft(256)));
+    }
+
+    @Test
+    void testSimilarityScoreMatchesJImageHash() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            BigInteger a = new BigInteger(255, random).setBit(255);
+            BigInteger b = new BigInteger(255, random).setBit(255);
+            assertEquals(HashHelper.similarityScore(a, b), PerceptualHash.of(a).similarityScore(PerceptualHash.of(b)));
+            assertEquals(HashHelper.hammingDistance(a, b), PerceptualHash.of(a).distance(PerceptualHash.of(b)));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class PerceptualHashTreeTest {
+
+    private static final String BUDAPEST_2021 = "5t5fgitouqj9i6k3d4fdtg8p0926o8qs9v73d901tqihkca7ii";
+    private static final String BUDAPEST_2022 = "5t5fgubml5r39p04i7ywi0x726244n4iai65cxkjao6hfh86mi";
+
+    @Test
+    void testFindWithinThreshold() {
+        PerceptualHashTree tree = new PerceptualHashTree();
+        assertTrue(tree.add(PerceptualHash.decode(BUDAPEST_2021), "sha1a"));
+        assertTrue(tree.add(PerceptualHash.decode(BUDAPEST_2021), "sha1b"));
+        assertFalse(tree.add(PerceptualHash.decode(BUDAPEST_2021), "sha1b"));
+        assertTrue(tree.add(PerceptualHash.decode(BUDAPEST_2022), "sha1c"));
+        assertEquals(2, tree.size());
+
+        // Distance between both images is 14 bits (0.0546875)
+        PerceptualHash query = PerceptualHash.decode(BUDAPEST_2022);
+        assertEquals(List.of("sha1c"), tree.findWithin(query, HashHelper.maxHammingDistance(0.05)));
+        assertEquals(List.of("sha1c", "sha1a", "sha1b"), tree.findWithin(query, HashHelper.maxHammingDistance(0.0785)));
+    }
+
+    @Test
+    void testFindWithinMatchesLinearScan() {
+        Random random = new Random(42);
+        List<PerceptualHash> hashes = new ArrayList<>();
+        PerceptualHashTree tree = new PerceptualHashTree();
+        BigInteger base = new BigInteger(256, random).setBit(255);
+        for (int i = 0; i < 5000; i++) {
+            BigInteger hash = base;
+            for (int j = random.nextInt(40); j > 0; j--) {
+                hash = hash.flipBit(random.nextInt(256));
+            }
+            hashes.add(PerceptualHash.of(hash));
+            tree.add(PerceptualHash.of(hash), Integer.toString(i));
+        }
+        for (int i = 0; i < 50; i++) {
+            PerceptualHash query = hashes.get(random.nextInt(hashes.size()));
+            int maxDistance = random.nextInt(25);
+            Set<String> expected = new HashSet<>();
+            for (int j = 0; j < hashes.size(); j++) {
+                if (HashHelper.hammingDistance(query.toBigInteger(), hashes.get(j).toBigInteger()) <= maxDistance) {
+                    expected.add(Integer.toString(j));
+                }
+            }
+            assertEquals(expected, new HashSet<>(tree.findWithin(query, maxDistance)));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import static java.util.stream.Collectors.joining;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares allowlist/blocklist term lookup through a parallel stream of {@link String#contains} with
+ * {@link TermMatcher}, using the real lists. Run its {@code main} method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TermMatcherBenchmark {
+
+    static final String[] TEXTS = {
+        "nasa's james webb space telescope has captured a new image of the pillars of creation, where new stars are"
+                + " forming within dense clouds of gas and dust. the three-dimensional pillars look like majestic rock"
+                + " formations, but are far more permeable. these columns are made up of cool interstellar gas and dust"
+                + " that appear, at times, semi-transparent in near-infrared light.",
+        "expedition 70 flight engineer jasmin moghbeli of nasa poses for a portrait aboard the international space"
+                + " station's cupola. credit: nasa. a mock-up of the spacecraft used during training at the johnson"
+                + " space center in houston, texas, photographed by a contractor during a press conference.",
+        "u.s. army soldiers assigned to the 173rd airborne brigade conduct a live-fire exercise at grafenwoehr"
+                + " training area, germany, feb. 12, 2024. the exercise is part of combined resolve, a multinational"
+                + " training event. (u.s. army photo by sgt. john doe) airman portrait headshot logo infographic",
+        "" };
+
+    @Param({ "allowlist.allowed.terms", "blocklist.ignored.terms" })
+    public String list;
+
+    private Set<String> terms;
+    private TermMatcher matcher;
+
+    @Setup
+    public void setup() throws IOException {
+        terms = CsvHelper.loadSet(getClass().getResource("/lists/" + list + ".csv"));
+        matcher = new TermMatcher(terms);
+    }
+
+    @Benchmark
+    public void parallelStreamContains(Blackhole bh) {
+        for (String text : TEXTS) {
+            bh.consume(terms.parallelStream().filter(text::contains).sorted().collect(joining(",")));
+        }
+    }
+
+    @Benchmark
+    public void termMatcher(Blackhole bh) {
+        for (String text : TEXTS) {
+            bh.consume(String.join(",", matcher.findAll(text)));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TermMatcherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,46 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class TermMatcherTest {
+
+    @Test
+    void testFindAll() {
+        TermMatcher matcher = new TermMatcher(List.of("he", "she", "his", "hers", "", "usher"));
+        assertEquals(Set.of("he", "she", "hers", "usher"), matcher.findAll("ushers"));
+        assertEquals(Set.of("his"), matcher.findAll("this"));
+        assertEquals(Set.of(), matcher.findAll("HE"));
+        assertEquals(Set.of(), matcher.findAll(""));
+        assertEquals(Set.of(), new TermMatcher(List.of()).findAll("anything"));
+    }
+
+    @Test
+    void testContainsAndStartsWithAny() {
+        TermMatcher matcher = new TermMatcher(List.of("lockheed", "boeing_co"));
+        assertTrue(matcher.containsAny("copyright lockheed martin"));
+        assertFalse(matcher.containsAny("copyright boeing"));
+        assertTrue(matcher.startsWithAny("boeing_company"));
+        assertFalse(matcher.startsWithAny("the_boeing_company"));
+        assertFalse(matcher.startsWithAny("boeing"));
+    }
+
+    @Test
+    void testFindAllMatchesLinearScanWithRealLists() throws IOException {
+        Set<String> terms = CsvHelper.loadSet(getClass().getResource("/lists/blocklist.ignored.terms.csv"));
+        TermMatcher matcher = new TermMatcher(terms);
+        for (String text : List.of(TermMatcherBenchmark.TEXTS)) {
+            assertEquals(terms.stream().filter(text::contains).collect(Collectors.toCollection(TreeSet::new)),
+                    matcher.findAll(text));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.wikimedia.commons.donvip.spacemedia.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    @Test
+    void testBurstThenWait() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        long wait = bucket.reserve();
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(50) && wait <= TimeUnit.MILLISECONDS.toNanos(100), "" + wait);
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void testAcquireRespectsRate() {
+        TokenBucket bucket = new TokenBucket(50, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            bucket.acquire();
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(95));
+    }
+
+    @Test
+    void testUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, 1);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(bucket.tryAcquire());
+            assertEquals(0, bucket.reserve());
+        }
+    }
+}